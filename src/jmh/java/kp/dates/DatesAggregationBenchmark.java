@@ -0,0 +1,221 @@
+package kp.dates;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The JMH benchmark for the date aggregation variants used in {@link DatesAndTimesAggregation}.
+ * <p>
+ * Every variant aggregates the one-second date-times from the {@link DateTimeRange}:
+ * </p>
+ * <ul>
+ * <li>the sequential stream with the nested {@link java.util.TreeMap} grouping collector</li>
+ * <li>the parallel stream with the nested {@link java.util.concurrent.ConcurrentSkipListMap} grouping collector</li>
+ * <li>the parallel stream with the {@link HashMap} for every stream chunk, the maps are merged</li>
+ * <li>the parallel stream with one {@link ConcurrentHashMap} of the {@link LongAdder} counters</li>
+ * <li>the {@link DateTimeHistogram} with the primitive arrays for every thread</li>
+ * </ul>
+ * <p>
+ * The grouping collectors keep the date-times in the lists, the other variants keep only the counts per second.
+ * The parallel variants run in the {@link ForkJoinPool} with the given number of threads.
+ * The sequential variant does not depend on it, so it is in the nested {@link Sequential} benchmark
+ * without the 'threads' parameter.
+ * </p>
+ * <p>
+ * The throughput is reported in operations (whole range aggregations) per second.
+ * The allocation per element is the 'gc.alloc.rate.norm' from the {@link GCProfiler} divided by the size.
+ * The one-year size needs the bigger heap: '-p seconds=31536000 -jvmArgsAppend -Xmx16g'.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DatesAggregationBenchmark {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    /**
+     * The number of seconds: one hour, one day and thirty days.
+     */
+    @Param({"3600", "86400", "2592000"})
+    public int seconds;
+
+    /**
+     * The number of threads of the parallel variants.
+     */
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private DateTimeRange range;
+    private long fromEpochSecond;
+    private long toEpochSecond;
+    private ForkJoinPool pool;
+
+    /**
+     * Creates the range and the pool.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        range = new DateTimeRange(START, START.plusSeconds(seconds), Duration.ofSeconds(1L));
+        fromEpochSecond = range.from().toEpochSecond(ZoneOffset.UTC);
+        toEpochSecond = range.to().toEpochSecond(ZoneOffset.UTC);
+        pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * Shuts down the pool.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.close();
+    }
+
+    /**
+     * Aggregates with the parallel stream and the nested
+     * {@link java.util.concurrent.ConcurrentSkipListMap} grouping collector.
+     *
+     * @return the nested map
+     * @throws ExecutionException   if the aggregation failed
+     * @throws InterruptedException if interrupted
+     */
+    @Benchmark
+    public ConcurrentMap<Integer, ?> concurrentGroupingBy() throws ExecutionException, InterruptedException {
+        return runInPool(() -> range.stream().parallel()
+                .collect(DatesAndTimesAggregation.getDateCollectorForConcurrent()));
+    }
+
+    /**
+     * Aggregates with the parallel stream, the {@link HashMap} for every stream chunk and the merge.
+     *
+     * @return the counts per epoch second
+     * @throws ExecutionException   if the aggregation failed
+     * @throws InterruptedException if interrupted
+     */
+    @Benchmark
+    public Map<Long, long[]> hashMapPerThread() throws ExecutionException, InterruptedException {
+        return runInPool(() -> range.stream().parallel().collect(HashMap::new,
+                (map, dateTime) -> map.computeIfAbsent(dateTime.toEpochSecond(ZoneOffset.UTC), _ -> new long[1])[0]++,
+                (map, other) -> other.forEach((key, count) -> map.merge(key, count, (left, right) -> {
+                    left[0] += right[0];
+                    return left;
+                }))));
+    }
+
+    /**
+     * Aggregates with the parallel stream and one {@link ConcurrentHashMap} of the {@link LongAdder} counters.
+     *
+     * @return the counts per epoch second
+     * @throws ExecutionException   if the aggregation failed
+     * @throws InterruptedException if interrupted
+     */
+    @Benchmark
+    public Map<Long, LongAdder> concurrentHashMapLongAdder() throws ExecutionException, InterruptedException {
+
+        final Map<Long, LongAdder> map = new ConcurrentHashMap<>();
+        return runInPool(() -> {
+            range.stream().parallel().forEach(dateTime -> map.computeIfAbsent(
+                    dateTime.toEpochSecond(ZoneOffset.UTC), _ -> new LongAdder()).increment());
+            return map;
+        });
+    }
+
+    /**
+     * Aggregates with the {@link DateTimeHistogram} for every thread.
+     *
+     * @return the histogram
+     * @throws ExecutionException   if the aggregation failed
+     * @throws InterruptedException if interrupted
+     */
+    @Benchmark
+    public DateTimeHistogram primitiveHistogram() throws ExecutionException, InterruptedException {
+        return runInPool(() -> DateTimeHistogram.aggregate(range.epochSeconds(), fromEpochSecond, toEpochSecond,
+                threads));
+    }
+
+    /**
+     * The benchmark of the sequential variant, it runs once for every size.
+     * The settings of the enclosing class are not inherited, they are repeated.
+     */
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @State(Scope.Benchmark)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    @Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+    public static class Sequential {
+
+        /**
+         * The number of seconds: one hour, one day and thirty days.
+         */
+        @Param({"3600", "86400", "2592000"})
+        public int seconds;
+
+        private DateTimeRange range;
+
+        /**
+         * Creates the range.
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            range = new DateTimeRange(START, START.plusSeconds(seconds), Duration.ofSeconds(1L));
+        }
+
+        /**
+         * Aggregates with the sequential stream and the nested {@link java.util.TreeMap} grouping collector.
+         *
+         * @return the nested map
+         */
+        @Benchmark
+        public Map<Integer, ?> sequentialGroupingBy() {
+            return range.stream().collect(DatesAndTimesAggregation.getDateCollector());
+        }
+    }
+
+    /**
+     * Runs the benchmark with the GC profiler, which reports the allocation rate.
+     *
+     * @throws RunnerException if the benchmark fails
+     */
+    static void main() throws RunnerException {
+
+        final Options options = new OptionsBuilder()
+                .include(DatesAggregationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+    /**
+     * Runs the task in the pool, the parallel streams started in the pool use its threads.
+     *
+     * @param task the task
+     * @param <T>  the result type
+     * @return the result
+     * @throws ExecutionException   if the task failed
+     * @throws InterruptedException if interrupted
+     */
+    private <T> T runInPool(Callable<T> task) throws ExecutionException, InterruptedException {
+        return pool.submit(task).get();
+    }
+}
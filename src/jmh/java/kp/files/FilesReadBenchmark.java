@@ -0,0 +1,303 @@
+package kp.files;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * The JMH benchmark for the read strategies used in {@link FilesAndZipFiles#readFiles()}.
+ * <p>
+ * Every strategy reads the whole file. The file with the printable ASCII lines is created
+ * for every size from 1 KB to 1 GB. Besides the strategies from {@link FilesAndZipFiles}
+ * there are the memory-mapped and the direct buffer {@link FileChannel} variants.
+ * </p>
+ * <p>
+ * The throughput is reported in operations (whole file reads) per second.
+ * The allocation rate is reported by the {@link GCProfiler}, it is added by the {@link #main()} method
+ * (or with the '-prof gc' option of the 'benchmarks.jar').
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class FilesReadBenchmark {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int LINE_LENGTH = 80;
+
+    /**
+     * The file size.
+     */
+    @Param({"1KB", "1MB", "64MB", "1GB"})
+    public String fileSize;
+
+    private Path path;
+
+    /**
+     * Creates the file with the printable ASCII lines.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Setup(Level.Trial)
+    public void createFile() throws IOException {
+
+        final long size = parseSize(fileSize);
+        path = Files.createTempFile("benchmark", ".txt");
+        final Random random = new Random(size);
+        final byte[] chunk = new byte[1 << 20];
+        for (int i = 0; i < chunk.length; i++) {
+            chunk[i] = i % LINE_LENGTH == LINE_LENGTH - 1 ? (byte) '\n' : (byte) (' ' + random.nextInt('~' - ' '));
+        }
+        try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(path))) {
+            for (long written = 0; written < size; written += chunk.length) {
+                outputStream.write(chunk, 0, (int) Math.min(chunk.length, size - written));
+            }
+        }
+    }
+
+    /**
+     * Deletes the file.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * Reads with 'Files.newInputStream(...)' and 'read(...)'.
+     *
+     * @param blackhole the {@link Blackhole}
+     * @throws IOException if an I/O error occurs
+     */
+    @Benchmark
+    public void filesNewInputStreamRead(Blackhole blackhole) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            readFully(inputStream, blackhole);
+        }
+    }
+
+    /**
+     * Reads with 'Files.newInputStream(...)' and 'readAllBytes()'.
+     *
+     * @return the bytes
+     * @throws IOException if an I/O error occurs
+     */
+    @Benchmark
+    public byte[] filesNewInputStreamReadAllBytes() throws IOException {
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+    /**
+     * Reads with 'Files.newInputStream(...)' and 'transferTo(...)'.
+     * The bytes are transferred to the null output stream, the gigabyte file does not fit in the byte array stream.
+     *
+     * @return the number of transferred bytes
+     * @throws IOException if an I/O error occurs
+     */
+    @Benchmark
+    public long filesNewInputStreamTransferTo() throws IOException {
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            return inputStream.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    /**
+     * Reads with 'new FileInputStream(...)' and 'read(...)'.
+     *
+     * @param blackhole the {@link Blackhole}
+     * @throws IOException if an I/O error occurs
+     */
+    @Benchmark
+    public void fileInputStreamRead(Blackhole blackhole) throws IOException {
+        try (InputStream inputStream = new FileInputStream(path.toFile())) {
+            readFully(inputStream, blackhole);
+        }
+    }
+
+    /**
+     * Reads with 'Channels.newInputStream(...)' and 'read(...)'.
+     *
+     * @param blackhole the {@link Blackhole}
+     * @throws IOException if an I/O error occurs
+     */
+    @Benchmark
+    public void channelsNewInputStreamRead(Blackhole blackhole) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(path);
+             InputStream inputStream = Channels.newInputStream(fileChannel)) {
+            readFully(inputStream, blackhole);
+        }
+    }
+
+    /**
+     * Reads with 'Channels.newReader(...)'.
+     *
+     * @param blackhole the {@link Blackhole}
+     * @throws IOException if an I/O error occurs
+     */
+    @Benchmark
+    public void channelsNewReader(Blackhole blackhole) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(path);
+             Reader reader = Channels.newReader(fileChannel, StandardCharsets.UTF_8)) {
+            readFully(reader, blackhole);
+        }
+    }
+
+    /**
+     * Reads with 'new InputStreamReader(...)'.
+     *
+     * @param blackhole the {@link Blackhole}
+     * @throws IOException if an I/O error occurs
+     */
+    @Benchmark
+    public void inputStreamReader(Blackhole blackhole) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(path);
+             Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+            readFully(reader, blackhole);
+        }
+    }
+
+    /**
+     * Reads with 'Files.newBufferedReader(...)' and 'lines()'.
+     *
+     * @return the number of lines
+     * @throws IOException if an I/O error occurs
+     */
+    @Benchmark
+    public long filesNewBufferedReaderLines() throws IOException {
+        try (BufferedReader bufferedReader = Files.newBufferedReader(path);
+             Stream<String> linesStream = bufferedReader.lines()) {
+            return linesStream.count();
+        }
+    }
+
+    /**
+     * Reads with the memory-mapped {@link FileChannel}.
+     *
+     * @param blackhole the {@link Blackhole}
+     * @throws IOException if an I/O error occurs
+     */
+    @Benchmark
+    public void fileChannelMapped(Blackhole blackhole) throws IOException {
+
+        final byte[] bytes = new byte[BUFFER_SIZE];
+        try (FileChannel fileChannel = FileChannel.open(path)) {
+            final MappedByteBuffer buffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
+            while (buffer.hasRemaining()) {
+                buffer.get(bytes, 0, Math.min(bytes.length, buffer.remaining()));
+            }
+        }
+        blackhole.consume(bytes);
+    }
+
+    /**
+     * Reads with the {@link FileChannel} into the direct buffer.
+     *
+     * @param blackhole the {@link Blackhole}
+     * @param state     the state with the direct buffer
+     * @throws IOException if an I/O error occurs
+     */
+    @Benchmark
+    public void fileChannelDirectBuffer(Blackhole blackhole, DirectBufferState state) throws IOException {
+
+        try (FileChannel fileChannel = FileChannel.open(path)) {
+            while (fileChannel.read(state.buffer.clear()) >= 0) {
+                blackhole.consume(state.buffer);
+            }
+        }
+    }
+
+    /**
+     * The state with the reusable direct buffer.
+     */
+    @State(Scope.Thread)
+    public static class DirectBufferState {
+        /**
+         * The direct buffer.
+         */
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    /**
+     * Runs the benchmark with the GC profiler, which reports the allocation rate.
+     *
+     * @throws RunnerException if the benchmark fails
+     */
+    static void main() throws RunnerException {
+
+        final Options options = new OptionsBuilder()
+                .include(FilesReadBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+    /**
+     * Reads the whole stream.
+     *
+     * @param inputStream the input stream
+     * @param blackhole   the {@link Blackhole}
+     * @throws IOException if an I/O error occurs
+     */
+    private static void readFully(InputStream inputStream, Blackhole blackhole) throws IOException {
+
+        final byte[] bytes = new byte[BUFFER_SIZE];
+        while (inputStream.read(bytes) >= 0) {
+            blackhole.consume(bytes);
+        }
+    }
+
+    /**
+     * Reads the whole reader.
+     *
+     * @param reader    the reader
+     * @param blackhole the {@link Blackhole}
+     * @throws IOException if an I/O error occurs
+     */
+    private static void readFully(Reader reader, Blackhole blackhole) throws IOException {
+
+        final char[] chars = new char[BUFFER_SIZE];
+        while (reader.read(chars) >= 0) {
+            blackhole.consume(chars);
+        }
+    }
+
+    /**
+     * Parses the size with the unit.
+     *
+     * @param size the size, e.g. '64MB'
+     * @return the number of bytes
+     */
+    private static long parseSize(String size) {
+
+        final long number = Long.parseLong(size.substring(0, size.length() - 2));
+        return switch (size.substring(size.length() - 2)) {
+            case "KB" -> number << 10;
+            case "MB" -> number << 20;
+            case "GB" -> number << 30;
+            default -> throw new IllegalArgumentException("unknown unit, size[%s]".formatted(size));
+        };
+    }
+}
@@ -24,6 +24,8 @@ public class ApplicationForDatesAndTimes {
         final DatesAndTimesAggregation datesAndTimesAggregation = new DatesAndTimesAggregation();
         datesAndTimesAggregation.aggregateLeapDays();
         datesAndTimesAggregation.aggregateOneYearSeconds();
+        // the parallel grouping collectors are selected with '-Dkp.dates.parallel=true'
+        datesAndTimesAggregation.aggregateOneYearSecondsWithCollectors(!Boolean.getBoolean("kp.dates.parallel"));
 
         final DatesAndTimesChanging datesAndTimesChanging = new DatesAndTimesChanging();
         datesAndTimesChanging.formatDate();
@@ -0,0 +1,482 @@
+package kp.dates;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.ZoneOffset;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.LongStream;
+
+/**
+ * The histogram of the date-times kept as the epoch seconds (the local date-times at the UTC offset).
+ * <p>
+ * The buckets are primitive arrays over the fixed range:
+ * </p>
+ * <ul>
+ * <li>the count for every minute</li>
+ * <li>the occupancy bits of the seconds, one 'long' for every minute</li>
+ * <li>the additional counts of the seconds with more than one date-time,
+ * in the hour pages allocated only when needed</li>
+ * </ul>
+ * <p>
+ * For one year of distinct seconds it takes about 6 MB. The year, month, day and hour counts
+ * are the sums of the minute counts, they are computed from the prefix sums.
+ * </p>
+ * <p>
+ * The histogram is not thread-safe. The parallel aggregation builds one histogram for every thread
+ * and merges them at the end.
+ * </p>
+ */
+public final class DateTimeHistogram {
+
+    private static final int SECONDS_PER_MINUTE = 60;
+    private static final int SECONDS_PER_HOUR = 3_600;
+    private static final int SECONDS_PER_DAY = 86_400;
+
+    private final long from;
+    private final long to;
+    private final long base;
+    private final int[] minuteCounts;
+    private final long[] secondBits;
+    private final int[][] extraPages;
+    private long[] minutePrefixSums;
+    private long total;
+
+    /**
+     * The function creating the bucket value.
+     *
+     * @param <V> the value type
+     */
+    @FunctionalInterface
+    private interface BucketFunction<V> {
+        /**
+         * Creates the bucket value.
+         *
+         * @param start the first epoch second of the bucket
+         * @param end   the epoch second after the bucket
+         * @return the value
+         */
+        V apply(long start, long end);
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param fromEpochSecond the first epoch second of the range
+     * @param toEpochSecond   the epoch second after the range
+     * @throws IllegalArgumentException if the range is empty or too long
+     */
+    public DateTimeHistogram(long fromEpochSecond, long toEpochSecond) {
+
+        if (fromEpochSecond >= toEpochSecond) {
+            throw new IllegalArgumentException("empty range[%d, %d)".formatted(fromEpochSecond, toEpochSecond));
+        }
+        this.from = fromEpochSecond;
+        this.to = toEpochSecond;
+        this.base = Math.floorDiv(fromEpochSecond, SECONDS_PER_MINUTE) * SECONDS_PER_MINUTE;
+        if (toEpochSecond - base >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("range[%d, %d) too long".formatted(fromEpochSecond, toEpochSecond));
+        }
+        final int seconds = (int) (toEpochSecond - base);
+        this.minuteCounts = new int[Math.ceilDiv(seconds, SECONDS_PER_MINUTE)];
+        this.secondBits = new long[minuteCounts.length];
+        this.extraPages = new int[Math.ceilDiv(seconds, SECONDS_PER_HOUR)][];
+    }
+
+    /**
+     * Aggregates the epoch seconds in parallel.
+     * <p>
+     * The source is split into about 'parallelism' chunks, every chunk is counted into its own histogram,
+     * and the histograms are merged at the end. The splittable sized source, e.g. {@link DateTimeRange#epochSeconds()},
+     * is split evenly and it is not materialized.
+     * </p>
+     *
+     * @param epochSeconds    the stream of the epoch seconds
+     * @param fromEpochSecond the first epoch second of the range
+     * @param toEpochSecond   the epoch second after the range
+     * @param parallelism     the number of chunks
+     * @return the histogram
+     */
+    public static DateTimeHistogram aggregate(LongStream epochSeconds, long fromEpochSecond, long toEpochSecond,
+                                              int parallelism) {
+
+        final List<Spliterator.OfLong> chunks = new ArrayList<>();
+        chunks.add(epochSeconds.spliterator());
+        // splits the largest chunk until there are enough chunks or nothing can be split
+        for (boolean split = true; split && chunks.size() < parallelism; ) {
+            chunks.sort(Comparator.comparingLong(Spliterator::estimateSize));
+            final Spliterator.OfLong prefix = chunks.getLast().trySplit();
+            split = Objects.nonNull(prefix);
+            if (split) {
+                chunks.add(prefix);
+            }
+        }
+        return chunks.parallelStream().map(chunk -> {
+            final DateTimeHistogram histogram = new DateTimeHistogram(fromEpochSecond, toEpochSecond);
+            chunk.forEachRemaining((LongConsumer) histogram::add);
+            return histogram;
+        }).reduce(DateTimeHistogram::merge).orElseGet(() -> new DateTimeHistogram(fromEpochSecond, toEpochSecond));
+    }
+
+    /**
+     * Adds the date-time.
+     *
+     * @param epochSecond the epoch second
+     * @throws IllegalArgumentException if the epoch second is out of the range
+     */
+    public void add(long epochSecond) {
+
+        if (epochSecond < from || epochSecond >= to) {
+            throw new IllegalArgumentException("epoch second[%d] out of range[%d, %d)".formatted(epochSecond, from, to));
+        }
+        final int index = (int) (epochSecond - base);
+        final int minute = index / SECONDS_PER_MINUTE;
+        final long bit = 1L << (index % SECONDS_PER_MINUTE);
+        minuteCounts[minute]++;
+        if ((secondBits[minute] & bit) == 0) {
+            secondBits[minute] |= bit;
+        } else {
+            addExtra(index, 1);
+        }
+        total++;
+        minutePrefixSums = null;
+    }
+
+    /**
+     * Merges the other histogram into this histogram.
+     *
+     * @param other the other histogram with the same range
+     * @return this histogram
+     * @throws IllegalArgumentException if the ranges differ
+     */
+    public DateTimeHistogram merge(DateTimeHistogram other) {
+
+        if (from != other.from || to != other.to) {
+            throw new IllegalArgumentException("different ranges");
+        }
+        for (int minute = 0; minute < minuteCounts.length; minute++) {
+            minuteCounts[minute] += other.minuteCounts[minute];
+            // the seconds present in both histograms
+            long both = secondBits[minute] & other.secondBits[minute];
+            while (both != 0) {
+                addExtra(minute * SECONDS_PER_MINUTE + Long.numberOfTrailingZeros(both), 1);
+                both &= both - 1;
+            }
+            secondBits[minute] |= other.secondBits[minute];
+        }
+        for (int page = 0; page < extraPages.length; page++) {
+            final int[] otherPage = other.extraPages[page];
+            if (Objects.isNull(otherPage)) {
+                continue;
+            }
+            for (int i = 0; i < otherPage.length; i++) {
+                if (otherPage[i] != 0) {
+                    addExtra(page * SECONDS_PER_HOUR + i, otherPage[i]);
+                }
+            }
+        }
+        total += other.total;
+        minutePrefixSums = null;
+        return this;
+    }
+
+    /**
+     * Gets the total number of the date-times.
+     *
+     * @return the total
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Counts the date-times in the range.
+     *
+     * @param fromEpochSecond the first epoch second
+     * @param toEpochSecond   the epoch second after the range
+     * @return the count
+     */
+    public long count(long fromEpochSecond, long toEpochSecond) {
+
+        long start = Math.max(fromEpochSecond, base);
+        final long end = Math.min(toEpochSecond, to);
+        long count = 0;
+        for (; start < end && (start - base) % SECONDS_PER_MINUTE != 0; start++) {
+            count += countSecond((int) (start - base));
+        }
+        final long fullMinutesEnd = start + (end - start) / SECONDS_PER_MINUTE * SECONDS_PER_MINUTE;
+        if (start < fullMinutesEnd) {
+            final long[] prefixSums = prefixSums();
+            count += prefixSums[(int) ((fullMinutesEnd - base) / SECONDS_PER_MINUTE)]
+                     - prefixSums[(int) ((start - base) / SECONDS_PER_MINUTE)];
+            start = fullMinutesEnd;
+        }
+        for (; start < end; start++) {
+            count += countSecond((int) (start - base));
+        }
+        return count;
+    }
+
+    /**
+     * Gets the nested map view: year, month, day, hour, minute, second and the date-times of the second.
+     * <p>
+     * The view is the lazy projection over the histogram, the maps are created on the iteration
+     * and only the non-empty buckets are the keys. The histogram must not be changed while viewed.
+     * </p>
+     *
+     * @return the nested map view
+     */
+    public Map<Integer, Map<Month, Map<Integer, Map<Integer, Map<Integer, Map<Integer, List<LocalDateTime>>>>>>> toNestedMap() {
+
+        prefixSums();
+        return new BucketMap<>(base, to,
+                second -> toDate(second).withDayOfYear(1).plusYears(1).toEpochDay() * SECONDS_PER_DAY,
+                second -> toDate(second).getYear(), this::monthMap);
+    }
+
+    /**
+     * Creates the month map view.
+     *
+     * @param start the first epoch second
+     * @param end   the epoch second after the range
+     * @return the month map view
+     */
+    private Map<Month, Map<Integer, Map<Integer, Map<Integer, Map<Integer, List<LocalDateTime>>>>>> monthMap(long start, long end) {
+        return new BucketMap<>(start, end,
+                second -> toDate(second).withDayOfMonth(1).plusMonths(1).toEpochDay() * SECONDS_PER_DAY,
+                second -> toDate(second).getMonth(), this::dayMap);
+    }
+
+    /**
+     * Creates the day map view.
+     *
+     * @param start the first epoch second
+     * @param end   the epoch second after the range
+     * @return the day map view
+     */
+    private Map<Integer, Map<Integer, Map<Integer, Map<Integer, List<LocalDateTime>>>>> dayMap(long start, long end) {
+        return new BucketMap<>(start, end, second -> nextBoundary(second, SECONDS_PER_DAY),
+                second -> toDate(second).getDayOfMonth(), this::hourMap);
+    }
+
+    /**
+     * Creates the hour map view.
+     *
+     * @param start the first epoch second
+     * @param end   the epoch second after the range
+     * @return the hour map view
+     */
+    private Map<Integer, Map<Integer, Map<Integer, List<LocalDateTime>>>> hourMap(long start, long end) {
+        return new BucketMap<>(start, end, second -> nextBoundary(second, SECONDS_PER_HOUR),
+                second -> Math.floorMod(second, SECONDS_PER_DAY) / SECONDS_PER_HOUR, this::minuteMap);
+    }
+
+    /**
+     * Creates the minute map view.
+     *
+     * @param start the first epoch second
+     * @param end   the epoch second after the range
+     * @return the minute map view
+     */
+    private Map<Integer, Map<Integer, List<LocalDateTime>>> minuteMap(long start, long end) {
+        return new BucketMap<>(start, end, second -> nextBoundary(second, SECONDS_PER_MINUTE),
+                second -> Math.floorMod(second, SECONDS_PER_HOUR) / SECONDS_PER_MINUTE, this::secondMap);
+    }
+
+    /**
+     * Creates the second map view.
+     *
+     * @param start the first epoch second
+     * @param end   the epoch second after the range
+     * @return the second map view
+     */
+    private Map<Integer, List<LocalDateTime>> secondMap(long start, long end) {
+        return new BucketMap<>(start, end, second -> second + 1,
+                second -> Math.floorMod(second, SECONDS_PER_MINUTE),
+                (second, _) -> Collections.nCopies(countSecond((int) (second - base)),
+                        LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC)));
+    }
+
+    /**
+     * Counts the date-times of the second.
+     *
+     * @param index the second index from the base
+     * @return the count
+     */
+    private int countSecond(int index) {
+
+        if ((secondBits[index / SECONDS_PER_MINUTE] & 1L << (index % SECONDS_PER_MINUTE)) == 0) {
+            return 0;
+        }
+        final int[] page = extraPages[index / SECONDS_PER_HOUR];
+        return 1 + (Objects.isNull(page) ? 0 : page[index % SECONDS_PER_HOUR]);
+    }
+
+    /**
+     * Adds the additional count of the second.
+     *
+     * @param index the second index from the base
+     * @param count the count
+     */
+    private void addExtra(int index, int count) {
+
+        int[] page = extraPages[index / SECONDS_PER_HOUR];
+        if (Objects.isNull(page)) {
+            page = new int[SECONDS_PER_HOUR];
+            extraPages[index / SECONDS_PER_HOUR] = page;
+        }
+        page[index % SECONDS_PER_HOUR] += count;
+    }
+
+    /**
+     * Gets the prefix sums of the minute counts, they are computed after the change.
+     *
+     * @return the prefix sums
+     */
+    private long[] prefixSums() {
+
+        if (Objects.isNull(minutePrefixSums)) {
+            final long[] prefixSums = new long[minuteCounts.length + 1];
+            for (int minute = 0; minute < minuteCounts.length; minute++) {
+                prefixSums[minute + 1] = prefixSums[minute] + minuteCounts[minute];
+            }
+            minutePrefixSums = prefixSums;
+        }
+        return minutePrefixSums;
+    }
+
+    /**
+     * Gets the next bucket boundary for the fixed length buckets.
+     *
+     * @param second the epoch second
+     * @param length the bucket length in seconds
+     * @return the next boundary
+     */
+    private static long nextBoundary(long second, int length) {
+        return (Math.floorDiv(second, length) + 1) * length;
+    }
+
+    /**
+     * Converts the epoch second to the date.
+     *
+     * @param second the epoch second
+     * @return the date
+     */
+    private static LocalDate toDate(long second) {
+        return LocalDate.ofEpochDay(Math.floorDiv(second, SECONDS_PER_DAY));
+    }
+
+    /**
+     * The map view with the non-empty buckets of the range as the keys, in the time order.
+     *
+     * @param <K> the key type
+     * @param <V> the value type
+     */
+    private final class BucketMap<K, V> extends AbstractMap<K, V> {
+
+        private final long start;
+        private final long end;
+        private final LongUnaryOperator boundaryFunction;
+        private final LongFunction<K> keyFunction;
+        private final BucketFunction<V> valueFunction;
+        private int size = -1;
+
+        /**
+         * The constructor.
+         *
+         * @param start            the first epoch second
+         * @param end              the epoch second after the range
+         * @param boundaryFunction the function giving the next bucket boundary
+         * @param keyFunction      the function giving the bucket key
+         * @param valueFunction    the function creating the bucket value
+         */
+        BucketMap(long start, long end, LongUnaryOperator boundaryFunction, LongFunction<K> keyFunction,
+                  BucketFunction<V> valueFunction) {
+
+            this.start = start;
+            this.end = end;
+            this.boundaryFunction = boundaryFunction;
+            this.keyFunction = keyFunction;
+            this.valueFunction = valueFunction;
+        }
+
+        @Override
+        public Set<Entry<K, V>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    return new BucketIterator();
+                }
+
+                @Override
+                public int size() {
+                    if (size < 0) {
+                        int count = 0;
+                        for (long bucket = start; bucket < end; ) {
+                            final long bucketEnd = Math.min(boundaryFunction.applyAsLong(bucket), end);
+                            count += count(bucket, bucketEnd) > 0 ? 1 : 0;
+                            bucket = bucketEnd;
+                        }
+                        size = count;
+                    }
+                    return size;
+                }
+            };
+        }
+
+        /**
+         * The iterator over the non-empty buckets.
+         */
+        private final class BucketIterator implements Iterator<Entry<K, V>> {
+
+            private long bucket = start;
+            private long bucketEnd;
+            private boolean found;
+
+            @Override
+            public boolean hasNext() {
+
+                if (found) {
+                    return true;
+                }
+                while (bucket < end) {
+                    final long nextBucket = Math.min(boundaryFunction.applyAsLong(bucket), end);
+                    if (count(bucket, nextBucket) > 0) {
+                        bucketEnd = nextBucket;
+                        found = true;
+                        return true;
+                    }
+                    bucket = nextBucket;
+                }
+                return false;
+            }
+
+            @Override
+            public Entry<K, V> next() {
+
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final Entry<K, V> entry = new SimpleImmutableEntry<>(keyFunction.apply(bucket),
+                        valueFunction.apply(bucket, bucketEnd));
+                bucket = bucketEnd;
+                found = false;
+                return entry;
+            }
+        }
+    }
+}
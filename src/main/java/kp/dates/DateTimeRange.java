@@ -0,0 +1,288 @@
+package kp.dates;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The range of the date-times with the fixed step, the source of the streams without the materialized list.
+ * <p>
+ * The spliterators know the exact size and split the range in halves (SIZED and SUBSIZED),
+ * so the parallel streams split it evenly across the fork-join pool.
+ * Every element is computed from the previous one, only the split positions are computed from the index.
+ * The memory does not depend on the length of the range.
+ * </p>
+ *
+ * @param from the first date-time (inclusive)
+ * @param to   the last date-time (exclusive)
+ * @param step the step, e.g. one second or one millisecond
+ */
+public record DateTimeRange(LocalDateTime from, LocalDateTime to, Duration step) {
+
+    private static final int NANOS_PER_SECOND = 1_000_000_000;
+    private static final int CHARACTERISTICS = Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED
+                                               | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL
+                                               | Spliterator.IMMUTABLE;
+
+    /**
+     * The constructor.
+     *
+     * @param from the first date-time (inclusive)
+     * @param to   the last date-time (exclusive)
+     * @param step the step
+     * @throws IllegalArgumentException if the step is not positive
+     */
+    public DateTimeRange {
+
+        Objects.requireNonNull(from);
+        Objects.requireNonNull(to);
+        if (step.isNegative() || step.isZero()) {
+            throw new IllegalArgumentException("step[%s] not positive".formatted(step));
+        }
+    }
+
+    /**
+     * Gets the number of the date-times.
+     *
+     * @return the size
+     */
+    public long size() {
+
+        if (!from.isBefore(to)) {
+            return 0;
+        }
+        final Duration between = Duration.between(from, to);
+        final long size = between.dividedBy(step);
+        return step.multipliedBy(size).equals(between) ? size : size + 1;
+    }
+
+    /**
+     * Creates the sequential stream of the date-times.
+     *
+     * @return the stream
+     */
+    public Stream<LocalDateTime> stream() {
+        return StreamSupport.stream(new DateTimeSpliterator(this, 0, size()), false);
+    }
+
+    /**
+     * Creates the sequential stream of the epoch seconds of the date-times (the local date-times at the UTC offset).
+     * For the step shorter than one second the epoch seconds repeat.
+     *
+     * @return the stream
+     */
+    public LongStream epochSeconds() {
+        return StreamSupport.longStream(new EpochSecondSpliterator(this, 0, size()), false);
+    }
+
+    /**
+     * The base of the spliterators over the index range.
+     */
+    private abstract static class IndexSpliterator {
+
+        final DateTimeRange range;
+        long index;
+        final long fence;
+        long second;
+        int nano;
+
+        /**
+         * The constructor.
+         *
+         * @param range the range
+         * @param index the first index (inclusive)
+         * @param fence the last index (exclusive)
+         */
+        IndexSpliterator(DateTimeRange range, long index, long fence) {
+
+            this.range = range;
+            this.index = index;
+            this.fence = fence;
+            position(index);
+        }
+
+        /**
+         * Computes the date-time at the index.
+         *
+         * @param at the index
+         */
+        final void position(long at) {
+
+            final LocalDateTime dateTime = range.from().plus(range.step().multipliedBy(at));
+            second = dateTime.toEpochSecond(ZoneOffset.UTC);
+            nano = dateTime.getNano();
+        }
+
+        /**
+         * Moves to the next date-time.
+         */
+        final void advance() {
+
+            second += range.step().getSeconds();
+            nano += range.step().getNano();
+            if (nano >= NANOS_PER_SECOND) {
+                nano -= NANOS_PER_SECOND;
+                second++;
+            }
+            index++;
+        }
+
+        /**
+         * Splits off the first half, this spliterator keeps the second half.
+         *
+         * @return the first index of the second half, or -1 when too small to split
+         */
+        final long splitIndex() {
+
+            final long middle = index + (fence - index) / 2;
+            if (middle == index) {
+                return -1;
+            }
+            return middle;
+        }
+
+        /**
+         * Estimates the size.
+         *
+         * @return the exact size
+         */
+        public final long estimateSize() {
+            return fence - index;
+        }
+
+        /**
+         * Gets the characteristics.
+         *
+         * @return the characteristics
+         */
+        public int characteristics() {
+            return CHARACTERISTICS;
+        }
+    }
+
+    /**
+     * The spliterator of the date-times.
+     */
+    private static final class DateTimeSpliterator extends IndexSpliterator implements Spliterator<LocalDateTime> {
+
+        /**
+         * The constructor.
+         *
+         * @param range the range
+         * @param index the first index (inclusive)
+         * @param fence the last index (exclusive)
+         */
+        DateTimeSpliterator(DateTimeRange range, long index, long fence) {
+            super(range, index, fence);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super LocalDateTime> action) {
+
+            if (index >= fence) {
+                return false;
+            }
+            action.accept(LocalDateTime.ofEpochSecond(second, nano, ZoneOffset.UTC));
+            advance();
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super LocalDateTime> action) {
+
+            while (index < fence) {
+                action.accept(LocalDateTime.ofEpochSecond(second, nano, ZoneOffset.UTC));
+                advance();
+            }
+        }
+
+        @Override
+        public Spliterator<LocalDateTime> trySplit() {
+
+            final long middle = splitIndex();
+            if (middle < 0) {
+                return null;
+            }
+            final Spliterator<LocalDateTime> prefix = new DateTimeSpliterator(range, index, middle);
+            index = middle;
+            position(middle);
+            return prefix;
+        }
+
+        @Override
+        public Comparator<? super LocalDateTime> getComparator() {
+            // the natural order
+            return null;
+        }
+    }
+
+    /**
+     * The spliterator of the epoch seconds.
+     */
+    private static final class EpochSecondSpliterator extends IndexSpliterator implements Spliterator.OfLong {
+
+        /**
+         * The constructor.
+         *
+         * @param range the range
+         * @param index the first index (inclusive)
+         * @param fence the last index (exclusive)
+         */
+        EpochSecondSpliterator(DateTimeRange range, long index, long fence) {
+            super(range, index, fence);
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+
+            if (index >= fence) {
+                return false;
+            }
+            action.accept(second);
+            advance();
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+
+            while (index < fence) {
+                action.accept(second);
+                advance();
+            }
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+
+            final long middle = splitIndex();
+            if (middle < 0) {
+                return null;
+            }
+            final Spliterator.OfLong prefix = new EpochSecondSpliterator(range, index, middle);
+            index = middle;
+            position(middle);
+            return prefix;
+        }
+
+        @Override
+        public int characteristics() {
+            // for the step shorter than one second the epoch seconds repeat
+            return range.step().getSeconds() > 0 ? CHARACTERISTICS : CHARACTERISTICS & ~Spliterator.DISTINCT;
+        }
+
+        @Override
+        public Comparator<? super Long> getComparator() {
+            // the natural order
+            return null;
+        }
+    }
+}
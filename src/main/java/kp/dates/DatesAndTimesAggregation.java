@@ -5,7 +5,6 @@ import kp.utils.Printer;
 import kp.utils.Utils;
 
 import java.time.*;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -23,10 +22,7 @@ import java.util.stream.Collectors;
  */
 public class DatesAndTimesAggregation {
 
-    /**
-     * The sequential or parallel choice flag.
-     */
-    static final boolean SEQUENTIAL_STREAM_FLAG = true;
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
 
     /**
      * Aggregates the leap days.
@@ -47,28 +43,50 @@ public class DatesAndTimesAggregation {
     }
 
     /**
-     * Aggregates the seconds from one year.
+     * Aggregates the seconds from one year with the primitive histograms.
+     * <p>
+     * The nested map is the lazy projection over the merged histogram.
+     * </p>
      */
     public void aggregateOneYearSeconds() {
 
-        Instant start = Instant.now();
-        final List<LocalDateTime> dateList = createDateList();
-        Printer.printf("Created date list. %s", Utils.formatElapsed(start, Instant.now()));
+        final DateTimeRange dateRange = createDateRange();
+        final long fromEpochSecond = dateRange.from().toEpochSecond(ZoneOffset.UTC);
+        final long toEpochSecond = dateRange.to().toEpochSecond(ZoneOffset.UTC);
+        final Instant start = Instant.now();
+        final DateTimeHistogram histogram = DateTimeHistogram.aggregate(dateRange.epochSeconds(), fromEpochSecond,
+                toEpochSecond, PARALLELISM);
+        Printer.printf("Histogram aggregation finished. %s", Utils.formatElapsed(start, Instant.now()));
+        showDateTimeContent(histogram.toNestedMap());
+        Printer.printHor();
+    }
+
+    /**
+     * Aggregates the seconds from one year with the grouping collectors.
+     *
+     * @param sequentialStream the sequential or parallel choice flag: the sequential stream
+     *                         with the {@link TreeMap} collector or the parallel stream
+     *                         with the {@link ConcurrentSkipListMap} collector
+     */
+    public void aggregateOneYearSecondsWithCollectors(boolean sequentialStream) {
+
+        final DateTimeRange dateRange = createDateRange();
+        Instant start;
 
         final Map<Integer, ? extends Map<Month, ? extends Map<Integer, ? extends Map<Integer, ? extends Map<Integer, ? extends Map<Integer, List<LocalDateTime>>>>>>>
                 datesByFieldsMap;
         final Collector<LocalDateTime, ?, ? extends Map<Integer, ? extends Map<Month, ? extends Map<Integer, ? extends Map<Integer, ? extends Map<Integer, ? extends Map<Integer, List<LocalDateTime>>>>>>>>
                 dateCollector;
 
-        if (SEQUENTIAL_STREAM_FLAG) {
+        if (sequentialStream) {
             dateCollector = getDateCollector();
             start = Instant.now();
-            datesByFieldsMap = dateList.stream().collect(dateCollector);
+            datesByFieldsMap = dateRange.stream().collect(dateCollector);
             Printer.printf("Stream process finished. %s", Utils.formatElapsed(start, Instant.now()));
         } else {
             dateCollector = getDateCollectorForConcurrent();
             start = Instant.now();
-            datesByFieldsMap = dateList.stream().parallel().collect(dateCollector);
+            datesByFieldsMap = dateRange.stream().parallel().collect(dateCollector);
             Printer.printf("Parallel stream process finished. %s", Utils.formatElapsed(start, Instant.now()));
         }
         showDateTimeContent(datesByFieldsMap);
@@ -80,7 +98,7 @@ public class DatesAndTimesAggregation {
      *
      * @return the year collector
      */
-    private Collector<LocalDateTime, ?, Map<Integer, Map<Month, Map<Integer, Map<Integer, Map<Integer, Map<Integer, List<LocalDateTime>>>>>>>> getDateCollector() {
+    static Collector<LocalDateTime, ?, Map<Integer, Map<Month, Map<Integer, Map<Integer, Map<Integer, Map<Integer, List<LocalDateTime>>>>>>>> getDateCollector() {
 
         final Collector<LocalDateTime, ?, Map<Integer, List<LocalDateTime>>>
                 secondCollector = Collectors.groupingBy(LocalDateTime::getSecond);
@@ -100,7 +118,7 @@ public class DatesAndTimesAggregation {
      *
      * @return the year collector
      */
-    private Collector<LocalDateTime, ?, ConcurrentMap<Integer, ConcurrentMap<Month, ConcurrentMap<Integer, ConcurrentMap<Integer, ConcurrentMap<Integer, ConcurrentMap<Integer, List<LocalDateTime>>>>>>>> getDateCollectorForConcurrent() {
+    static Collector<LocalDateTime, ?, ConcurrentMap<Integer, ConcurrentMap<Month, ConcurrentMap<Integer, ConcurrentMap<Integer, ConcurrentMap<Integer, ConcurrentMap<Integer, List<LocalDateTime>>>>>>>> getDateCollectorForConcurrent() {
 
         final Collector<LocalDateTime, ?, ConcurrentMap<Integer, List<LocalDateTime>>>
                 secondCollector = Collectors.groupingByConcurrent(LocalDateTime::getSecond, ConcurrentSkipListMap::new,
@@ -121,19 +139,14 @@ public class DatesAndTimesAggregation {
     }
 
     /**
-     * Creates the date list.
+     * Creates the date range of one year with the one-second step.
+     * The date-times are streamed from the range, they are not collected into the list.
      *
-     * @return the stream
+     * @return the date range
      */
-    private List<LocalDateTime> createDateList() {
-
-        final List<LocalDateTime> dateList = new ArrayList<>();
-        for (LocalDateTime date = Constants.EXAMPLE_LOCAL_DATE_TIME.minusYears(1);
-             date.isBefore(Constants.EXAMPLE_LOCAL_DATE_TIME);
-             date = date.plusSeconds(1L)) {
-            dateList.add(date);
-        }
-        return dateList;
+    private DateTimeRange createDateRange() {
+        return new DateTimeRange(Constants.EXAMPLE_LOCAL_DATE_TIME.minusYears(1), Constants.EXAMPLE_LOCAL_DATE_TIME,
+                Duration.ofSeconds(1L));
     }
 
     /**
@@ -27,6 +27,8 @@ public class ApplicationForFiles {
         filesAndZipFiles.listFiles();
         filesAndZipFiles.readZipFiles();
         filesAndZipFiles.listFilesInZipFile();
+        filesAndZipFiles.readZipFilesWithCache();
+        FilesAndZipFiles.closeZipEntryCache();
 
         final PropertyFiles propertyFiles = new PropertyFiles();
         propertyFiles.readProperties();
@@ -34,6 +36,7 @@ public class ApplicationForFiles {
         final TemporaryFilesAndZipFiles temporaryFilesAndZipFiles = new TemporaryFilesAndZipFiles();
         temporaryFilesAndZipFiles.writeAndReadTemporaryFiles();
         temporaryFilesAndZipFiles.writeAndReadTemporaryZipFiles();
+        temporaryFilesAndZipFiles.writeAndReadTemporaryZipFilesInParallel();
 
         final TemporaryFilesWritingAndReading temporaryFilesWritingAndReading = new TemporaryFilesWritingAndReading();
         temporaryFilesWritingAndReading.writeAndReadBytes();
@@ -41,8 +44,14 @@ public class ApplicationForFiles {
 
         final XmlFiles xmlFiles = new XmlFiles();
         xmlFiles.readXmlFiles();
+        xmlFiles.readXmlFilesWithStreaming();
 
         final VisitorWrapper visitorWrapper = new VisitorWrapper();
         visitorWrapper.searchKeywordsInFiles();
+        visitorWrapper.searchKeywordsInFilesInParallel();
+        visitorWrapper.searchKeywordsInFilesWithIndex();
+        // the repeated search is answered from the index
+        visitorWrapper.searchKeywordsInFilesWithIndex();
+        visitorWrapper.watchKeywordsInFiles();
     }
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package kp.files;
 
+import kp.files.zip.ZipEntryCache;
 import kp.utils.Printer;
+import kp.utils.Utils;
 
 import java.io.*;
 import java.nio.CharBuffer;
@@ -9,6 +11,7 @@ import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystem;
 import java.nio.file.*;
+import java.time.Instant;
 import java.util.Optional;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
@@ -22,6 +25,15 @@ import java.util.zip.ZipFile;
  */
 public class FilesAndZipFiles {
 
+    private static final int MAX_OPEN_ZIP_FILE_SYSTEMS = 16;
+    private static final long MAX_CACHED_ZIP_ENTRY_BYTES = 64L << 20;
+    private static final int CACHED_LOOKUPS_NUMBER = 10_000;
+    /**
+     * The shared cache of the open ZIP file systems and the decompressed entries.
+     */
+    private static final ZipEntryCache ZIP_ENTRY_CACHE =
+            new ZipEntryCache(MAX_OPEN_ZIP_FILE_SYSTEMS, MAX_CACHED_ZIP_ENTRY_BYTES);
+
     private final Consumer<Reader> readerConsumer = reader -> {
         final CharBuffer charBuffer = CharBuffer.allocate(ConstantsForFiles.XML_CONTENT.length());
         try {
@@ -241,4 +253,51 @@ public class FilesAndZipFiles {
         Printer.printEndLineOfTriangles();
         Printer.printHor();
     }
+
+    /**
+     * Reads and lists the ZIP file entries with the shared cache.
+     * <p>
+     * The archive is opened and the entry is decompressed only on the first lookup,
+     * the repeated lookups are answered from the cache.
+     * </p>
+     */
+    public void readZipFilesWithCache() {
+
+        Printer.print("▼▼▼ ZIP entry cache ▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼");
+        try {
+            try (InputStream inputStream = ZIP_ENTRY_CACHE.getInputStream(
+                    ConstantsForFiles.EXAMPLE_ZIP_PATH, ConstantsForFiles.EXAMPLE_ZIP_ENTRY);
+                 Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+                readerConsumer.accept(reader);
+            }
+            ZIP_ENTRY_CACHE.listEntries(ConstantsForFiles.EXAMPLE_ZIP_PATH).forEach(name ->
+                    Printer.printf("zipped %s[%s]", name.endsWith("/") ? " dir" : "file", name));
+            final Instant start = Instant.now();
+            long bytes = 0;
+            for (int i = 0; i < CACHED_LOOKUPS_NUMBER; i++) {
+                try (InputStream inputStream = ZIP_ENTRY_CACHE.getInputStream(
+                        ConstantsForFiles.EXAMPLE_ZIP_PATH, ConstantsForFiles.EXAMPLE_ZIP_ENTRY)) {
+                    bytes += inputStream.available();
+                }
+            }
+            Printer.printf("lookups[%s], bytes[%s], %s", Utils.formatNumber(CACHED_LOOKUPS_NUMBER),
+                    Utils.formatNumber(bytes), Utils.formatElapsed(start, Instant.now()));
+        } catch (IOException e) {
+            Printer.printIOException(e);
+            System.exit(1);
+        }
+        final ZipEntryCache.Statistics statistics = ZIP_ENTRY_CACHE.getStatistics();
+        Printer.printf("entry hits[%d], entry misses[%d], file system hits[%d], file system misses[%d], evictions[%d]",
+                statistics.entryHits(), statistics.entryMisses(), statistics.fileSystemHits(),
+                statistics.fileSystemMisses(), statistics.evictions());
+        Printer.printEndLineOfTriangles();
+        Printer.printHor();
+    }
+
+    /**
+     * Closes the shared cache of the open ZIP file systems and the decompressed entries.
+     */
+    public static void closeZipEntryCache() {
+        ZIP_ENTRY_CACHE.close();
+    }
 }
\ No newline at end of file
@@ -1,18 +1,29 @@
 package kp.files;
 
+import kp.files.zip.ParallelZipReader;
+import kp.files.zip.ParallelZipWriter;
+import kp.files.zip.ZipSource;
 import kp.utils.Printer;
+import kp.utils.Utils;
 
 import java.io.*;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.BiConsumer;
 import java.util.function.Predicate;
 import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
@@ -22,6 +33,9 @@ import java.util.zip.ZipOutputStream;
  */
 public class TemporaryFilesAndZipFiles {
 
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+    private static final int REPORTS_NUMBER = 1_000;
+
     /**
      * The constructor.
      */
@@ -112,6 +126,56 @@ public class TemporaryFilesAndZipFiles {
         Printer.printHor();
     }
 
+    /**
+     * Writes and reads temporary ZIP files in parallel.
+     * <p>
+     * The archive with many report entries is compressed and inflated with the parallel ZIP writer and reader.
+     * It is checked with the {@link ZipFile} too.
+     * </p>
+     */
+    public void writeAndReadTemporaryZipFilesInParallel() {
+
+        try {
+            final Path tempFile = Files.createTempFile(Path.of(System.getProperty(ConstantsForFiles.TMP_DIR_KEY)),
+                    "parallel", ".zip");
+            Printer.printf("Created  temporary file[%s]", tempFile);
+            final List<ZipSource> sources = new ArrayList<>();
+            sources.add(ZipSource.ofBytes(ConstantsForFiles.EXAMPLE_ZIP_ENTRY, ConstantsForFiles.XML_CONTENT.getBytes()));
+            IntStream.range(0, REPORTS_NUMBER).mapToObj(number -> ZipSource.ofBytes(
+                    "reports/report%04d.txt".formatted(number), createReport(number))).forEach(sources::add);
+
+            final Instant start = Instant.now();
+            new ParallelZipWriter(PARALLELISM, Deflater.DEFAULT_COMPRESSION).write(tempFile, sources);
+            Printer.printf("Parallel writing: entries[%d], file size[%s], parallelism[%d], %s", sources.size(),
+                    Utils.formatNumber(Files.size(tempFile)), PARALLELISM, Utils.formatElapsed(start, Instant.now()));
+
+            final Instant restart = Instant.now();
+            final Map<String, byte[]> contents = new ParallelZipReader(PARALLELISM).read(tempFile);
+            Printer.printf("Parallel reading: entries[%d], content size[%s], parallelism[%d], %s", contents.size(),
+                    Utils.formatNumber(contents.values().stream().mapToLong(bytes -> bytes.length).sum()),
+                    PARALLELISM, Utils.formatElapsed(restart, Instant.now()));
+            readZipFileContent(tempFile);
+            Printer.printf("Deleting temporary file[%s], result[%b]", tempFile, Files.deleteIfExists(tempFile));
+        } catch (IOException e) {
+            Printer.printIOException(e);
+            System.exit(1);
+        }
+        Printer.printHor();
+    }
+
+    /**
+     * Creates the report content.
+     *
+     * @param number the report number
+     * @return the report content
+     */
+    private static byte[] createReport(int number) {
+
+        final String line = "report[%d]: %s%n".formatted(number, ConstantsForFiles.TEXT_LINES.replace(
+                System.lineSeparator(), " "));
+        return line.repeat(100).getBytes(StandardCharsets.UTF_8);
+    }
+
     /**
      * Deletes the file with result check.
      *
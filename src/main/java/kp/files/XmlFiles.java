@@ -1,21 +1,24 @@
 package kp.files;
 
+import kp.files.xml.DomPools;
+import kp.files.xml.StreamingXPath;
 import kp.utils.Printer;
+import kp.utils.Utils;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathExpression;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
@@ -24,17 +27,16 @@ import java.util.stream.Stream;
  */
 public class XmlFiles {
 
+    private static final String FOURTH_TEXT_EXPRESSION = "/first/second/third/fourth/text()";
+    private static final int FEED_RECORDS_NUMBER = 1_000_000;
+
     /**
      * Reads the XML files.
      */
     public void readXmlFiles() {
 
         try {
-            final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
-            factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
-            final DocumentBuilder builder = factory.newDocumentBuilder();
-            final Document document = builder.parse(ConstantsForFiles.EXAMPLE_XML_PATH.toString());
+            final Document document = DomPools.parse(ConstantsForFiles.EXAMPLE_XML_PATH);
             Printer.printf("Document URI[%s]", document.getDocumentURI());
 
             final Element element = document.getDocumentElement();
@@ -44,10 +46,7 @@ public class XmlFiles {
             final NodeList nodeList = document.getElementsByTagName("third");
             Printer.printf("Node with tag 'third': name[%s]", nodeList.item(0).getNodeName());
 
-            final XPathFactory xPathFactory = XPathFactory.newInstance();
-            final XPath xPath = xPathFactory.newXPath();
-            final XPathExpression xPathExpression = xPath.compile("/first/second/third/fourth/text()");
-            final Node node = xPathExpression.evaluateExpression(document, Node.class);
+            final Node node = DomPools.evaluate(FOURTH_TEXT_EXPRESSION, document, Node.class);
             Printer.printf("Node from xpath expression: text[%s]", node.getTextContent());
         } catch (XPathExpressionException | ParserConfigurationException | SAXException e) {
             Printer.printException(e);
@@ -68,4 +67,59 @@ public class XmlFiles {
         Printer.printEndLineOfTriangles();
         Printer.printHor();
     }
+
+    /**
+     * Reads the XML files with the StAX streaming, without building the DOM.
+     * <p>
+     * The generated feed grows with the number of records, the memory used by the streaming does not.
+     * </p>
+     */
+    public void readXmlFilesWithStreaming() {
+
+        final StreamingXPath streamingXPath = StreamingXPath.compile(FOURTH_TEXT_EXPRESSION);
+        Printer.print("▼▼▼ StAX streaming ▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼");
+        try {
+            streamingXPath.evaluateFirst(ConstantsForFiles.EXAMPLE_XML_PATH).ifPresent(text ->
+                    Printer.printf("Text from streaming xpath expression[%s]: text[%s]",
+                            streamingXPath.getExpression(), text));
+
+            final Path feedPath = Files.createTempFile(
+                    Path.of(System.getProperty(ConstantsForFiles.TMP_DIR_KEY)), "feed", ".xml");
+            try {
+                writeFeed(feedPath);
+                final LongAdder counter = new LongAdder();
+                final Instant start = Instant.now();
+                streamingXPath.evaluate(feedPath, _ -> counter.increment());
+                Printer.printf("feed size[%s], selected texts[%s], %s", Utils.formatNumber(Files.size(feedPath)),
+                        Utils.formatNumber(counter.sum()), Utils.formatElapsed(start, Instant.now()));
+            } finally {
+                Files.deleteIfExists(feedPath);
+            }
+        } catch (XMLStreamException e) {
+            Printer.printException(e);
+            System.exit(1);
+        } catch (IOException e) {
+            Printer.printIOException(e);
+            System.exit(1);
+        }
+        Printer.printEndLineOfTriangles();
+        Printer.printHor();
+    }
+
+    /**
+     * Writes the feed with the records matching the streaming expression.
+     *
+     * @param feedPath the feed path
+     * @throws IOException if an I/O error occurs
+     */
+    private static void writeFeed(Path feedPath) throws IOException {
+
+        try (BufferedWriter writer = Files.newBufferedWriter(feedPath)) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<first>\n");
+            for (int i = 0; i < FEED_RECORDS_NUMBER; i++) {
+                writer.write("<second><third><fourth>Fourth %d</fourth></third></second>\n".formatted(i));
+            }
+            writer.write("</first>\n");
+        }
+    }
 }
@@ -0,0 +1,266 @@
+package kp.files.visitors;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * The Aho–Corasick automaton for the multi-keyword search.
+ * <p>
+ * The automaton is compiled to the deterministic transition table, so every keyword is found
+ * in one linear scan over the raw bytes with one table lookup per byte.
+ * The keywords are UTF-8 encoded and compared with ASCII case folding.
+ * The folding is built into the byte class table, so the scanned bytes are not converted.
+ * </p>
+ * <p>
+ * The scanned lines are reported as spans (start and end index in the buffer), no {@link String} is created.
+ * The lines are terminated by LF, CR, VT or FF.
+ * </p>
+ * <p>
+ * The automaton is immutable and can be shared between threads.
+ * </p>
+ */
+public class KeywordAutomaton {
+
+    /**
+     * The consumer of the line which contains the keyword.
+     */
+    @FunctionalInterface
+    public interface LineMatchConsumer {
+        /**
+         * Accepts the line which contains the keyword.
+         * It is called once for every distinct keyword found in the line.
+         *
+         * @param keywordIndex the keyword index
+         * @param lineStart    the line start index
+         * @param lineEnd      the line end index (exclusive)
+         */
+        void accept(int keywordIndex, int lineStart, int lineEnd);
+    }
+
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+
+    private final int keywordCount;
+    /**
+     * The byte class for every byte value. The bytes which are not in any keyword have the class zero.
+     */
+    private final int[] byteClasses = new int[256];
+    private final int classCount;
+    /**
+     * The transition table, the row for every state and the column for every byte class.
+     */
+    private final int[] transitions;
+    /**
+     * The first keyword which ends in the state, or {@link #NONE}.
+     */
+    private final int[] terminals;
+    /**
+     * The next keyword with the same case-folded bytes, or {@link #NONE}.
+     */
+    private final int[] duplicates;
+    /**
+     * The nearest state on the failure chain with the keyword (including the state itself), or the root.
+     */
+    private final int[] outputs;
+    /**
+     * The nearest proper suffix state with the keyword, or the root.
+     */
+    private final int[] dictionaryLinks;
+
+    /**
+     * The constructor.
+     *
+     * @param keywords the keywords
+     * @throws IllegalArgumentException if the keyword is empty or contains a line terminator
+     */
+    public KeywordAutomaton(List<String> keywords) {
+
+        this.keywordCount = keywords.size();
+        final byte[][] foldedKeywords = new byte[keywordCount][];
+        for (int k = 0; k < keywordCount; k++) {
+            final byte[] bytes = keywords.get(k).getBytes(StandardCharsets.UTF_8);
+            if (bytes.length == 0) {
+                throw new IllegalArgumentException("empty keyword");
+            }
+            for (int i = 0; i < bytes.length; i++) {
+                if (isLineTerminator(bytes[i])) {
+                    throw new IllegalArgumentException("keyword with line terminator[%s]".formatted(keywords.get(k)));
+                }
+                bytes[i] = foldCase(bytes[i]);
+            }
+            foldedKeywords[k] = bytes;
+        }
+        this.classCount = computeByteClasses(foldedKeywords);
+
+        final int maxStates = 1 + Arrays.stream(foldedKeywords).mapToInt(bytes -> bytes.length).sum();
+        final int[] trie = new int[maxStates * classCount];
+        final int[] terminalsTmp = new int[maxStates];
+        Arrays.fill(terminalsTmp, NONE);
+        this.duplicates = new int[keywordCount];
+        Arrays.fill(duplicates, NONE);
+        int stateCount = 1;
+        for (int k = 0; k < keywordCount; k++) {
+            int state = ROOT;
+            for (byte value : foldedKeywords[k]) {
+                final int cell = state * classCount + byteClasses[value & 0xFF];
+                if (trie[cell] == ROOT) {
+                    trie[cell] = stateCount++;
+                }
+                state = trie[cell];
+            }
+            if (terminalsTmp[state] == NONE) {
+                terminalsTmp[state] = k;
+            } else {
+                int last = terminalsTmp[state];
+                while (duplicates[last] != NONE) {
+                    last = duplicates[last];
+                }
+                duplicates[last] = k;
+            }
+        }
+        this.transitions = Arrays.copyOf(trie, stateCount * classCount);
+        this.terminals = Arrays.copyOf(terminalsTmp, stateCount);
+        this.outputs = new int[stateCount];
+        this.dictionaryLinks = new int[stateCount];
+        computeFailureTransitions(stateCount);
+    }
+
+    /**
+     * Gets the number of keywords.
+     *
+     * @return the number of keywords
+     */
+    public int getKeywordCount() {
+        return keywordCount;
+    }
+
+    /**
+     * Scans the complete lines in the buffer from its position to its limit.
+     * <p>
+     * The buffer position is not changed.
+     * </p>
+     *
+     * @param buffer     the buffer
+     * @param endOfInput the flag for the last buffer, its trailing line without a terminator is scanned too
+     * @param consumer   the consumer of the lines with the keywords
+     * @return the number of scanned bytes (the unterminated trailing line is not scanned)
+     */
+    public int scan(ByteBuffer buffer, boolean endOfInput, LineMatchConsumer consumer) {
+
+        final int start = buffer.position();
+        final int limit = buffer.limit();
+        long[] seen = null;
+        int[] found = null;
+        int foundCount = 0;
+        int lineStart = start;
+        int state = ROOT;
+        for (int i = start; i < limit; i++) {
+            final byte value = buffer.get(i);
+            if (isLineTerminator(value)) {
+                for (int f = 0; f < foundCount; f++) {
+                    consumer.accept(found[f], lineStart, i);
+                    seen[found[f] >>> 6] = 0;
+                }
+                foundCount = 0;
+                lineStart = i + 1;
+                state = ROOT;
+                continue;
+            }
+            state = transitions[state * classCount + byteClasses[value & 0xFF]];
+            for (int out = outputs[state]; out != ROOT; out = dictionaryLinks[out]) {
+                for (int k = terminals[out]; k != NONE; k = duplicates[k]) {
+                    if (seen == null) {
+                        seen = new long[(keywordCount + 63) >>> 6];
+                        found = new int[keywordCount];
+                    }
+                    if ((seen[k >>> 6] & 1L << k) == 0) {
+                        seen[k >>> 6] |= 1L << k;
+                        found[foundCount++] = k;
+                    }
+                }
+            }
+        }
+        if (!endOfInput) {
+            return lineStart - start;
+        }
+        for (int f = 0; f < foundCount; f++) {
+            consumer.accept(found[f], lineStart, limit);
+        }
+        return limit - start;
+    }
+
+    /**
+     * Computes the byte classes. Only the bytes used in the keywords get their own class.
+     *
+     * @param foldedKeywords the case-folded keywords
+     * @return the number of byte classes
+     */
+    private int computeByteClasses(byte[][] foldedKeywords) {
+
+        int count = 1;
+        for (byte[] bytes : foldedKeywords) {
+            for (byte value : bytes) {
+                if (byteClasses[value & 0xFF] == 0) {
+                    byteClasses[value & 0xFF] = count++;
+                }
+            }
+        }
+        for (int value = 'A'; value <= 'Z'; value++) {
+            byteClasses[value] = byteClasses[value + ('a' - 'A')];
+        }
+        return count;
+    }
+
+    /**
+     * Computes the failure transitions with the breadth-first traversal of the trie.
+     * The missing trie edges are replaced with the transitions of the failure state.
+     *
+     * @param stateCount the number of states
+     */
+    private void computeFailureTransitions(int stateCount) {
+
+        final int[] failures = new int[stateCount];
+        final Deque<Integer> queue = new ArrayDeque<>();
+        queue.add(ROOT);
+        while (!queue.isEmpty()) {
+            final int state = queue.poll();
+            for (int byteClass = 0; byteClass < classCount; byteClass++) {
+                final int cell = state * classCount + byteClass;
+                final int child = transitions[cell];
+                final int failureTarget = state == ROOT ? ROOT : transitions[failures[state] * classCount + byteClass];
+                if (child == ROOT) {
+                    transitions[cell] = failureTarget;
+                    continue;
+                }
+                failures[child] = failureTarget;
+                dictionaryLinks[child] = outputs[failureTarget];
+                outputs[child] = terminals[child] != NONE ? child : dictionaryLinks[child];
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * Checks if the byte is a line terminator.
+     *
+     * @param value the byte
+     * @return true if it is a line terminator
+     */
+    static boolean isLineTerminator(byte value) {
+        return value == '\n' || value == '\r' || value == 0x0B || value == '\f';
+    }
+
+    /**
+     * Folds the ASCII upper case letter to the lower case.
+     *
+     * @param value the byte
+     * @return the folded byte
+     */
+    static byte foldCase(byte value) {
+        return value >= 'A' && value <= 'Z' ? (byte) (value + ('a' - 'A')) : value;
+    }
+}
@@ -0,0 +1,648 @@
+package kp.files.visitors;
+
+import kp.utils.Printer;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.zip.CRC32C;
+
+/**
+ * The persistent incremental index for the keyword search.
+ * <p>
+ * For every searched file the index keeps its size, its last modified time, its CRC32C checksum,
+ * the trigram posting list and the lines found for every keyword.
+ * The file is scanned again only when its attributes changed, otherwise the result is answered from the index.
+ * When the file was only touched (the same size and checksum), it is not scanned again.
+ * </p>
+ * <p>
+ * For a keyword which was not searched before, the trigram posting list tells which files can contain it.
+ * Only those files are scanned.
+ * </p>
+ * <p>
+ * The index file has the compact binary layout (big-endian). On loading only the table is read,
+ * the body of the entry is read from its offset when it is needed: the found lines only for the file
+ * with any found keyword, the trigrams only for the new keyword. The index file is read with the positional
+ * reads, not mapped, so it can be replaced after the search. It is rewritten only when anything changed,
+ * the bodies of the unchanged entries are copied as they are.
+ * </p>
+ * <pre>
+ * header : magic int, version int, table offset long
+ * bodies : for every entry:
+ *          for every found keyword: keyword index int, line count int, lines (length int, UTF-8 bytes),
+ *          sorted trigrams int[]
+ * table  : keyword count int, keywords (length int, UTF-8 bytes),
+ *          entry count int, for every entry:
+ *          path (length int, UTF-8 bytes), size long, modified long, checksum long,
+ *          found keyword count int, body offset long, found lines length int, trigram count int
+ * </pre>
+ * <p>
+ * The index is not thread-safe.
+ * </p>
+ */
+public class KeywordIndex {
+
+    private static final int MAGIC = 0x4B504958;
+    private static final int VERSION = 2;
+    private static final int HEADER_LENGTH = 2 * Integer.BYTES + Long.BYTES;
+    /**
+     * The minimal length of the entry in the table: the path length and the fixed fields.
+     */
+    private static final int MIN_TABLE_ENTRY_LENGTH = 5 * Integer.BYTES + 4 * Long.BYTES;
+    /**
+     * The trigram is made of three case-folded bytes.
+     */
+    private static final int TRIGRAM_SPACE = 1 << 24;
+    /**
+     * The size of the buffer used for the checksum.
+     */
+    private static final int CHECKSUM_BUFFER_SIZE = 1 << 16;
+
+    private final Path indexFile;
+    private final List<String> keywords;
+    private final KeywordScanner keywordScanner;
+    private final int[][] keywordTrigrams;
+    private final long[] trigramBits = new long[TRIGRAM_SPACE >>> 6];
+    private final ByteBuffer checksumBuffer = ByteBuffer.allocateDirect(CHECKSUM_BUFFER_SIZE);
+    private int[] trigrams = new int[1024];
+    private int trigramCount;
+    private List<String> indexedKeywords = List.of();
+    private boolean dirty;
+    private int scannedCount;
+    private int answeredCount;
+
+    /**
+     * The location of the entry body in the index file.
+     *
+     * @param foundCount   the number of the found keywords
+     * @param bodyOffset   the offset of the body
+     * @param resultLength the length of the found lines at the body start
+     * @param trigramCount the number of the trigrams after the found lines
+     */
+    private record Location(int foundCount, long bodyOffset, int resultLength, int trigramCount) {
+
+        /**
+         * Gets the body length.
+         *
+         * @return the body length
+         */
+        long bodyLength() {
+            return resultLength + (long) trigramCount * Integer.BYTES;
+        }
+    }
+
+    /**
+     * The entry for the file.
+     * <p>
+     * The entry loaded from the index file has the location of its body.
+     * The entry of the scanned file has its trigrams and its results instead.
+     * </p>
+     *
+     * @param size     the file size
+     * @param modified the last modified time in milliseconds
+     * @param checksum the CRC32C checksum of the file content
+     * @param location the location of the stored body or null
+     * @param trigrams the sorted trigrams of the file content or null when the body is stored
+     * @param results  the map with the keywords and the found lines or null when not read yet
+     */
+    private record Entry(long size, long modified, long checksum, Location location, int[] trigrams,
+                         Map<String, List<String>> results) {
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param indexFile the index file
+     * @param keywords  the keywords
+     */
+    public KeywordIndex(Path indexFile, List<String> keywords) {
+
+        this.indexFile = indexFile;
+        this.keywords = List.copyOf(keywords);
+        this.keywordScanner = new KeywordScanner(this.keywords);
+        this.keywordTrigrams = this.keywords.stream()
+                .map(keyword -> keyword.getBytes(StandardCharsets.UTF_8))
+                .map(bytes -> {
+                    collectTrigrams(ByteBuffer.wrap(bytes));
+                    return takeTrigrams();
+                }).toArray(int[][]::new);
+    }
+
+    /**
+     * Searches keywords in files under the base directory.
+     * <p>
+     * The index file is updated when any file was added, changed or deleted.
+     * The file which cannot be read is reported and skipped.
+     * </p>
+     *
+     * @param baseDirectory the base directory
+     * @return the result map
+     * @throws IOException if an I/O error occurs
+     */
+    public Map<Path, Map<String, List<String>>> search(Path baseDirectory) throws IOException {
+
+        scannedCount = 0;
+        answeredCount = 0;
+        indexedKeywords = List.of();
+        final Map<String, Entry> entries = new TreeMap<>();
+        Path tempFile = null;
+        try (FileChannel indexChannel = Files.exists(indexFile) ? FileChannel.open(indexFile) : null) {
+            final Map<String, Entry> previousEntries = Objects.nonNull(indexChannel) ? load(indexChannel) : Map.of();
+            dirty = !keywords.equals(indexedKeywords);
+            Files.walkFileTree(baseDirectory, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attrs) {
+                    return ParallelKeywordSearch.isExcludedDirectory(path)
+                            ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) throws IOException {
+                    if (attrs.isRegularFile() && ParallelKeywordSearch.isSearchedFile(path)) {
+                        final String key = path.toString();
+                        try {
+                            entries.put(key, updateEntry(path, attrs, previousEntries.get(key), indexChannel));
+                        } catch (UncheckedIOException e) {
+                            Printer.printf("visitFile(): skipped path[%s], IOException[%s]", path, e.getCause());
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path path, IOException exception) {
+                    Printer.printf("visitFileFailed(): path[%s], IOException[%s]", path, exception);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            if (dirty || !entries.keySet().equals(previousEntries.keySet())) {
+                tempFile = save(entries, indexChannel);
+            }
+        }
+        // the index file is closed before it is replaced
+        if (Objects.nonNull(tempFile)) {
+            Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        final Map<Path, Map<String, List<String>>> resultMap = new TreeMap<>();
+        entries.forEach((key, entry) -> resultMap.put(Path.of(key), entry.results()));
+        return resultMap;
+    }
+
+    /**
+     * Gets the number of files scanned in the last search.
+     *
+     * @return the number of scanned files
+     */
+    public int getScannedCount() {
+        return scannedCount;
+    }
+
+    /**
+     * Gets the number of files answered from the index in the last search.
+     *
+     * @return the number of answered files
+     */
+    public int getAnsweredCount() {
+        return answeredCount;
+    }
+
+    /**
+     * Updates the entry for the file.
+     * <p>
+     * The stored body is read only as far as needed. The entry with the corrupted body is scanned again.
+     * </p>
+     *
+     * @param path          the path
+     * @param attrs         the file attributes
+     * @param previousEntry the previous entry or null
+     * @param indexChannel  the channel of the index file or null
+     * @return the updated entry
+     * @throws IOException if an I/O error occurs on reading the index file
+     */
+    private Entry updateEntry(Path path, BasicFileAttributes attrs, Entry previousEntry, FileChannel indexChannel)
+            throws IOException {
+
+        final long size = attrs.size();
+        final long modified = attrs.lastModifiedTime().toMillis();
+        if (Objects.isNull(previousEntry) || previousEntry.size() != size) {
+            return scanFile(path, size, modified);
+        }
+        if (previousEntry.modified() != modified) {
+            if (previousEntry.checksum() != checksum(path)) {
+                return scanFile(path, size, modified);
+            }
+            dirty = true;
+        }
+        // with the changed keywords the stored keyword indexes are not valid, the body is written again
+        final boolean keywordsChanged = !keywords.equals(indexedKeywords);
+        final Map<String, List<String>> storedResults;
+        final int[] storedTrigrams;
+        try {
+            storedResults = readResults(previousEntry.location(), indexChannel);
+            storedTrigrams = keywordsChanged ? readTrigrams(previousEntry.location(), indexChannel) : null;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            Printer.printf("updateEntry(): corrupted index entry, path[%s]", path);
+            return scanFile(path, size, modified);
+        }
+        final Map<String, List<String>> results = new TreeMap<>();
+        for (int k = 0; k < keywords.size(); k++) {
+            final String keyword = keywords.get(k);
+            if (indexedKeywords.contains(keyword)) {
+                final List<String> lines = storedResults.get(keyword);
+                if (Objects.nonNull(lines)) {
+                    results.put(keyword, lines);
+                }
+            } else if (containsAll(storedTrigrams, keywordTrigrams[k])) {
+                // the file can contain the new keyword
+                return scanFile(path, size, modified);
+            }
+        }
+        answeredCount++;
+        return keywordsChanged
+                ? new Entry(size, modified, previousEntry.checksum(), null, storedTrigrams, results)
+                : new Entry(size, modified, previousEntry.checksum(), previousEntry.location(), null, results);
+    }
+
+    /**
+     * Scans the file and creates its entry.
+     *
+     * @param path     the path
+     * @param size     the file size
+     * @param modified the last modified time in milliseconds
+     * @return the entry
+     * @throws UncheckedIOException if an I/O error occurs
+     */
+    private Entry scanFile(Path path, long size, long modified) {
+
+        final CRC32C crc = new CRC32C();
+        final Map<String, List<String>> results = keywordScanner.scan(path, region -> {
+            crc.update(region.duplicate());
+            collectTrigrams(region);
+        });
+        scannedCount++;
+        dirty = true;
+        return new Entry(size, modified, crc.getValue(), null, takeTrigrams(), results);
+    }
+
+    /**
+     * Computes the CRC32C checksum of the file content.
+     *
+     * @param path the path
+     * @return the checksum
+     * @throws UncheckedIOException if an I/O error occurs
+     */
+    private long checksum(Path path) {
+
+        final CRC32C crc = new CRC32C();
+        try (FileChannel fileChannel = FileChannel.open(path)) {
+            while (fileChannel.read(checksumBuffer.clear()) >= 0) {
+                crc.update(checksumBuffer.flip());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(path.toString(), e);
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Collects the trigrams of the buffer from its position to its limit.
+     * The trigrams with a line terminator are skipped, because no keyword contains a line terminator.
+     *
+     * @param buffer the buffer
+     */
+    private void collectTrigrams(ByteBuffer buffer) {
+
+        int trigram = 0;
+        int length = 0;
+        for (int i = buffer.position(); i < buffer.limit(); i++) {
+            final byte value = buffer.get(i);
+            if (KeywordAutomaton.isLineTerminator(value)) {
+                length = 0;
+                continue;
+            }
+            trigram = (trigram << 8 | KeywordAutomaton.foldCase(value) & 0xFF) & (TRIGRAM_SPACE - 1);
+            if (++length < 3 || (trigramBits[trigram >>> 6] & 1L << trigram) != 0) {
+                continue;
+            }
+            trigramBits[trigram >>> 6] |= 1L << trigram;
+            if (trigramCount == trigrams.length) {
+                trigrams = Arrays.copyOf(trigrams, trigramCount * 2);
+            }
+            trigrams[trigramCount++] = trigram;
+        }
+    }
+
+    /**
+     * Takes the collected trigrams and resets the collector.
+     *
+     * @return the sorted trigrams
+     */
+    private int[] takeTrigrams() {
+
+        final int[] sorted = Arrays.copyOf(trigrams, trigramCount);
+        for (int trigram : sorted) {
+            trigramBits[trigram >>> 6] = 0;
+        }
+        trigramCount = 0;
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Checks if all the keyword trigrams are in the file trigrams.
+     *
+     * @param fileTrigrams    the sorted file trigrams
+     * @param keywordTrigrams the keyword trigrams
+     * @return true if all the keyword trigrams are found
+     */
+    private static boolean containsAll(int[] fileTrigrams, int[] keywordTrigrams) {
+        return Arrays.stream(keywordTrigrams).allMatch(trigram -> Arrays.binarySearch(fileTrigrams, trigram) >= 0);
+    }
+
+    /**
+     * Loads the table of the index file. The entry bodies are not read.
+     *
+     * @param indexChannel the channel of the index file
+     * @return the map with the paths and the entries
+     * @throws IOException if an I/O error occurs
+     */
+    private Map<String, Entry> load(FileChannel indexChannel) throws IOException {
+
+        final Map<String, Entry> entries = new TreeMap<>();
+        try {
+            final long fileSize = indexChannel.size();
+            final ByteBuffer header = readRegion(indexChannel, 0, (int) Math.min(HEADER_LENGTH, fileSize));
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                Printer.printf("load(): unknown format of index file[%s]", indexFile);
+                return Map.of();
+            }
+            final long tableOffset = header.getLong();
+            if (tableOffset < HEADER_LENGTH || tableOffset > fileSize || fileSize - tableOffset > Integer.MAX_VALUE) {
+                throw new IndexOutOfBoundsException("table offset[%d]".formatted(tableOffset));
+            }
+            final ByteBuffer table = readRegion(indexChannel, tableOffset, (int) (fileSize - tableOffset));
+            final List<String> storedKeywords = new ArrayList<>();
+            for (int k = readCount(table, Integer.BYTES); k > 0; k--) {
+                storedKeywords.add(readString(table));
+            }
+            for (int e = readCount(table, MIN_TABLE_ENTRY_LENGTH); e > 0; e--) {
+                final String key = readString(table);
+                final long size = table.getLong();
+                final long modified = table.getLong();
+                final long checksum = table.getLong();
+                final Location location = new Location(table.getInt(), table.getLong(), table.getInt(),
+                        table.getInt());
+                if (location.foundCount() < 0 || location.resultLength() < 0 || location.trigramCount() < 0
+                    || location.bodyOffset() < HEADER_LENGTH
+                    || location.bodyOffset() + location.bodyLength() > tableOffset) {
+                    throw new IndexOutOfBoundsException("body of path[%s]".formatted(key));
+                }
+                entries.put(key, new Entry(size, modified, checksum, location, null, null));
+            }
+            indexedKeywords = List.copyOf(storedKeywords);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            Printer.printf("load(): corrupted index file[%s]", indexFile);
+            return Map.of();
+        }
+        return entries;
+    }
+
+    /**
+     * Reads the found lines of the stored entry body.
+     *
+     * @param location     the location of the body
+     * @param indexChannel the channel of the index file
+     * @return the map with the keywords and the found lines
+     * @throws IOException if an I/O error occurs
+     */
+    private Map<String, List<String>> readResults(Location location, FileChannel indexChannel) throws IOException {
+
+        final Map<String, List<String>> results = new TreeMap<>();
+        if (location.foundCount() == 0) {
+            return results;
+        }
+        final ByteBuffer buffer = readRegion(indexChannel, location.bodyOffset(), location.resultLength());
+        for (int f = location.foundCount(); f > 0; f--) {
+            final String keyword = indexedKeywords.get(buffer.getInt());
+            final List<String> lines = new ArrayList<>();
+            for (int l = readCount(buffer, Integer.BYTES); l > 0; l--) {
+                lines.add(readString(buffer));
+            }
+            results.put(keyword, lines);
+        }
+        return results;
+    }
+
+    /**
+     * Reads the trigrams of the stored entry body.
+     *
+     * @param location     the location of the body
+     * @param indexChannel the channel of the index file
+     * @return the sorted trigrams
+     * @throws IOException if an I/O error occurs
+     */
+    private static int[] readTrigrams(Location location, FileChannel indexChannel) throws IOException {
+
+        final int[] storedTrigrams = new int[location.trigramCount()];
+        readRegion(indexChannel, location.bodyOffset() + location.resultLength(),
+                Math.multiplyExact(storedTrigrams.length, Integer.BYTES)).asIntBuffer().get(storedTrigrams);
+        return storedTrigrams;
+    }
+
+    /**
+     * Saves the index file into the temporary file next to it.
+     * <p>
+     * The bodies of the unchanged entries are copied from the current index file.
+     * </p>
+     *
+     * @param entries      the map with the paths and the entries
+     * @param indexChannel the channel of the current index file or null
+     * @return the temporary file to be moved over the index file
+     * @throws IOException if an I/O error occurs
+     */
+    private Path save(Map<String, Entry> entries, FileChannel indexChannel) throws IOException {
+
+        final Path directory = indexFile.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        final Path tempFile = Files.createTempFile(directory, indexFile.getFileName().toString(), ".tmp");
+        final Map<String, Location> locations = new LinkedHashMap<>();
+        try (FileChannel tempChannel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+            final DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(tempChannel)));
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            // the table offset is written at the end
+            output.writeLong(0);
+            long position = HEADER_LENGTH;
+            for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+                final Entry entry = mapEntry.getValue();
+                final Location location;
+                if (Objects.nonNull(entry.location())) {
+                    output.flush();
+                    copyRegion(indexChannel, entry.location().bodyOffset(), entry.location().bodyLength(),
+                            tempChannel);
+                    location = new Location(entry.location().foundCount(), position, entry.location().resultLength(),
+                            entry.location().trigramCount());
+                } else {
+                    final byte[] resultBytes = encodeResults(entry.results());
+                    output.write(resultBytes);
+                    for (int trigram : entry.trigrams()) {
+                        output.writeInt(trigram);
+                    }
+                    location = new Location(entry.results().size(), position, resultBytes.length,
+                            entry.trigrams().length);
+                }
+                locations.put(mapEntry.getKey(), location);
+                position += location.bodyLength();
+            }
+            final long tableOffset = position;
+            output.writeInt(keywords.size());
+            for (String keyword : keywords) {
+                writeString(output, keyword);
+            }
+            output.writeInt(entries.size());
+            for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+                final Entry entry = mapEntry.getValue();
+                final Location location = locations.get(mapEntry.getKey());
+                writeString(output, mapEntry.getKey());
+                output.writeLong(entry.size());
+                output.writeLong(entry.modified());
+                output.writeLong(entry.checksum());
+                output.writeInt(location.foundCount());
+                output.writeLong(location.bodyOffset());
+                output.writeInt(location.resultLength());
+                output.writeInt(location.trigramCount());
+            }
+            output.flush();
+            tempChannel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, tableOffset), 2 * Integer.BYTES);
+        }
+        return tempFile;
+    }
+
+    /**
+     * Encodes the found lines.
+     *
+     * @param results the map with the keywords and the found lines
+     * @return the encoded bytes
+     * @throws IOException if an I/O error occurs
+     */
+    private byte[] encodeResults(Map<String, List<String>> results) throws IOException {
+
+        final ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+        final DataOutputStream output = new DataOutputStream(byteStream);
+        for (Map.Entry<String, List<String>> result : results.entrySet()) {
+            output.writeInt(keywords.indexOf(result.getKey()));
+            output.writeInt(result.getValue().size());
+            for (String line : result.getValue()) {
+                writeString(output, line);
+            }
+        }
+        return byteStream.toByteArray();
+    }
+
+    /**
+     * Reads the region of the file into the heap buffer.
+     *
+     * @param fileChannel the file channel
+     * @param offset      the region offset
+     * @param length      the region length
+     * @return the buffer with the region
+     * @throws IOException if an I/O error occurs
+     */
+    private static ByteBuffer readRegion(FileChannel fileChannel, long offset, int length) throws IOException {
+
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (fileChannel.read(buffer, offset + buffer.position()) < 0) {
+                throw new BufferUnderflowException();
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Copies the region of the file to the end of the target channel.
+     *
+     * @param fileChannel   the file channel
+     * @param offset        the region offset
+     * @param length        the region length
+     * @param targetChannel the target channel
+     * @throws IOException if an I/O error occurs
+     */
+    private static void copyRegion(FileChannel fileChannel, long offset, long length, FileChannel targetChannel)
+            throws IOException {
+
+        long copied = 0;
+        while (copied < length) {
+            final long transferred = fileChannel.transferTo(offset + copied, length - copied, targetChannel);
+            if (transferred <= 0) {
+                throw new IOException("index file truncated at offset[%d]".formatted(offset + copied));
+            }
+            copied += transferred;
+        }
+    }
+
+    /**
+     * Reads the count and checks that the buffer can hold that many elements.
+     *
+     * @param buffer        the buffer
+     * @param elementLength the minimal length of one element
+     * @return the count
+     */
+    private static int readCount(ByteBuffer buffer, int elementLength) {
+
+        final int count = buffer.getInt();
+        if (count < 0 || (long) count * elementLength > buffer.remaining()) {
+            throw new IndexOutOfBoundsException("count[%d]".formatted(count));
+        }
+        return count;
+    }
+
+    /**
+     * Reads the string.
+     *
+     * @param buffer the buffer
+     * @return the string
+     */
+    private static String readString(ByteBuffer buffer) {
+
+        final byte[] bytes = new byte[readCount(buffer, 1)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the string.
+     *
+     * @param output the output
+     * @param value  the string
+     * @throws IOException if an I/O error occurs
+     */
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+}
\ No newline at end of file
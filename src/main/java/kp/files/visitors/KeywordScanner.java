@@ -0,0 +1,211 @@
+package kp.files.visitors;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * The keyword scanner working on the raw bytes of the file.
+ * <p>
+ * The small file is read into the reusable buffer, only the large file is memory-mapped.
+ * </p>
+ * <p>
+ * All keywords are matched in a single pass over the file with the {@link KeywordAutomaton}.
+ * The keywords are compared with ASCII case folding (like the {@link java.util.regex.Pattern#CASE_INSENSITIVE} flag).
+ * The {@link String} is created only for the line which contains a keyword.
+ * </p>
+ * <p>
+ * The lines are terminated by LF, CR, VT or FF. The empty lines are skipped.
+ * </p>
+ */
+public class KeywordScanner {
+
+    /**
+     * The size of the mapped region. The files bigger than this are mapped region by region.
+     */
+    private static final long MAPPING_WINDOW = 1L << 28;
+    /**
+     * The size of the chunk for the streaming scan.
+     */
+    private static final int CHUNK_SIZE = 1 << 20;
+    /**
+     * The files smaller than this are read into the chunk buffer instead of being mapped.
+     * The mapping is released only by the garbage collector, it is not worth its setup for the small file.
+     */
+    private static final long MAPPING_THRESHOLD = CHUNK_SIZE;
+    /**
+     * The reusable chunk buffer, one for every thread.
+     */
+    private static final ThreadLocal<ByteBuffer> CHUNK_BUFFER = ThreadLocal
+            .withInitial(() -> ByteBuffer.allocateDirect(CHUNK_SIZE));
+
+    private final List<String> keywords;
+    private final KeywordAutomaton keywordAutomaton;
+
+    /**
+     * The constructor.
+     *
+     * @param keywords the keywords
+     */
+    public KeywordScanner(List<String> keywords) {
+
+        this.keywords = List.copyOf(keywords);
+        this.keywordAutomaton = new KeywordAutomaton(this.keywords);
+    }
+
+    /**
+     * Scans the file.
+     *
+     * @param path the path
+     * @return the map with the keywords and the found lines
+     * @throws UncheckedIOException if an I/O error occurs
+     */
+    public Map<String, List<String>> scan(Path path) {
+        return scan(path, _ -> {
+        });
+    }
+
+    /**
+     * Scans the file and passes every scanned region to the region consumer.
+     * <p>
+     * The regions are consecutive and together they cover the whole file exactly once.
+     * </p>
+     *
+     * @param path           the path
+     * @param regionConsumer the consumer of the scanned regions
+     * @return the map with the keywords and the found lines
+     * @throws UncheckedIOException if an I/O error occurs
+     */
+    Map<String, List<String>> scan(Path path, Consumer<ByteBuffer> regionConsumer) {
+
+        final Map<String, List<String>> treeMap = new TreeMap<>();
+        try (FileChannel fileChannel = FileChannel.open(path)) {
+            final long size = fileChannel.size();
+            if (size < MAPPING_THRESHOLD) {
+                final ByteBuffer buffer = CHUNK_BUFFER.get().clear().limit((int) size);
+                int read = 0;
+                while (buffer.hasRemaining() && read >= 0) {
+                    read = fileChannel.read(buffer);
+                }
+                buffer.flip();
+                final int consumed = scanLines(buffer, true, treeMap);
+                regionConsumer.accept(buffer.slice(0, consumed));
+                return treeMap;
+            }
+            long position = 0;
+            while (position < size) {
+                final long length = Math.min(MAPPING_WINDOW, size - position);
+                final MappedByteBuffer buffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                final boolean endOfInput = position + length == size;
+                int consumed = scanLines(buffer, endOfInput, treeMap);
+                if (consumed == 0) {
+                    // the line is longer than the mapped region
+                    consumed = scanLines(buffer, true, treeMap);
+                }
+                regionConsumer.accept(buffer.slice(0, consumed));
+                position += consumed;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(path.toString(), e);
+        }
+        return treeMap;
+    }
+
+    /**
+     * Scans the file in chunks with the bounded memory.
+     * <p>
+     * The file is read into the reusable direct buffer of the fixed size, no matter how large the file is.
+     * The unterminated line at the end of the chunk is moved to the buffer start and completed with the next read.
+     * The line longer than the chunk is scanned in chunk-sized parts.
+     * </p>
+     *
+     * @param path the path
+     * @return the map with the keywords and the found lines
+     * @throws UncheckedIOException if an I/O error occurs
+     */
+    public Map<String, List<String>> scanStreaming(Path path) {
+
+        final Map<String, List<String>> treeMap = new TreeMap<>();
+        final ByteBuffer buffer = CHUNK_BUFFER.get().clear();
+        try (FileChannel fileChannel = FileChannel.open(path)) {
+            boolean endOfInput = false;
+            while (!endOfInput) {
+                endOfInput = fileChannel.read(buffer) < 0;
+                buffer.flip();
+                int consumed = scanLines(buffer, endOfInput, treeMap);
+                if (consumed == 0 && buffer.limit() == buffer.capacity()) {
+                    // the line is longer than the chunk
+                    consumed = scanLines(buffer, true, treeMap);
+                }
+                buffer.position(consumed).compact();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(path.toString(), e);
+        }
+        return treeMap;
+    }
+
+    /**
+     * Scans the complete lines in the buffer from its position to its limit.
+     * <p>
+     * The buffer position is not changed.
+     * </p>
+     *
+     * @param buffer     the buffer
+     * @param endOfInput the flag for the last buffer, its trailing line without a terminator is scanned too
+     * @param treeMap    the map with the keywords and the found lines
+     * @return the number of scanned bytes (the unterminated trailing line is not scanned)
+     */
+    int scanLines(ByteBuffer buffer, boolean endOfInput, Map<String, List<String>> treeMap) {
+
+        final LineCollector lineCollector = new LineCollector(buffer, treeMap);
+        return keywordAutomaton.scan(buffer, endOfInput, lineCollector);
+    }
+
+    /**
+     * The collector of the lines found by the automaton.
+     * The line is decoded only once, even if it contains many keywords.
+     */
+    private class LineCollector implements KeywordAutomaton.LineMatchConsumer {
+
+        private final ByteBuffer buffer;
+        private final Map<String, List<String>> treeMap;
+        private int lastLineStart = -1;
+        private String lastLine;
+
+        /**
+         * The constructor.
+         *
+         * @param buffer  the buffer
+         * @param treeMap the map with the keywords and the found lines
+         */
+        LineCollector(ByteBuffer buffer, Map<String, List<String>> treeMap) {
+            this.buffer = buffer;
+            this.treeMap = treeMap;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void accept(int keywordIndex, int lineStart, int lineEnd) {
+
+            if (lineStart != lastLineStart) {
+                final byte[] bytes = new byte[lineEnd - lineStart];
+                buffer.get(lineStart, bytes);
+                lastLine = new String(bytes, StandardCharsets.UTF_8);
+                lastLineStart = lineStart;
+            }
+            treeMap.computeIfAbsent(keywords.get(keywordIndex), _ -> new ArrayList<>()).add(lastLine);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package kp.files.visitors;
+
+import kp.utils.Printer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The live keyword search driven by the {@link WatchService}.
+ * <p>
+ * After the initial walk, every directory of the tree is registered with the watch service.
+ * The create, modify and delete events are debounced and coalesced into batches:
+ * the batch is closed when no event came for the debounce duration (or after ten debounce durations).
+ * Only the affected files are scanned again with the {@link SimpleFileVisitorExtension#visitFile} logic.
+ * The file which cannot be scanned (locked, unreadable) is reported and dropped from the result map,
+ * the watcher goes on.
+ * </p>
+ * <p>
+ * The result map is concurrent and it is updated in place, so it can be read while the watcher runs.
+ * </p>
+ */
+public class KeywordWatcher implements AutoCloseable {
+
+    private static final int MAX_DEBOUNCE_ROUNDS = 10;
+
+    private final Path baseDirectory;
+    private final Duration debounce;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+    private final Map<Path, Map<String, List<String>>> resultMap = new ConcurrentSkipListMap<>();
+    private final AtomicLong batchCount = new AtomicLong();
+    private Thread watcherThread;
+
+    /**
+     * The constructor.
+     *
+     * @param baseDirectory the base directory
+     * @param debounce      the debounce duration
+     * @throws IOException if an I/O error occurs
+     */
+    public KeywordWatcher(Path baseDirectory, Duration debounce) throws IOException {
+
+        this.baseDirectory = baseDirectory;
+        this.debounce = debounce;
+        this.watchService = baseDirectory.getFileSystem().newWatchService();
+    }
+
+    /**
+     * Walks the tree, registers its directories and starts the watcher thread.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void start() throws IOException {
+
+        resultMap.putAll(walkAndRegister(baseDirectory));
+        watcherThread = Thread.ofPlatform().name("keyword-watcher").daemon().start(this::processEvents);
+    }
+
+    /**
+     * Gets the live result map.
+     *
+     * @return the unmodifiable view of the result map
+     */
+    public Map<Path, Map<String, List<String>>> getResultMap() {
+        return Collections.unmodifiableMap(resultMap);
+    }
+
+    /**
+     * Gets the number of processed batches.
+     *
+     * @return the number of batches
+     */
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * Closes the watch service and waits for the watcher thread.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+
+        watchService.close();
+        if (Objects.isNull(watcherThread)) {
+            return;
+        }
+        try {
+            watcherThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();// Preserve interrupt status
+        }
+    }
+
+    /**
+     * Processes the watch events until the watch service is closed.
+     */
+    private void processEvents() {
+
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                final Map<Path, WatchEvent.Kind<?>> changes = new LinkedHashMap<>();
+                boolean overflow = collectEvents(watchService.take(), changes);
+                final Instant deadline = Instant.now().plus(debounce.multipliedBy(MAX_DEBOUNCE_ROUNDS));
+                WatchKey watchKey;
+                while (Instant.now().isBefore(deadline)
+                       && Objects.nonNull(watchKey = watchService.poll(debounce.toMillis(), TimeUnit.MILLISECONDS))) {
+                    overflow |= collectEvents(watchKey, changes);
+                }
+                if (overflow) {
+                    rescanAll();
+                } else {
+                    applyChanges(changes);
+                }
+                Printer.printf("processEvents(): batch[%d], changed paths[%d], overflow[%b]",
+                        batchCount.incrementAndGet(), changes.size(), overflow);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();// Preserve interrupt status
+        } catch (ClosedWatchServiceException e) {
+            Printer.print("processEvents(): watch service closed");
+        }
+    }
+
+    /**
+     * Collects the events of the watch key. For every path only its last event kind is kept.
+     *
+     * @param watchKey the watch key
+     * @param changes  the map with the changed paths and their event kinds
+     * @return true if some events were lost
+     */
+    private boolean collectEvents(WatchKey watchKey, Map<Path, WatchEvent.Kind<?>> changes) {
+
+        boolean overflow = false;
+        final Path directory = watchedDirectories.get(watchKey);
+        for (WatchEvent<?> event : watchKey.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || Objects.isNull(directory)) {
+                overflow = true;
+                continue;
+            }
+            final Path path = directory.resolve((Path) event.context());
+            changes.remove(path);
+            changes.put(path, event.kind());
+        }
+        if (!watchKey.reset()) {
+            watchedDirectories.remove(watchKey);
+        }
+        return overflow;
+    }
+
+    /**
+     * Applies the changes. Only the affected files are scanned again.
+     *
+     * @param changes the map with the changed paths and their event kinds
+     */
+    private void applyChanges(Map<Path, WatchEvent.Kind<?>> changes) {
+
+        final SimpleFileVisitorExtension visitor = new SkippingVisitor();
+        for (Map.Entry<Path, WatchEvent.Kind<?>> change : changes.entrySet()) {
+            final Path path = change.getKey();
+            if (change.getValue() == StandardWatchEventKinds.ENTRY_DELETE || !Files.exists(path)) {
+                resultMap.keySet().removeIf(key -> key.startsWith(path));
+            } else if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                if (!watchedDirectories.containsValue(path)) {
+                    try {
+                        resultMap.putAll(walkAndRegister(path));
+                    } catch (IOException e) {
+                        Printer.printf("applyChanges(): IOException[%s], path[%s]", e.getMessage(), path);
+                    }
+                }
+            } else {
+                resultMap.remove(path);
+                visitor.visitFile(path, null);
+            }
+        }
+        resultMap.putAll(visitor.getResultMap());
+    }
+
+    /**
+     * Walks the whole tree again, after the events were lost.
+     */
+    private void rescanAll() {
+
+        try {
+            final Map<Path, Map<String, List<String>>> freshMap = walkAndRegister(baseDirectory);
+            resultMap.keySet().retainAll(freshMap.keySet());
+            resultMap.putAll(freshMap);
+        } catch (IOException e) {
+            Printer.printf("rescanAll(): IOException[%s], path[%s]", e.getMessage(), baseDirectory);
+        }
+    }
+
+    /**
+     * Walks the tree, registers its directories and scans its files.
+     *
+     * @param directory the top directory of the tree
+     * @return the result map of the tree
+     * @throws IOException if an I/O error occurs
+     */
+    private Map<Path, Map<String, List<String>>> walkAndRegister(Path directory) throws IOException {
+
+        final SimpleFileVisitorExtension visitor = new SkippingVisitor() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attrs) {
+                final FileVisitResult result = super.preVisitDirectory(path, attrs);
+                if (result == FileVisitResult.CONTINUE) {
+                    register(path);
+                }
+                return result;
+            }
+        };
+        try {
+            Files.walkFileTree(directory, visitor);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return visitor.getResultMap();
+    }
+
+    /**
+     * Registers the directory with the watch service.
+     *
+     * @param directory the directory
+     */
+    private void register(Path directory) {
+
+        try {
+            final WatchKey watchKey = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            watchedDirectories.put(watchKey, directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(directory.toString(), e);
+        }
+    }
+
+    /**
+     * The visitor which skips the file that cannot be scanned, instead of terminating the application.
+     */
+    private static class SkippingVisitor extends SimpleFileVisitorExtension {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void scanFailed(Path path, IOException exception) {
+            Printer.printf("scanFailed(): skipped path[%s], IOException[%s]", path, exception);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package kp.files.visitors;
+
+import kp.utils.Printer;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The parallel keyword search.
+ * <p>
+ * The directories are walked and the files are scanned in parallel on the bounded work-stealing pool.
+ * Every directory is processed by its own {@link RecursiveAction}, the subdirectory actions are forked.
+ * The files are read with the {@link KeywordScanner}.
+ * The file which cannot be read is reported and skipped, the search goes on.
+ * The links and the other non-regular files are not searched.
+ * </p>
+ * <p>
+ * The same directories and files are excluded as in the {@link SimpleFileVisitorExtension}.
+ * </p>
+ */
+public class ParallelKeywordSearch {
+
+    private static final boolean VERBOSE = false;
+
+    private final KeywordScanner keywordScanner = new KeywordScanner(SimpleFileVisitorExtension.KEYWORDS);
+    private final Map<Path, Map<String, List<String>>> resultMap = new ConcurrentSkipListMap<>();
+
+    /**
+     * Searches keywords in files under the base directory.
+     *
+     * @param baseDirectory the base directory
+     * @param parallelism   the parallelism level of the pool
+     * @return the result map
+     * @throws IOException if an I/O error occurs
+     */
+    public Map<Path, Map<String, List<String>>> search(Path baseDirectory, int parallelism) throws IOException {
+
+        try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+            pool.invoke(new DirectoryAction(baseDirectory));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return resultMap;
+    }
+
+    /**
+     * The action which processes one directory.
+     */
+    private class DirectoryAction extends RecursiveAction {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+        private final transient Path directory;
+
+        /**
+         * The constructor.
+         *
+         * @param directory the directory
+         */
+        DirectoryAction(Path directory) {
+            this.directory = directory;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void compute() {
+
+            final List<DirectoryAction> subActions = new ArrayList<>();
+            try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(directory)) {
+                for (Path path : directoryStream) {
+                    if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                        if (isExcludedDirectory(path)) {
+                            Printer.printf("compute(): excluded directory, path[%s]", path);
+                            continue;
+                        }
+                        final DirectoryAction subAction = new DirectoryAction(path);
+                        subAction.fork();
+                        subActions.add(subAction);
+                    } else if (Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS) && isSearchedFile(path)) {
+                        scanFile(path);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(directory.toString(), e);
+            }
+            subActions.forEach(ForkJoinTask::join);
+        }
+
+        /**
+         * Scans the file, the file which cannot be read is skipped.
+         *
+         * @param path the path
+         */
+        private void scanFile(Path path) {
+
+            try {
+                resultMap.put(path, keywordScanner.scan(path));
+            } catch (UncheckedIOException e) {
+                Printer.printf("scanFile(): skipped path[%s], IOException[%s]", path, e.getCause());
+                return;
+            }
+            if (VERBOSE) {
+                Printer.printf("scanFile(): processed path[%s]", path);
+            }
+        }
+    }
+
+    /**
+     * Checks if the directory is excluded.
+     *
+     * @param path the path
+     * @return true if the directory is excluded
+     */
+    static boolean isExcludedDirectory(Path path) {
+        return Objects.isNull(path.getFileName())
+               || SimpleFileVisitorExtension.EXCLUDED_DIRECTORIES.contains(path.getFileName().toString());
+    }
+
+    /**
+     * Checks if the file is searched.
+     *
+     * @param path the path
+     * @return true if the file is searched
+     */
+    static boolean isSearchedFile(Path path) {
+
+        final Path fileName = path.getFileName();
+        if (Objects.isNull(fileName) || fileName.toString().lastIndexOf('.') == -1) {
+            Printer.printf("isSearchedFile(): null file or file without extension, path[%s]", path);
+            return false;
+        }
+        if (!Files.isReadable(path)) {
+            Printer.printf("isSearchedFile(): unreadable path[%s]", path);
+            return false;
+        }
+        final String extension = fileName.toString().substring(fileName.toString().lastIndexOf('.') + 1);
+        if (SimpleFileVisitorExtension.EXCLUDED_FILES.contains(extension)) {
+            Printer.printf("isSearchedFile(): excluded file with extension[%s], path[%s]", extension, path);
+            return false;
+        }
+        return true;
+    }
+}
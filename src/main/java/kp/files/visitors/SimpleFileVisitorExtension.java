@@ -3,17 +3,16 @@ package kp.files.visitors;
 import kp.utils.Printer;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
-import java.util.function.Consumer;
 import java.util.function.Function;
-import java.util.regex.Pattern;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
 
 /**
  * The extension of the {@link SimpleFileVisitor}.
@@ -24,13 +23,39 @@ public class SimpleFileVisitorExtension extends SimpleFileVisitor<Path> {
      * The excluded directories
      */
     static final List<String> EXCLUDED_DIRECTORIES = List.of("resources");
-    private static final List<String> KEYWORDS = List.of("class VisitorWrapper", "cryptographic nonce");
-    private static final List<String> EXCLUDED_FILES = List.of("html");
-    private static final List<Pattern> PATTERNS = KEYWORDS.stream()
-            .map(key -> Pattern.compile(".*".concat(key).concat(".*"), Pattern.CASE_INSENSITIVE)).toList();
+    /**
+     * The keywords
+     */
+    static final List<String> KEYWORDS = List.of("class VisitorWrapper", "cryptographic nonce");
+    /**
+     * The excluded file extensions
+     */
+    static final List<String> EXCLUDED_FILES = List.of("html");
+    private static final KeywordScanner KEYWORD_SCANNER = new KeywordScanner(KEYWORDS);
     private static final boolean VERBOSE = false;
+    /**
+     * The default size threshold, the bigger files are scanned in chunks.
+     */
+    private static final long DEFAULT_STREAMING_THRESHOLD = 64L << 20;
 
     private final Map<Path, Map<String, List<String>>> resultMap = new TreeMap<>();
+    private final long streamingThreshold;
+
+    /**
+     * The constructor with the default streaming threshold.
+     */
+    public SimpleFileVisitorExtension() {
+        this(DEFAULT_STREAMING_THRESHOLD);
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param streamingThreshold the size threshold, the bigger files are scanned in chunks with the bounded memory
+     */
+    public SimpleFileVisitorExtension(long streamingThreshold) {
+        this.streamingThreshold = streamingThreshold;
+    }
 
     /**
      * Gets the result map
@@ -86,7 +111,7 @@ public class SimpleFileVisitorExtension extends SimpleFileVisitor<Path> {
             Printer.printf("visitFile(): excluded file with extension[%s], path[%s]", extension, path);
             return FileVisitResult.CONTINUE;
         }
-        createMapForPath(path);
+        createMapForPath(path, attrs);
         if (VERBOSE) {
             Printer.printf("visitFile(): processed path[%s]", path);
         }
@@ -104,28 +129,52 @@ public class SimpleFileVisitorExtension extends SimpleFileVisitor<Path> {
 
     /**
      * Creates map for path.
+     * <p>
+     * All keywords are found in one scan over the file bytes with the {@link KeywordAutomaton}.
+     * The file bigger than the streaming threshold is not loaded whole, it is scanned in chunks.
+     * </p>
      *
-     * @param path the path
+     * @param path  the path
+     * @param attrs the file attributes or null
      */
-    private void createMapForPath(Path path) {
-
-        final Map<String, List<String>> treeMap = new TreeMap<>();
-        final Consumer<String> action = line -> IntStream.range(0, KEYWORDS.size()).boxed()
-                .filter(i -> PATTERNS.get(i).matcher(line).find())
-                .map(KEYWORDS::get)
-                .map(keyword -> {
-                    treeMap.putIfAbsent(keyword, new ArrayList<>());
-                    return keyword;
-                })
-                .forEach(keyword -> treeMap.get(keyword).add(line));
+    private void createMapForPath(Path path, BasicFileAttributes attrs) {
+
+        Map<String, List<String>> treeMap = new TreeMap<>();
         try {
-            final String content = Files.readString(path);
-            Stream.of(content.split("\\R+")).forEach(action);
+            final long size = Objects.nonNull(attrs) ? attrs.size() : Files.size(path);
+            if (size > streamingThreshold) {
+                treeMap = KEYWORD_SCANNER.scanStreaming(path);
+            } else {
+                final byte[] content = Files.readAllBytes(path);
+                KEYWORD_SCANNER.scanLines(ByteBuffer.wrap(content), true, treeMap);
+            }
+        } catch (NoSuchFileException ex) {
+            // the file was deleted after it was visited (possible in the watched tree)
+            Printer.printf("createMapForPath(): file deleted, path[%s]", path);
+            return;
         } catch (IOException ex) {
-            Printer.printf("createMapForPath(): IOException[%s], path[%s]", ex.getMessage(), path);
-            System.exit(1);
+            scanFailed(path, ex);
+            return;
+        } catch (UncheckedIOException ex) {
+            scanFailed(path, ex.getCause());
+            return;
         }
         resultMap.put(path, treeMap);
     }
 
+    /**
+     * Handles the file which could not be scanned, the file is not put in the result map.
+     * <p>
+     * It terminates the application. The long-running visitor overrides it to skip the file.
+     * </p>
+     *
+     * @param path      the path
+     * @param exception the exception
+     */
+    protected void scanFailed(Path path, IOException exception) {
+
+        Printer.printf("createMapForPath(): IOException[%s], path[%s]", exception.getMessage(), path);
+        System.exit(1);
+    }
+
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package kp.files.visitors;
 
+import kp.files.ConstantsForFiles;
 import kp.utils.Printer;
+import kp.utils.Utils;
 
 import java.io.IOException;
 import java.nio.file.*;
@@ -19,6 +21,10 @@ public class VisitorWrapper {
 
     private static final boolean STANDARD_SOLUTION_FLAG = true;
     private static final Path BASE_DIRECTORY = Paths.get("src");
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+    private static final Path INDEX_FILE = Paths.get("target", "keywords.idx");
+    private static final Duration DEBOUNCE = Duration.ofMillis(200);
+    private static final Duration BATCH_TIMEOUT = Duration.ofSeconds(15);
 
     /**
      * Searches keywords in files.
@@ -45,6 +51,125 @@ public class VisitorWrapper {
         Printer.printHor();
     }
 
+    /**
+     * Searches keywords in files in parallel.
+     * <p>
+     * The files are read through the memory-mapped buffers on the work-stealing pool.
+     * </p>
+     */
+    public void searchKeywordsInFilesInParallel() {
+
+        final Instant start = Instant.now();
+        Map<Path, Map<String, List<String>>> resultMap = Map.of();
+        try {
+            resultMap = new ParallelKeywordSearch().search(BASE_DIRECTORY, PARALLELISM);
+        } catch (IOException e) {
+            Printer.printIOException(e);
+            System.exit(1);
+        }
+        Printer.printf("Parallel search, parallelism[%d]", PARALLELISM);
+        showResults(start, resultMap);
+        Printer.printHor();
+    }
+
+    /**
+     * Searches keywords in files with the persistent index.
+     * <p>
+     * Only the files changed since the previous search are scanned, the rest is answered from the index.
+     * </p>
+     */
+    public void searchKeywordsInFilesWithIndex() {
+
+        final Instant start = Instant.now();
+        final KeywordIndex keywordIndex = new KeywordIndex(INDEX_FILE, SimpleFileVisitorExtension.KEYWORDS);
+        Map<Path, Map<String, List<String>>> resultMap = Map.of();
+        try {
+            resultMap = keywordIndex.search(BASE_DIRECTORY);
+        } catch (IOException e) {
+            Printer.printIOException(e);
+            System.exit(1);
+        }
+        Printer.printf("Index search, index file[%s], files: scanned[%d], answered from index[%d]", INDEX_FILE,
+                keywordIndex.getScannedCount(), keywordIndex.getAnsweredCount());
+        showResults(start, resultMap);
+        Printer.printHor();
+    }
+
+    /**
+     * Watches keywords in files.
+     * <p>
+     * The live results are updated by the {@link KeywordWatcher} from the file system events.
+     * The watched tree is the temporary directory. The temporary file with a keyword is created
+     * in the watched tree, then it is deleted.
+     * </p>
+     */
+    public void watchKeywordsInFiles() {
+
+        Path watchedDirectory = null;
+        Path tempFile = null;
+        try {
+            watchedDirectory = Files.createTempDirectory(
+                    Path.of(System.getProperty(ConstantsForFiles.TMP_DIR_KEY)), "watched");
+        } catch (IOException e) {
+            Printer.printIOException(e);
+            System.exit(1);
+        }
+        try (KeywordWatcher keywordWatcher = new KeywordWatcher(watchedDirectory, DEBOUNCE)) {
+            keywordWatcher.start();
+            Printer.printf("Watching directory[%s], number of files[%d]", watchedDirectory,
+                    keywordWatcher.getResultMap().size());
+
+            tempFile = Files.createTempFile(watchedDirectory, "watched", ".txt");
+            Files.writeString(tempFile, "the cryptographic nonce");
+            awaitNextBatch(keywordWatcher);
+            Printer.printf("Created file[%s], live result for file%s", tempFile,
+                    keywordWatcher.getResultMap().get(tempFile));
+
+            Files.delete(tempFile);
+            awaitNextBatch(keywordWatcher);
+            Printer.printf("Deleted file[%s], file in live result[%b]", tempFile,
+                    keywordWatcher.getResultMap().containsKey(tempFile));
+        } catch (IOException e) {
+            Printer.printIOException(e);
+            System.exit(1);
+        } finally {
+            deleteIfExists(tempFile);
+            deleteIfExists(watchedDirectory);
+        }
+        Printer.printHor();
+    }
+
+    /**
+     * Awaits the next batch of the watcher.
+     *
+     * @param keywordWatcher the keyword watcher
+     */
+    private void awaitNextBatch(KeywordWatcher keywordWatcher) {
+
+        final long batchCount = keywordWatcher.getBatchCount();
+        final Instant deadline = Instant.now().plus(BATCH_TIMEOUT);
+        while (keywordWatcher.getBatchCount() == batchCount && Instant.now().isBefore(deadline)) {
+            Utils.sleepMillis(50);
+        }
+    }
+
+    /**
+     * Deletes the file if it exists.
+     *
+     * @param path the path or null
+     */
+    private void deleteIfExists(Path path) {
+
+        if (Objects.isNull(path)) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            Printer.printIOException(e);
+        }
+    }
+
     /**
      * Shows results.
      *
@@ -0,0 +1,111 @@
+package kp.files.xml;
+
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.xpath.XPathEvaluationResult;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The pools for the cases which still need the DOM.
+ * <p>
+ * The {@link DocumentBuilder} and the {@link XPathExpression} are not thread-safe.
+ * The threads borrow them from the pools and return them after use,
+ * so the factories are not looked up and the expressions are not compiled on every call.
+ * The pools grow to the number of the concurrent users.
+ * </p>
+ */
+public final class DomPools {
+
+    private static final DocumentBuilderFactory BUILDER_FACTORY = createBuilderFactory();
+    private static final XPathFactory XPATH_FACTORY = XPathFactory.newInstance();
+    private static final Queue<DocumentBuilder> BUILDERS = new ConcurrentLinkedQueue<>();
+    private static final Map<String, Queue<XPathExpression>> EXPRESSIONS = new ConcurrentHashMap<>();
+
+    private DomPools() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Parses the XML file with the pooled document builder.
+     *
+     * @param path the XML file
+     * @return the document
+     * @throws ParserConfigurationException if the document builder cannot be created
+     * @throws SAXException                 if the XML is not well-formed
+     * @throws IOException                  if an I/O error occurs
+     */
+    public static Document parse(Path path) throws ParserConfigurationException, SAXException, IOException {
+
+        DocumentBuilder builder = BUILDERS.poll();
+        if (Objects.isNull(builder)) {
+            synchronized (BUILDER_FACTORY) {
+                // the factory is not thread-safe
+                builder = BUILDER_FACTORY.newDocumentBuilder();
+            }
+        }
+        try {
+            return builder.parse(path.toFile());
+        } finally {
+            builder.reset();
+            BUILDERS.offer(builder);
+        }
+    }
+
+    /**
+     * Evaluates the XPath expression with the pooled compiled expression.
+     *
+     * @param expression the expression
+     * @param item       the context item, e.g. the document
+     * @param type       the result type, one of the {@link XPathEvaluationResult.XPathResultType} types
+     * @param <T>        the result type
+     * @return the result
+     * @throws XPathExpressionException if the expression cannot be compiled or evaluated
+     */
+    public static <T> T evaluate(String expression, Object item, Class<T> type) throws XPathExpressionException {
+
+        final Queue<XPathExpression> queue = EXPRESSIONS.computeIfAbsent(expression,
+                _ -> new ConcurrentLinkedQueue<>());
+        XPathExpression xPathExpression = queue.poll();
+        if (Objects.isNull(xPathExpression)) {
+            synchronized (XPATH_FACTORY) {
+                // the factory is not thread-safe
+                xPathExpression = XPATH_FACTORY.newXPath().compile(expression);
+            }
+        }
+        try {
+            return xPathExpression.evaluateExpression(item, type);
+        } finally {
+            queue.offer(xPathExpression);
+        }
+    }
+
+    /**
+     * Creates the document builder factory. The external entities are not supported.
+     *
+     * @return the document builder factory
+     */
+    private static DocumentBuilderFactory createBuilderFactory() {
+
+        final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        try {
+            factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+            factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException(e);
+        }
+        return factory;
+    }
+}
@@ -0,0 +1,269 @@
+package kp.files.xml;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * The restricted XPath expression evaluated on the StAX stream, without building the DOM.
+ * <p>
+ * Only the absolute location path with the child steps is supported:
+ * </p>
+ * <ul>
+ * <li>'/first/second/third/fourth/text()' - the text nodes of the element</li>
+ * <li>'/first/second/third/fourth' - the string value of the element</li>
+ * <li>'/first/second/@name' - the attribute value</li>
+ * <li>'/first/*&#47;third' - any element name in the step</li>
+ * </ul>
+ * <p>
+ * The names are matched on the local names. The memory does not grow with the document size:
+ * the reader keeps only the current depth and the number of matched steps.
+ * Only the string value of the selected element is buffered.
+ * </p>
+ * <p>
+ * The compiled expressions are immutable and cached, they can be shared between threads.
+ * </p>
+ */
+public final class StreamingXPath {
+
+    private static final Pattern NAME_PATTERN = Pattern.compile("\\*|[\\p{L}_][\\p{L}\\p{N}_.-]*");
+    private static final String TEXT_STEP = "text()";
+    private static final String ANY_NAME = "*";
+    private static final Map<String, StreamingXPath> CACHE = new ConcurrentHashMap<>();
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    private final String expression;
+    private final String[] steps;
+    private final Selection selection;
+    private final String attributeName;
+
+    /**
+     * The selected item of the matched element.
+     */
+    private enum Selection {
+        TEXT, STRING_VALUE, ATTRIBUTE
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param expression    the expression
+     * @param steps         the element steps
+     * @param selection     the selection
+     * @param attributeName the attribute name
+     */
+    private StreamingXPath(String expression, String[] steps, Selection selection, String attributeName) {
+
+        this.expression = expression;
+        this.steps = steps;
+        this.selection = selection;
+        this.attributeName = attributeName;
+    }
+
+    /**
+     * Compiles the expression or gets it from the cache.
+     *
+     * @param expression the expression
+     * @return the compiled expression
+     * @throws IllegalArgumentException if the expression is not supported
+     */
+    public static StreamingXPath compile(String expression) {
+        return CACHE.computeIfAbsent(expression, StreamingXPath::parse);
+    }
+
+    /**
+     * Evaluates the expression and passes every selected value to the consumer.
+     *
+     * @param path     the XML file
+     * @param consumer the consumer of the values
+     * @throws IOException        if an I/O error occurs
+     * @throws XMLStreamException if the XML is not well-formed
+     */
+    public void evaluate(Path path, Consumer<String> consumer) throws IOException, XMLStreamException {
+
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            evaluate(inputStream, value -> {
+                consumer.accept(value);
+                return true;
+            });
+        }
+    }
+
+    /**
+     * Evaluates the expression and gets the first selected value.
+     * The reading stops at the first value.
+     *
+     * @param path the XML file
+     * @return the first value
+     * @throws IOException        if an I/O error occurs
+     * @throws XMLStreamException if the XML is not well-formed
+     */
+    public Optional<String> evaluateFirst(Path path) throws IOException, XMLStreamException {
+
+        final String[] first = new String[1];
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            evaluate(inputStream, value -> {
+                first[0] = value;
+                return false;
+            });
+        }
+        return Optional.ofNullable(first[0]);
+    }
+
+    /**
+     * Gets the expression.
+     *
+     * @return the expression
+     */
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * Evaluates the expression on the stream.
+     *
+     * @param inputStream the input stream
+     * @param continuation the consumer of the values, it returns false to stop the reading
+     * @throws XMLStreamException if the XML is not well-formed
+     */
+    private void evaluate(InputStream inputStream, Predicate<String> continuation) throws XMLStreamException {
+
+        final XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(inputStream);
+        try {
+            int depth = 0;
+            int matched = 0;
+            // the string value of the selected element, only for the string value selection
+            StringBuilder stringValue = null;
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT -> {
+                        depth++;
+                        if (matched == depth - 1 && matched < steps.length && matches(steps[matched], reader)) {
+                            matched++;
+                            if (matched == steps.length) {
+                                if (selection == Selection.ATTRIBUTE) {
+                                    final String value = reader.getAttributeValue(null, attributeName);
+                                    if (Objects.nonNull(value) && !continuation.test(value)) {
+                                        return;
+                                    }
+                                } else if (selection == Selection.STRING_VALUE) {
+                                    stringValue = new StringBuilder();
+                                }
+                            }
+                        }
+                    }
+                    case XMLStreamConstants.END_ELEMENT -> {
+                        if (matched == depth) {
+                            if (matched == steps.length && Objects.nonNull(stringValue)) {
+                                final String value = stringValue.toString();
+                                stringValue = null;
+                                if (!continuation.test(value)) {
+                                    return;
+                                }
+                            }
+                            matched--;
+                        }
+                        depth--;
+                    }
+                    case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE -> {
+                        if (matched != steps.length || depth < matched) {
+                            continue;
+                        }
+                        if (Objects.nonNull(stringValue)) {
+                            stringValue.append(reader.getText());
+                        } else if (selection == Selection.TEXT && depth == matched
+                                   && !continuation.test(reader.getText())) {
+                            return;
+                        }
+                    }
+                    default -> {
+                        // other events are not selected
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Parses the expression.
+     *
+     * @param expression the expression
+     * @return the compiled expression
+     * @throws IllegalArgumentException if the expression is not supported
+     */
+    private static StreamingXPath parse(String expression) {
+
+        if (!expression.startsWith("/") || expression.endsWith("/") || expression.contains("//")) {
+            throw new IllegalArgumentException(
+                    "only the absolute path with the child steps is supported, expression[%s]".formatted(expression));
+        }
+        final List<String> parts = Arrays.asList(expression.substring(1).split("/"));
+        final String last = parts.getLast();
+        Selection selection = Selection.STRING_VALUE;
+        String attributeName = null;
+        List<String> elementParts = parts;
+        if (TEXT_STEP.equals(last)) {
+            selection = Selection.TEXT;
+            elementParts = parts.subList(0, parts.size() - 1);
+        } else if (last.startsWith("@")) {
+            selection = Selection.ATTRIBUTE;
+            attributeName = last.substring(1);
+            elementParts = parts.subList(0, parts.size() - 1);
+            if (!NAME_PATTERN.matcher(attributeName).matches() || ANY_NAME.equals(attributeName)) {
+                throw new IllegalArgumentException("unsupported attribute step[%s]".formatted(last));
+            }
+        }
+        if (elementParts.isEmpty()) {
+            throw new IllegalArgumentException("no element step, expression[%s]".formatted(expression));
+        }
+        for (String step : elementParts) {
+            if (!NAME_PATTERN.matcher(step).matches()) {
+                throw new IllegalArgumentException("unsupported step[%s], expression[%s]".formatted(step, expression));
+            }
+        }
+        return new StreamingXPath(expression, elementParts.toArray(String[]::new), selection, attributeName);
+    }
+
+    /**
+     * Checks whether the step matches the current element.
+     *
+     * @param step   the step
+     * @param reader the reader at the start element
+     * @return true if matches
+     */
+    private static boolean matches(String step, XMLStreamReader reader) {
+        return ANY_NAME.equals(step) || step.equals(reader.getLocalName());
+    }
+
+    /**
+     * Creates the input factory. The DTDs and the external entities are not supported.
+     *
+     * @return the input factory
+     */
+    private static XMLInputFactory createInputFactory() {
+
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        factory.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+        return factory;
+    }
+}
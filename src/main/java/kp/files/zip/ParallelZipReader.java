@@ -0,0 +1,260 @@
+package kp.files.zip;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.SequencedMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * The ZIP file reader which inflates the entries in parallel.
+ * <p>
+ * The entries are found in the central directory. The worker threads read them with the positional reads
+ * from one shared {@link FileChannel}. Every worker thread uses its own {@link Inflater}.
+ * The CRC-32 of every inflated entry is verified.
+ * </p>
+ * <p>
+ * The ZIP64 archives and the encrypted entries are not supported. The directory entries are skipped.
+ * </p>
+ */
+public class ParallelZipReader {
+
+    private final int parallelism;
+
+    /**
+     * The entry from the central directory.
+     *
+     * @param name              the entry name
+     * @param method            the compression method
+     * @param crc               the CRC-32 of the uncompressed data
+     * @param compressedSize    the compressed size
+     * @param uncompressedSize  the uncompressed size
+     * @param localHeaderOffset the offset of the local file header
+     */
+    private record CentralEntry(String name, int method, long crc, long compressedSize, long uncompressedSize,
+                                long localHeaderOffset) {
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param parallelism the number of the worker threads
+     */
+    public ParallelZipReader(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Reads all entries of the ZIP file.
+     *
+     * @param zipFile the ZIP file
+     * @return the map with the entry names and the contents, in the central directory order
+     * @throws IOException if an I/O error occurs
+     */
+    public SequencedMap<String, byte[]> read(Path zipFile) throws IOException {
+
+        final BlockingQueue<Inflater> inflaters = new ArrayBlockingQueue<>(parallelism);
+        IntStream.range(0, parallelism).forEach(_ -> inflaters.add(new Inflater(true)));
+        final SequencedMap<String, byte[]> contents = new LinkedHashMap<>();
+        try (FileChannel fileChannel = FileChannel.open(zipFile);
+             ExecutorService executorService = Executors.newFixedThreadPool(parallelism)) {
+            final List<CentralEntry> entries = readCentralDirectory(fileChannel);
+            final List<Future<byte[]>> futures = new ArrayList<>(entries.size());
+            for (CentralEntry entry : entries) {
+                futures.add(executorService.submit(() -> readEntry(fileChannel, entry, inflaters)));
+            }
+            for (int i = 0; i < entries.size(); i++) {
+                contents.put(entries.get(i).name(), awaitContent(futures.get(i)));
+            }
+        } finally {
+            inflaters.forEach(Inflater::end);
+        }
+        return contents;
+    }
+
+    /**
+     * Reads the central directory.
+     *
+     * @param fileChannel the file channel
+     * @return the list of file entries
+     * @throws IOException if an I/O error occurs
+     */
+    private static List<CentralEntry> readCentralDirectory(FileChannel fileChannel) throws IOException {
+
+        final ByteBuffer endRecord = findEndRecord(fileChannel);
+        final int entryCount = Short.toUnsignedInt(endRecord.getShort(10));
+        final long size = Integer.toUnsignedLong(endRecord.getInt(12));
+        final long offset = Integer.toUnsignedLong(endRecord.getInt(16));
+        if (entryCount == ZipFormat.MAX_ENTRIES || size == ZipFormat.MAX_SIZE || offset == ZipFormat.MAX_SIZE) {
+            throw new ZipException("ZIP64 archive not supported");
+        }
+        final ByteBuffer buffer = readFully(fileChannel, offset, (int) size);
+        final List<CentralEntry> entries = new ArrayList<>(entryCount);
+        for (int i = 0; i < entryCount; i++) {
+            final int position = buffer.position();
+            if (buffer.getInt(position) != ZipFormat.CENTRAL_HEADER_SIGNATURE) {
+                throw new ZipException("invalid central directory header at offset[%d]".formatted(offset + position));
+            }
+            final int flags = Short.toUnsignedInt(buffer.getShort(position + 8));
+            final int method = Short.toUnsignedInt(buffer.getShort(position + 10));
+            final long crc = Integer.toUnsignedLong(buffer.getInt(position + 16));
+            final long compressedSize = Integer.toUnsignedLong(buffer.getInt(position + 20));
+            final long uncompressedSize = Integer.toUnsignedLong(buffer.getInt(position + 24));
+            final int nameLength = Short.toUnsignedInt(buffer.getShort(position + 28));
+            final int extraLength = Short.toUnsignedInt(buffer.getShort(position + 30));
+            final int commentLength = Short.toUnsignedInt(buffer.getShort(position + 32));
+            final long localHeaderOffset = Integer.toUnsignedLong(buffer.getInt(position + 42));
+            final byte[] nameBytes = new byte[nameLength];
+            buffer.get(position + ZipFormat.CENTRAL_HEADER_LENGTH, nameBytes);
+            buffer.position(position + ZipFormat.CENTRAL_HEADER_LENGTH + nameLength + extraLength + commentLength);
+
+            final String name = new String(nameBytes, StandardCharsets.UTF_8);
+            if (name.endsWith("/")) {
+                continue;
+            }
+            if ((flags & 1) != 0) {
+                throw new ZipException("encrypted entry[%s] not supported".formatted(name));
+            }
+            if (method != ZipFormat.STORED && method != ZipFormat.DEFLATED) {
+                throw new ZipException("compression method[%d] of entry[%s] not supported".formatted(method, name));
+            }
+            if (compressedSize == ZipFormat.MAX_SIZE || uncompressedSize >= Integer.MAX_VALUE) {
+                throw new ZipException("entry[%s] too large".formatted(name));
+            }
+            entries.add(new CentralEntry(name, method, crc, compressedSize, uncompressedSize, localHeaderOffset));
+        }
+        return entries;
+    }
+
+    /**
+     * Finds the end of central directory record. It is searched backwards, because of the archive comment.
+     *
+     * @param fileChannel the file channel
+     * @return the buffer with the record at the position zero
+     * @throws IOException if an I/O error occurs
+     */
+    private static ByteBuffer findEndRecord(FileChannel fileChannel) throws IOException {
+
+        final long size = fileChannel.size();
+        final int tailLength = (int) Math.min(size, ZipFormat.END_LENGTH + ZipFormat.MAX_COMMENT_LENGTH);
+        final ByteBuffer tail = readFully(fileChannel, size - tailLength, tailLength);
+        for (int position = tailLength - ZipFormat.END_LENGTH; position >= 0; position--) {
+            if (tail.getInt(position) == ZipFormat.END_SIGNATURE
+                && position + ZipFormat.END_LENGTH + Short.toUnsignedInt(tail.getShort(position + 20)) == tailLength) {
+                return tail.slice(position, ZipFormat.END_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+        throw new ZipException("end of central directory record not found");
+    }
+
+    /**
+     * Reads the entry and inflates it with the inflater taken for the worker thread.
+     *
+     * @param fileChannel the shared file channel
+     * @param entry       the central directory entry
+     * @param inflaters   the inflaters
+     * @return the content
+     * @throws IOException          if an I/O error occurs
+     * @throws InterruptedException if interrupted while waiting for the inflater
+     */
+    private static byte[] readEntry(FileChannel fileChannel, CentralEntry entry, BlockingQueue<Inflater> inflaters)
+            throws IOException, InterruptedException {
+
+        final ByteBuffer localHeader = readFully(fileChannel, entry.localHeaderOffset(), ZipFormat.LOCAL_HEADER_LENGTH);
+        if (localHeader.getInt(0) != ZipFormat.LOCAL_HEADER_SIGNATURE) {
+            throw new ZipException("invalid local header of entry[%s]".formatted(entry.name()));
+        }
+        final long dataOffset = entry.localHeaderOffset() + ZipFormat.LOCAL_HEADER_LENGTH
+                                + Short.toUnsignedInt(localHeader.getShort(ZipFormat.LOCAL_HEADER_NAME_LENGTH_OFFSET))
+                                + Short.toUnsignedInt(localHeader.getShort(ZipFormat.LOCAL_HEADER_NAME_LENGTH_OFFSET + 2));
+        final ByteBuffer data = readFully(fileChannel, dataOffset, (int) entry.compressedSize());
+        final byte[] content;
+        if (entry.method() == ZipFormat.STORED) {
+            content = data.array();
+        } else {
+            content = new byte[(int) entry.uncompressedSize()];
+            final Inflater inflater = inflaters.take();
+            try {
+                inflater.reset();
+                inflater.setInput(data);
+                int inflated = 0;
+                while (!inflater.finished() && inflated < content.length) {
+                    final int count = inflater.inflate(content, inflated, content.length - inflated);
+                    if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        throw new ZipException("truncated entry[%s]".formatted(entry.name()));
+                    }
+                    inflated += count;
+                }
+            } catch (DataFormatException e) {
+                throw new ZipException("invalid data of entry[%s]: %s".formatted(entry.name(), e.getMessage()));
+            } finally {
+                inflaters.add(inflater);
+            }
+        }
+        final CRC32 crc = new CRC32();
+        crc.update(content);
+        if (crc.getValue() != entry.crc()) {
+            throw new ZipException("invalid CRC-32 of entry[%s]".formatted(entry.name()));
+        }
+        return content;
+    }
+
+    /**
+     * Awaits the entry content.
+     *
+     * @param future the future
+     * @return the content
+     * @throws IOException if the reading failed
+     */
+    private static byte[] awaitContent(Future<byte[]> future) throws IOException {
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();// Preserve interrupt status
+            throw new IOException("interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Reads the bytes with the positional reads, the channel position is not changed.
+     *
+     * @param fileChannel the file channel
+     * @param position    the file position
+     * @param length      the number of bytes
+     * @return the little-endian heap buffer with the bytes
+     * @throws IOException if an I/O error occurs
+     */
+    private static ByteBuffer readFully(FileChannel fileChannel, long position, int length) throws IOException {
+
+        final ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (fileChannel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("unexpected end of ZIP file at position[%d]".formatted(position));
+            }
+        }
+        return buffer.flip();
+    }
+}
@@ -0,0 +1,306 @@
+package kp.files.zip;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipException;
+
+/**
+ * The ZIP file writer which compresses the entries in parallel.
+ * <p>
+ * Every worker thread uses its own {@link Deflater} (the raw deflate without the zlib wrapper).
+ * The compressed entries are written in the source order, so the archive is the same as from the single thread.
+ * Only a bounded number of the compressed entries waits in memory for writing.
+ * The entry is stored without compression when the deflated data is not smaller.
+ * </p>
+ * <p>
+ * The ZIP64 extensions are not written: the number of entries, the sizes and the offsets must fit the ZIP limits.
+ * </p>
+ */
+public class ParallelZipWriter {
+
+    private static final int IN_FLIGHT_PER_THREAD = 4;
+    private static final int DEFLATE_BUFFER_SIZE = 64 * 1024;
+
+    private final int parallelism;
+    private final int level;
+
+    /**
+     * The compressed entry.
+     *
+     * @param name             the UTF-8 encoded entry name
+     * @param method           the compression method
+     * @param crc              the CRC-32 of the uncompressed data
+     * @param uncompressedSize the uncompressed size
+     * @param data             the compressed data
+     */
+    private record CompressedEntry(byte[] name, short method, long crc, long uncompressedSize, byte[] data) {
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param parallelism the number of the worker threads
+     * @param level       the compression level (0-9)
+     */
+    public ParallelZipWriter(int parallelism, int level) {
+
+        this.parallelism = parallelism;
+        this.level = level;
+    }
+
+    /**
+     * Writes the ZIP file.
+     *
+     * @param zipFile the ZIP file
+     * @param sources the entry sources
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(Path zipFile, List<ZipSource> sources) throws IOException {
+
+        if (sources.size() >= ZipFormat.MAX_ENTRIES) {
+            throw new ZipException("too many entries[%d]".formatted(sources.size()));
+        }
+        final int[] dosDateTime = toDosDateTime(LocalDateTime.now());
+        final List<Future<CompressedEntry>> futures = new ArrayList<>(sources.size());
+        long centralDirectorySize = 0;
+        for (ZipSource source : sources) {
+            final int nameLength = source.name().getBytes(StandardCharsets.UTF_8).length;
+            if (nameLength > ZipFormat.MAX_NAME_LENGTH) {
+                throw new ZipException("name length[%d] over the ZIP limit".formatted(nameLength));
+            }
+            centralDirectorySize += ZipFormat.CENTRAL_HEADER_LENGTH + nameLength;
+        }
+        if (centralDirectorySize > Integer.MAX_VALUE) {
+            throw new ZipException("central directory size[%d] over the limit".formatted(centralDirectorySize));
+        }
+        final ByteBuffer centralDirectory = ByteBuffer.allocate((int) centralDirectorySize)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        final int inFlight = parallelism * IN_FLIGHT_PER_THREAD;
+        // one deflater for every worker thread, at most 'parallelism' tasks run at once
+        final BlockingQueue<Deflater> deflaters = new ArrayBlockingQueue<>(parallelism);
+        IntStream.range(0, parallelism).forEach(_ -> deflaters.add(new Deflater(level, true)));
+        try (ExecutorService executorService = Executors.newFixedThreadPool(parallelism);
+             FileChannel fileChannel = FileChannel.open(zipFile, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            int submitted = 0;
+            for (int i = 0; i < sources.size(); i++) {
+                for (; submitted < sources.size() && submitted < i + inFlight; submitted++) {
+                    final ZipSource source = sources.get(submitted);
+                    futures.add(executorService.submit(() -> compress(source, deflaters)));
+                }
+                final CompressedEntry entry = awaitEntry(futures.get(i));
+                futures.set(i, null);
+                final long offset = fileChannel.position();
+                checkLimit(offset, "offset");
+                writeFully(fileChannel, localHeader(entry, dosDateTime));
+                writeFully(fileChannel, ByteBuffer.wrap(entry.data()));
+                putCentralHeader(centralDirectory, entry, dosDateTime, offset);
+            }
+            final long centralDirectoryOffset = fileChannel.position();
+            checkLimit(centralDirectoryOffset, "central directory offset");
+            writeFully(fileChannel, centralDirectory.flip());
+            writeFully(fileChannel, endRecord(sources.size(), centralDirectory.limit(), centralDirectoryOffset));
+        } finally {
+            deflaters.forEach(Deflater::end);
+        }
+    }
+
+    /**
+     * Compresses the entry with the deflater taken for the worker thread.
+     *
+     * @param source    the entry source
+     * @param deflaters the deflaters
+     * @return the compressed entry
+     * @throws IOException          if an I/O error occurs
+     * @throws InterruptedException if interrupted while waiting for the deflater
+     */
+    private static CompressedEntry compress(ZipSource source, BlockingQueue<Deflater> deflaters)
+            throws IOException, InterruptedException {
+
+        final byte[] name = source.name().getBytes(StandardCharsets.UTF_8);
+        final byte[] content = source.content();
+        checkLimit(content.length, "size");
+        final CRC32 crc = new CRC32();
+        crc.update(content);
+
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream(Math.max(64, content.length / 2));
+        final boolean deflated;
+        final Deflater deflater = deflaters.take();
+        try {
+            deflater.reset();
+            deflater.setInput(content);
+            deflater.finish();
+            final byte[] buffer = new byte[DEFLATE_BUFFER_SIZE];
+            while (!deflater.finished() && outputStream.size() < content.length) {
+                outputStream.write(buffer, 0, deflater.deflate(buffer));
+            }
+            deflated = deflater.finished();
+        } finally {
+            deflaters.add(deflater);
+        }
+        if (deflated && outputStream.size() < content.length) {
+            return new CompressedEntry(name, ZipFormat.DEFLATED, crc.getValue(), content.length,
+                    outputStream.toByteArray());
+        }
+        return new CompressedEntry(name, ZipFormat.STORED, crc.getValue(), content.length, content);
+    }
+
+    /**
+     * Creates the local file header.
+     *
+     * @param entry       the compressed entry
+     * @param dosDateTime the DOS time and date
+     * @return the buffer with the header
+     */
+    private static ByteBuffer localHeader(CompressedEntry entry, int[] dosDateTime) {
+
+        final ByteBuffer buffer = ByteBuffer.allocate(ZipFormat.LOCAL_HEADER_LENGTH + entry.name().length)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(ZipFormat.LOCAL_HEADER_SIGNATURE)
+                .putShort(ZipFormat.VERSION)
+                .putShort(ZipFormat.UTF8_FLAG)
+                .putShort(entry.method())
+                .putShort((short) dosDateTime[0])
+                .putShort((short) dosDateTime[1])
+                .putInt((int) entry.crc())
+                .putInt(entry.data().length)
+                .putInt((int) entry.uncompressedSize())
+                .putShort((short) entry.name().length)
+                .putShort((short) 0)
+                .put(entry.name());
+        return buffer.flip();
+    }
+
+    /**
+     * Puts the central directory header.
+     *
+     * @param buffer      the central directory buffer
+     * @param entry       the compressed entry
+     * @param dosDateTime the DOS time and date
+     * @param offset      the offset of the local file header
+     */
+    private static void putCentralHeader(ByteBuffer buffer, CompressedEntry entry, int[] dosDateTime, long offset) {
+
+        buffer.putInt(ZipFormat.CENTRAL_HEADER_SIGNATURE)
+                .putShort(ZipFormat.VERSION)
+                .putShort(ZipFormat.VERSION)
+                .putShort(ZipFormat.UTF8_FLAG)
+                .putShort(entry.method())
+                .putShort((short) dosDateTime[0])
+                .putShort((short) dosDateTime[1])
+                .putInt((int) entry.crc())
+                .putInt(entry.data().length)
+                .putInt((int) entry.uncompressedSize())
+                .putShort((short) entry.name().length)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putInt(0)
+                .putInt((int) offset)
+                .put(entry.name());
+    }
+
+    /**
+     * Creates the end of central directory record.
+     *
+     * @param entries                the number of entries
+     * @param centralDirectorySize   the central directory size
+     * @param centralDirectoryOffset the central directory offset
+     * @return the buffer with the record
+     */
+    private static ByteBuffer endRecord(int entries, int centralDirectorySize, long centralDirectoryOffset) {
+
+        final ByteBuffer buffer = ByteBuffer.allocate(ZipFormat.END_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(ZipFormat.END_SIGNATURE)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) entries)
+                .putShort((short) entries)
+                .putInt(centralDirectorySize)
+                .putInt((int) centralDirectoryOffset)
+                .putShort((short) 0);
+        return buffer.flip();
+    }
+
+    /**
+     * Converts the date-time to the DOS time and date.
+     *
+     * @param dateTime the date-time
+     * @return the array with the DOS time and the DOS date
+     */
+    private static int[] toDosDateTime(LocalDateTime dateTime) {
+
+        final int time = dateTime.getHour() << 11 | dateTime.getMinute() << 5 | dateTime.getSecond() >> 1;
+        final int date = (dateTime.getYear() - 1980) << 9 | dateTime.getMonthValue() << 5 | dateTime.getDayOfMonth();
+        return new int[]{time, date};
+    }
+
+    /**
+     * Awaits the compressed entry.
+     *
+     * @param future the future
+     * @return the compressed entry
+     * @throws IOException if the compression failed
+     */
+    private static CompressedEntry awaitEntry(Future<CompressedEntry> future) throws IOException {
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();// Preserve interrupt status
+            throw new IOException("interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Checks the ZIP limit.
+     *
+     * @param value the value
+     * @param label the label
+     * @throws ZipException if the value reaches the ZIP64 marker
+     */
+    private static void checkLimit(long value, String label) throws ZipException {
+
+        if (value >= ZipFormat.MAX_SIZE) {
+            throw new ZipException("%s[%d] over the ZIP limit".formatted(label, value));
+        }
+    }
+
+    /**
+     * Writes the whole buffer.
+     *
+     * @param fileChannel the file channel
+     * @param buffer      the buffer
+     * @throws IOException if an I/O error occurs
+     */
+    private static void writeFully(FileChannel fileChannel, ByteBuffer buffer) throws IOException {
+
+        while (buffer.hasRemaining()) {
+            fileChannel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package kp.files.zip;
+
+import kp.utils.Printer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * The shared cache for the random access to the ZIP file entries.
+ * <p>
+ * It has two levels:
+ * </p>
+ * <ul>
+ * <li>the cache of the open ZIP file systems, bounded by the number of archives,
+ * keyed by the archive path and its last modified time (the changed archive is opened again)</li>
+ * <li>the LRU cache of the decompressed entry bytes, bounded by the total number of bytes</li>
+ * </ul>
+ * <p>
+ * The file system evicted while it is still read by other thread is closed after the last reader.
+ * The archive is opened and closed outside the cache-wide lock, so the lookups in the other archives do not wait.
+ * The hits, the misses and the evictions are counted.
+ * </p>
+ */
+public class ZipEntryCache implements AutoCloseable {
+
+    private final int maxFileSystems;
+    private final long maxEntryBytes;
+    private final ReentrantLock fileSystemsLock = new ReentrantLock();
+    private final Map<ArchiveKey, ArchiveHolder> fileSystems = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantLock entriesLock = new ReentrantLock();
+    private final Map<EntryKey, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long entryBytes;
+    private final LongAdder entryHits = new LongAdder();
+    private final LongAdder entryMisses = new LongAdder();
+    private final LongAdder fileSystemHits = new LongAdder();
+    private final LongAdder fileSystemMisses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * The archive key.
+     *
+     * @param path     the absolute archive path
+     * @param modified the last modified time of the archive
+     */
+    private record ArchiveKey(Path path, FileTime modified) {
+    }
+
+    /**
+     * The entry key.
+     *
+     * @param archiveKey the archive key
+     * @param entryName  the entry name
+     */
+    private record EntryKey(ArchiveKey archiveKey, String entryName) {
+    }
+
+    /**
+     * The holder of the ZIP file system. The users, the eviction and the entry names are guarded
+     * by the file systems lock, the file system is opened and closed under the holder monitor.
+     */
+    private static final class ArchiveHolder {
+        private final Path path;
+        private FileSystem fileSystem;
+        private int users;
+        private boolean evicted;
+        private List<String> entryNames;
+
+        /**
+         * The constructor.
+         *
+         * @param path the absolute archive path
+         */
+        ArchiveHolder(Path path) {
+            this.path = path;
+        }
+
+        /**
+         * Gets the ZIP file system, it is opened on the first call.
+         * Only the threads acquiring the same archive wait for the opening.
+         *
+         * @return the ZIP file system
+         * @throws IOException if an I/O error occurs
+         */
+        synchronized FileSystem fileSystem() throws IOException {
+
+            if (Objects.isNull(fileSystem)) {
+                fileSystem = FileSystems.newFileSystem(path);
+            }
+            return fileSystem;
+        }
+
+        /**
+         * Closes the ZIP file system if it was opened.
+         */
+        synchronized void close() {
+
+            if (Objects.isNull(fileSystem)) {
+                return;
+            }
+            try {
+                fileSystem.close();
+            } catch (IOException e) {
+                Printer.printIOException(e);
+            }
+        }
+    }
+
+    /**
+     * The cache statistics.
+     *
+     * @param entryHits        the number of entry hits
+     * @param entryMisses      the number of entry misses
+     * @param fileSystemHits   the number of file system hits
+     * @param fileSystemMisses the number of file system misses (the archive was opened)
+     * @param evictions        the number of evicted entries and file systems
+     */
+    public record Statistics(long entryHits, long entryMisses, long fileSystemHits, long fileSystemMisses,
+                             long evictions) {
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param maxFileSystems the maximum number of the open ZIP file systems
+     * @param maxEntryBytes  the maximum number of the cached decompressed bytes
+     */
+    public ZipEntryCache(int maxFileSystems, long maxEntryBytes) {
+
+        this.maxFileSystems = maxFileSystems;
+        this.maxEntryBytes = maxEntryBytes;
+    }
+
+    /**
+     * Gets the input stream of the decompressed entry.
+     * <p>
+     * The stream reads the cached bytes, it does not copy them.
+     * </p>
+     *
+     * @param archive   the ZIP file
+     * @param entryName the entry name
+     * @return the input stream
+     * @throws IOException if an I/O error occurs
+     */
+    public InputStream getInputStream(Path archive, String entryName) throws IOException {
+        return new ByteArrayInputStream(getEntryBytes(archive, entryName));
+    }
+
+    /**
+     * Lists the entry names of the ZIP file. The directory names end with the slash.
+     *
+     * @param archive the ZIP file
+     * @return the entry names
+     * @throws IOException if an I/O error occurs
+     */
+    public List<String> listEntries(Path archive) throws IOException {
+
+        final ArchiveHolder holder = acquire(archiveKey(archive));
+        try {
+            fileSystemsLock.lock();
+            try {
+                if (Objects.nonNull(holder.entryNames)) {
+                    return holder.entryNames;
+                }
+            } finally {
+                fileSystemsLock.unlock();
+            }
+            final List<String> entryNames = new ArrayList<>();
+            final Path root = holder.fileSystem().getPath("/");
+            try (Stream<Path> pathStream = Files.walk(root)) {
+                pathStream.filter(path -> !path.equals(root)).forEach(path -> entryNames.add(
+                        root.relativize(path) + (Files.isDirectory(path) ? "/" : "")));
+            }
+            fileSystemsLock.lock();
+            try {
+                holder.entryNames = List.copyOf(entryNames);
+                return holder.entryNames;
+            } finally {
+                fileSystemsLock.unlock();
+            }
+        } finally {
+            release(holder);
+        }
+    }
+
+    /**
+     * Gets the statistics.
+     *
+     * @return the statistics
+     */
+    public Statistics getStatistics() {
+        return new Statistics(entryHits.sum(), entryMisses.sum(), fileSystemHits.sum(), fileSystemMisses.sum(),
+                evictions.sum());
+    }
+
+    /**
+     * Closes all the file systems and clears the entries.
+     * <p>
+     * The file system still read by other thread is closed after the last reader.
+     * The cache can be used again, the archives are opened again.
+     * </p>
+     */
+    @Override
+    public void close() {
+
+        final List<ArchiveHolder> unused = new ArrayList<>();
+        fileSystemsLock.lock();
+        try {
+            for (ArchiveHolder holder : fileSystems.values()) {
+                holder.evicted = true;
+                collectIfUnused(holder, unused);
+            }
+            fileSystems.clear();
+        } finally {
+            fileSystemsLock.unlock();
+        }
+        unused.forEach(ArchiveHolder::close);
+        entriesLock.lock();
+        try {
+            entries.clear();
+            entryBytes = 0;
+        } finally {
+            entriesLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the decompressed entry bytes from the cache or from the ZIP file system.
+     * The bytes are loaded outside the locks.
+     *
+     * @param archive   the ZIP file
+     * @param entryName the entry name
+     * @return the entry bytes (must not be modified)
+     * @throws IOException if an I/O error occurs
+     */
+    private byte[] getEntryBytes(Path archive, String entryName) throws IOException {
+
+        final ArchiveKey archiveKey = archiveKey(archive);
+        final EntryKey entryKey = new EntryKey(archiveKey, entryName);
+        entriesLock.lock();
+        try {
+            final byte[] bytes = entries.get(entryKey);
+            if (Objects.nonNull(bytes)) {
+                entryHits.increment();
+                return bytes;
+            }
+        } finally {
+            entriesLock.unlock();
+        }
+        entryMisses.increment();
+        final ArchiveHolder holder = acquire(archiveKey);
+        final byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(holder.fileSystem().getPath(entryName));
+        } finally {
+            release(holder);
+        }
+        putEntryBytes(entryKey, bytes);
+        return bytes;
+    }
+
+    /**
+     * Puts the entry bytes and evicts the least recently used entries over the limit.
+     *
+     * @param entryKey the entry key
+     * @param bytes    the entry bytes
+     */
+    private void putEntryBytes(EntryKey entryKey, byte[] bytes) {
+
+        if (bytes.length > maxEntryBytes) {
+            return;
+        }
+        entriesLock.lock();
+        try {
+            final byte[] previous = entries.put(entryKey, bytes);
+            entryBytes += bytes.length - (Objects.nonNull(previous) ? previous.length : 0);
+            final Iterator<byte[]> iterator = entries.values().iterator();
+            while (entryBytes > maxEntryBytes && iterator.hasNext()) {
+                entryBytes -= iterator.next().length;
+                iterator.remove();
+                evictions.increment();
+            }
+        } finally {
+            entriesLock.unlock();
+        }
+    }
+
+    /**
+     * Acquires the ZIP file system. On the miss the holder is added under the lock
+     * and the archive is opened after the lock is released.
+     *
+     * @param archiveKey the archive key
+     * @return the archive holder with the open file system
+     * @throws IOException if an I/O error occurs
+     */
+    private ArchiveHolder acquire(ArchiveKey archiveKey) throws IOException {
+
+        final List<ArchiveHolder> unused = new ArrayList<>();
+        ArchiveHolder holder;
+        fileSystemsLock.lock();
+        try {
+            holder = fileSystems.get(archiveKey);
+            if (Objects.nonNull(holder)) {
+                fileSystemHits.increment();
+            } else {
+                fileSystemMisses.increment();
+                holder = new ArchiveHolder(archiveKey.path());
+                // the older versions of the changed archive are not used anymore
+                evictFileSystems(key -> key.path().equals(archiveKey.path()), unused);
+                fileSystems.put(archiveKey, holder);
+                final int[] excess = {fileSystems.size() - maxFileSystems};
+                evictFileSystems(_ -> excess[0]-- > 0, unused);
+            }
+            holder.users++;
+        } finally {
+            fileSystemsLock.unlock();
+        }
+        unused.forEach(ArchiveHolder::close);
+        try {
+            holder.fileSystem();
+        } catch (IOException e) {
+            release(holder);
+            throw e;
+        }
+        return holder;
+    }
+
+    /**
+     * Releases the ZIP file system.
+     *
+     * @param holder the archive holder
+     */
+    private void release(ArchiveHolder holder) {
+
+        final List<ArchiveHolder> unused = new ArrayList<>();
+        fileSystemsLock.lock();
+        try {
+            holder.users--;
+            collectIfUnused(holder, unused);
+        } finally {
+            fileSystemsLock.unlock();
+        }
+        unused.forEach(ArchiveHolder::close);
+    }
+
+    /**
+     * Evicts the file systems in the least recently used order. It is called with the file systems lock held.
+     *
+     * @param predicate the predicate of the evicted archive keys
+     * @param unused    the list for the evicted holders to be closed after the lock is released
+     */
+    private void evictFileSystems(Predicate<ArchiveKey> predicate, List<ArchiveHolder> unused) {
+
+        final Iterator<Map.Entry<ArchiveKey, ArchiveHolder>> iterator = fileSystems.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<ArchiveKey, ArchiveHolder> entry = iterator.next();
+            if (predicate.test(entry.getKey())) {
+                iterator.remove();
+                entry.getValue().evicted = true;
+                collectIfUnused(entry.getValue(), unused);
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Collects the evicted holder without users. It is called with the file systems lock held.
+     *
+     * @param holder the archive holder
+     * @param unused the list for the holders to be closed after the lock is released
+     */
+    private static void collectIfUnused(ArchiveHolder holder, List<ArchiveHolder> unused) {
+
+        if (holder.evicted && holder.users == 0) {
+            unused.add(holder);
+        }
+    }
+
+    /**
+     * Creates the archive key.
+     *
+     * @param archive the ZIP file
+     * @return the archive key
+     * @throws IOException if an I/O error occurs
+     */
+    private static ArchiveKey archiveKey(Path archive) throws IOException {
+
+        final Path path = archive.toAbsolutePath().normalize();
+        return new ArchiveKey(path, Files.getLastModifiedTime(path));
+    }
+}
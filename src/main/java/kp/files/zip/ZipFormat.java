@@ -0,0 +1,74 @@
+package kp.files.zip;
+
+/**
+ * The constants of the ZIP file format (without the ZIP64 extensions).
+ * <p>
+ * All the numbers are little-endian.
+ * </p>
+ */
+final class ZipFormat {
+    /**
+     * The local file header signature.
+     */
+    static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    /**
+     * The local file header length without the name and the extra field.
+     */
+    static final int LOCAL_HEADER_LENGTH = 30;
+    /**
+     * The offset of the name length in the local file header.
+     */
+    static final int LOCAL_HEADER_NAME_LENGTH_OFFSET = 26;
+    /**
+     * The central directory header signature.
+     */
+    static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    /**
+     * The central directory header length without the name, the extra field and the comment.
+     */
+    static final int CENTRAL_HEADER_LENGTH = 46;
+    /**
+     * The end of central directory record signature.
+     */
+    static final int END_SIGNATURE = 0x06054b50;
+    /**
+     * The end of central directory record length without the comment.
+     */
+    static final int END_LENGTH = 22;
+    /**
+     * The maximum length of the archive comment.
+     */
+    static final int MAX_COMMENT_LENGTH = 0xFFFF;
+    /**
+     * The version needed to extract (2.0, deflate).
+     */
+    static final short VERSION = 20;
+    /**
+     * The general purpose flag: the names are UTF-8 encoded.
+     */
+    static final short UTF8_FLAG = 0x0800;
+    /**
+     * The compression method: stored.
+     */
+    static final short STORED = 0;
+    /**
+     * The compression method: deflated.
+     */
+    static final short DEFLATED = 8;
+    /**
+     * The ZIP64 marker of the number of entries, the number of entries must be lower.
+     */
+    static final int MAX_ENTRIES = 0xFFFF;
+    /**
+     * The ZIP64 marker of the size and offset, the size and offset must be lower.
+     */
+    static final long MAX_SIZE = 0xFFFFFFFFL;
+    /**
+     * The maximum length of the UTF-8 entry name.
+     */
+    static final int MAX_NAME_LENGTH = 0xFFFF;
+
+    private ZipFormat() {
+        throw new IllegalStateException("Utility class");
+    }
+}
@@ -0,0 +1,71 @@
+package kp.files.zip;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The source of the ZIP file entry.
+ * <p>
+ * The content is loaded lazily, in the worker thread which compresses the entry.
+ * </p>
+ */
+public interface ZipSource {
+
+    /**
+     * Gets the entry name.
+     *
+     * @return the entry name
+     */
+    String name();
+
+    /**
+     * Loads the entry content.
+     *
+     * @return the content
+     * @throws IOException if an I/O error occurs
+     */
+    byte[] content() throws IOException;
+
+    /**
+     * Creates the source from the file.
+     *
+     * @param name the entry name
+     * @param path the path of the file
+     * @return the source
+     */
+    static ZipSource ofFile(String name, Path path) {
+        return new ZipSource() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public byte[] content() throws IOException {
+                return Files.readAllBytes(path);
+            }
+        };
+    }
+
+    /**
+     * Creates the source from the bytes.
+     *
+     * @param name  the entry name
+     * @param bytes the content
+     * @return the source
+     */
+    static ZipSource ofBytes(String name, byte[] bytes) {
+        return new ZipSource() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public byte[] content() {
+                return bytes;
+            }
+        };
+    }
+}
@@ -37,11 +37,19 @@ public class ApplicationForReactiveStreams {
         Printer.printHor();
         FlowLauncher.launchSubmissionPublisherAndSubscriber();
         FlowLauncher.launchPeriodicPublisherAndSubscriber();
+        FlowLauncher.launchSharedPeriodicPublishers();
+        FlowLauncher.launchSharedPeriodicPublisherWithSlowSubscriber();
         FlowLauncher.launchSubmissionPublisherAndProcessor();
         FlowLauncher.launchPublisherImplAndSubscriber();
+        FlowLauncher.launchIterablePublisherAndSubscriber();
+        FlowLauncher.launchIterablePublisherWithUnboundedDemand();
+        FlowLauncher.launchRingBufferProcessors();
+        FlowLauncher.launchRingBufferProcessorWithManyProducers();
 
         WebFlowLauncher.receiveResponseUsingLineSubscriber();
         WebFlowLauncher.receiveResponseUsingSubscriberForByteBufferList();
         WebFlowLauncher.receiveResponseUsingPublisher();
+        WebFlowLauncher.streamFileThroughServer();
+        WebFlowLauncher.receiveLargeResponseUsingByteBufferSubscribers();
     }
 }
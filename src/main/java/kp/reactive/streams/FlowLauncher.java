@@ -1,21 +1,37 @@
 package kp.reactive.streams;
 
 import kp.reactive.streams.ext.PeriodicPublisher;
+import kp.reactive.streams.ext.SharedPeriodicPublisher;
+import kp.reactive.streams.ext.SharedPeriodicPublisher.OverflowPolicy;
+import kp.reactive.streams.ext.TimerWheel;
+import kp.reactive.streams.impl.IterablePublisher;
 import kp.reactive.streams.impl.ProcessorImpl;
+import kp.reactive.streams.impl.RingBufferProcessor;
+import kp.reactive.streams.impl.RingBufferProcessor.Sequencing;
+import kp.reactive.streams.impl.RingBufferProcessor.WaitStrategy;
 import kp.reactive.streams.impl.PublisherImpl;
 import kp.reactive.streams.impl.SubscriberImpl;
 import kp.utils.Printer;
 import kp.utils.Utils;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Flow.Subscriber;
+import java.util.concurrent.Flow.Subscription;
 import java.util.concurrent.SubmissionPublisher;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
 
 /**
  * The launcher for subscribers and publishers.
@@ -27,6 +43,13 @@ public class FlowLauncher {
     private static final Consumer<String> FUTURE_STR_CONSUMER = item -> Printer.printf("→ Consumed item[%s]", item);
     private static final Consumer<Integer> FUTURE_INT_CONSUMER = item -> Printer.printf("→ Consumed item[%s]", item);
     private static final List<String> EXAMPLE_DATA_LIST = List.of("A", "B", "C");
+    private static final int THROUGHPUT_ITEMS = 10_000_000;
+    private static final int RING_BUFFER_CAPACITY = 1_024;
+    private static final int RING_BUFFER_BATCH_SIZE = 256;
+    private static final int PRODUCERS = 4;
+    private static final int PERIODIC_FEEDS = 2_000;
+    private static final int PERIODIC_BUFFER_CAPACITY = 4;
+    private static final double NANOS_PER_SECOND = 1e9;
 
     /**
      * Private constructor to prevent instantiation.
@@ -117,4 +140,253 @@ public class FlowLauncher {
         Utils.sleepMillis(103);
         Printer.printHor();
     }
+
+    /**
+     * Launches the {@link IterablePublisher} and the {@link SubscriberImpl}.
+     * <p>
+     * The {@link SubscriberImpl} requests one item at a time.
+     */
+    static void launchIterablePublisherAndSubscriber() {
+
+        final IterablePublisher<String> iterablePublisher = new IterablePublisher<>(EXAMPLE_DATA_LIST);
+        iterablePublisher.subscribe(new SubscriberImpl<>());
+        Utils.sleepMillis(104);
+        Printer.printHor();
+    }
+
+    /**
+     * Measures the throughput of the {@link IterablePublisher} with the unbounded demand.
+     */
+    static void launchIterablePublisherWithUnboundedDemand() {
+
+        final IterablePublisher<Integer> iterablePublisher =
+                new IterablePublisher<>(() -> IntStream.range(0, THROUGHPUT_ITEMS).iterator());
+        final CompletableFuture<Long> future = new CompletableFuture<>();
+        final Instant start = Instant.now();
+        iterablePublisher.subscribe(createCountingSubscriber(future));
+        final long count = future.join();
+        final Instant finish = Instant.now();
+        Printer.printf("launchIterablePublisherWithUnboundedDemand(): items[%s], %s", Utils.formatNumber(count),
+                formatThroughput(count, start, finish));
+        Printer.printHor();
+    }
+
+    /**
+     * Launches the chain of the {@link RingBufferProcessor} stages.
+     * <p>
+     * The {@link IterablePublisher} feeds the first stage, every stage has its own consumer thread.
+     */
+    static void launchRingBufferProcessors() {
+
+        final IterablePublisher<Integer> iterablePublisher =
+                new IterablePublisher<>(() -> IntStream.range(0, THROUGHPUT_ITEMS).iterator());
+        final RingBufferProcessor<Integer, Integer> firstStage = new RingBufferProcessor<>(
+                item -> item + 1, RING_BUFFER_CAPACITY, Sequencing.SINGLE_PRODUCER, WaitStrategy.YIELD,
+                RING_BUFFER_BATCH_SIZE);
+        final RingBufferProcessor<Integer, Long> secondStage = new RingBufferProcessor<>(
+                item -> 2L * item, RING_BUFFER_CAPACITY, Sequencing.SINGLE_PRODUCER, WaitStrategy.YIELD,
+                RING_BUFFER_BATCH_SIZE);
+        final RingBufferProcessor<Long, String> thirdStage = new RingBufferProcessor<>(
+                item -> item % 2 == 0 ? "even" : "odd", RING_BUFFER_CAPACITY, Sequencing.SINGLE_PRODUCER,
+                WaitStrategy.YIELD, RING_BUFFER_BATCH_SIZE);
+        final CompletableFuture<Long> future = new CompletableFuture<>();
+        final Instant start = Instant.now();
+        thirdStage.subscribe(createCountingSubscriber(future));
+        secondStage.subscribe(thirdStage);
+        firstStage.subscribe(secondStage);
+        iterablePublisher.subscribe(firstStage);
+        final long count = future.join();
+        final Instant finish = Instant.now();
+        Printer.printf("launchRingBufferProcessors(): stages[3], items[%s], %s", Utils.formatNumber(count),
+                formatThroughput(count, start, finish));
+        Printer.printHor();
+    }
+
+    /**
+     * Launches the {@link RingBufferProcessor} with many producer threads.
+     */
+    static void launchRingBufferProcessorWithManyProducers() {
+
+        final RingBufferProcessor<Integer, Integer> processor = new RingBufferProcessor<>(
+                UnaryOperator.identity(), RING_BUFFER_CAPACITY, Sequencing.MULTI_PRODUCER, WaitStrategy.YIELD,
+                RING_BUFFER_BATCH_SIZE);
+        final CompletableFuture<Long> future = new CompletableFuture<>();
+        final Instant start = Instant.now();
+        processor.subscribe(createCountingSubscriber(future));
+        final List<Thread> producers = new ArrayList<>();
+        for (int i = 0; i < PRODUCERS; i++) {
+            producers.add(Thread.ofPlatform().start(() -> {
+                for (int item = 0; item < THROUGHPUT_ITEMS / PRODUCERS; item++) {
+                    processor.offer(item);
+                }
+            }));
+        }
+        try {
+            for (Thread producer : producers) {
+                producer.join();
+            }
+        } catch (InterruptedException e) {
+            Printer.printInterruptedException(e);
+            Thread.currentThread().interrupt();// Preserve interrupt status
+            return;
+        }
+        processor.onComplete();
+        final long count = future.join();
+        final Instant finish = Instant.now();
+        Printer.printf("launchRingBufferProcessorWithManyProducers(): producers[%d], items[%s], %s", PRODUCERS,
+                Utils.formatNumber(count), formatThroughput(count, start, finish));
+        Printer.printHor();
+    }
+
+    /**
+     * Creates the subscriber which requests the unbounded demand and counts the items.
+     *
+     * @param future the future completed with the number of the items
+     * @param <T>    the item type
+     * @return the {@link Subscriber}
+     */
+    private static <T> Subscriber<T> createCountingSubscriber(CompletableFuture<Long> future) {
+
+        return new Subscriber<>() {
+            private long count;
+
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(T item) {
+                count++;
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                future.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                future.complete(count);
+            }
+        };
+    }
+
+    /**
+     * Formats the throughput and the average time per item.
+     *
+     * @param count  the number of the items
+     * @param start  the start instant
+     * @param finish the finish instant
+     * @return the formatted throughput
+     */
+    private static String formatThroughput(long count, Instant start, Instant finish) {
+
+        final long nanos = Math.max(1, Duration.between(start, finish).toNanos());
+        return "throughput[%s items/s], per item[%.1f ns], %s".formatted(
+                Utils.formatNumber((long) (count / (nanos / NANOS_PER_SECOND))), (double) nanos / Math.max(1, count),
+                Utils.formatElapsed(start, finish));
+    }
+
+    /**
+     * Launches many {@link SharedPeriodicPublisher}s on one {@link TimerWheel}.
+     */
+    static void launchSharedPeriodicPublishers() {
+
+        final int period = 10;
+        final int duration = 500;
+        final LongAdder received = new LongAdder();
+        final int threadsBefore = Thread.activeCount();
+        final List<SharedPeriodicPublisher<Integer>> publishers = new ArrayList<>();
+        try (TimerWheel timerWheel = new TimerWheel()) {
+            for (int feed = 0; feed < PERIODIC_FEEDS; feed++) {
+                final AtomicInteger sequenceNumber = new AtomicInteger();
+                final SharedPeriodicPublisher<Integer> publisher = new SharedPeriodicPublisher<>(timerWheel,
+                        sequenceNumber::getAndIncrement, period, TimeUnit.MILLISECONDS, OverflowPolicy.DROP_OLDEST,
+                        PERIODIC_BUFFER_CAPACITY);
+                publisher.subscribe(new Subscriber<>() {
+                    @Override
+                    public void onSubscribe(Subscription subscription) {
+                        subscription.request(Long.MAX_VALUE);
+                    }
+
+                    @Override
+                    public void onNext(Integer item) {
+                        received.increment();
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                        Printer.printException("launchSharedPeriodicPublishers():", throwable);
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        // No specific implementation needed
+                    }
+                });
+                publishers.add(publisher);
+            }
+            Utils.sleepMillis(duration);
+            Printer.printf("launchSharedPeriodicPublishers(): feeds[%d], period[%d ms], received[%s] in [%d ms], " +
+                            "added threads[%d]", PERIODIC_FEEDS, period, Utils.formatNumber(received.sum()), duration,
+                    Thread.activeCount() - threadsBefore);
+            publishers.forEach(SharedPeriodicPublisher::close);
+        }
+        Printer.printHor();
+    }
+
+    /**
+     * Launches the {@link SharedPeriodicPublisher} with the slow subscriber for every {@link OverflowPolicy}.
+     * <p>
+     * The slow subscriber blocks, it gets its own executor instead of the common pool.
+     */
+    static void launchSharedPeriodicPublisherWithSlowSubscriber() {
+
+        final int period = 5;
+        final int processingTime = 50;
+        try (TimerWheel timerWheel = new TimerWheel()) {
+            for (OverflowPolicy overflowPolicy : OverflowPolicy.values()) {
+                final ExecutorService executor = Executors.newSingleThreadExecutor();
+                final AtomicInteger sequenceNumber = new AtomicInteger();
+                final List<Integer> received = new CopyOnWriteArrayList<>();
+                final SharedPeriodicPublisher<Integer> publisher = new SharedPeriodicPublisher<>(timerWheel,
+                        sequenceNumber::getAndIncrement, period, TimeUnit.MILLISECONDS, overflowPolicy,
+                        PERIODIC_BUFFER_CAPACITY, executor);
+                publisher.subscribe(new Subscriber<>() {
+                    private Subscription subscription;
+
+                    @Override
+                    public void onSubscribe(Subscription subscriptionParam) {
+                        subscription = subscriptionParam;
+                        subscription.request(1);
+                    }
+
+                    @Override
+                    public void onNext(Integer item) {
+                        received.add(item);
+                        Utils.sleepMillis(processingTime);
+                        subscription.request(1);
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                        Printer.printException("launchSharedPeriodicPublisherWithSlowSubscriber():", throwable);
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        // No specific implementation needed
+                    }
+                });
+                Utils.sleepMillis(10 * processingTime);
+                Printer.printf("launchSharedPeriodicPublisherWithSlowSubscriber(): overflow policy[%s], " +
+                                "supplied[%d], received%s, dropped[%d]", overflowPolicy, sequenceNumber.get(),
+                        received, publisher.getDropped());
+                publisher.close();
+                executor.close();
+            }
+        }
+        Printer.printHor();
+    }
 }
@@ -2,8 +2,11 @@ package kp.reactive.streams;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpServer;
+import kp.reactive.streams.impl.FileChannelSubscriber;
+import kp.reactive.streams.impl.LineSplittingSubscriber;
 import kp.reactive.streams.impl.SubscriberImpl;
 import kp.reactive.streams.impl.SubscriberImplForByteBufferList;
+import kp.reactive.streams.impl.Utf8DecodingSubscriber;
 import kp.utils.Printer;
 import kp.utils.Utils;
 
@@ -20,10 +23,19 @@ import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandler;
 import java.net.http.HttpResponse.BodyHandlers;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.SplittableRandom;
 import java.util.concurrent.Flow.Publisher;
 import java.util.function.Supplier;
+import java.util.zip.CRC32;
 
 /**
  * Reads the content from the web server with subscribers.
@@ -34,6 +46,24 @@ public class WebFlowLauncher {
     private static final URI LOCAL_URI = URI.create(String.format("http://localhost:%d/", PORT));
     private static final Supplier<HttpRequest> REQUEST_SUP = () -> HttpRequest.newBuilder(LOCAL_URI)
             .header("Content-Type", "text/plain; charset=UTF-8").POST(BodyPublishers.ofString("ABC")).build();
+    private static final URI STREAM_URI = URI.create(String.format("http://localhost:%d/stream", PORT));
+    /**
+     * The size of the chunk transformed by the streaming handler.
+     */
+    private static final int CHUNK_SIZE = 64 * 1024;
+    /**
+     * The size of the streamed file in megabytes. The default keeps the demo short,
+     * set the 'kp.reactive.streamMegabytes' system property for the large measurement.
+     */
+    private static final long STREAM_MEGABYTES = Long.getLong("kp.reactive.streamMegabytes", 16);
+    private static final int BYTES_PER_MEGABYTE = 1024 * 1024;
+    private static final int LINE_LENGTH = 80;
+    /**
+     * The line begins with the euro sign, its 3-byte UTF-8 sequence is split between some buffers.
+     */
+    private static final byte[] EURO_SIGN = "\u20AC".getBytes(StandardCharsets.UTF_8);
+    private static final int REQUEST_BATCH_SIZE = 16;
+    private static final double NANOS_PER_SECOND = 1e9;
 
     /**
      * Private constructor to prevent instantiation.
@@ -125,6 +155,194 @@ public class WebFlowLauncher {
         Printer.printHor();
     }
 
+    /**
+     * Launches the {@link HttpServer} and the {@link HttpClient}.
+     * <p>
+     * Streams the file to the server with the {@link BodyPublishers#ofFile} publisher.
+     * The server transforms the body chunk by chunk and replies with the chunked transfer encoding.
+     * The response is streamed to the file with the {@link BodyHandlers#ofFile} handler.
+     * Neither the client nor the server holds the whole body in memory.
+     */
+    public static void streamFileThroughServer() {
+
+        try (HttpClient httpClient = HttpClient.newBuilder().build()) {
+            final Path tmpDir = Path.of(System.getProperty("java.io.tmpdir"));
+            final Path requestFile = Files.createTempFile(tmpDir, "request", ".txt");
+            final Path responseFile = Files.createTempFile(tmpDir, "response", ".txt");
+            final long expectedChecksum = writeRequestFile(requestFile);
+            final HttpServer httpServer = startServer();
+            final Instant start = Instant.now();
+            final HttpResponse<Path> httpResponse = httpClient.send(createStreamRequest(requestFile),
+                    BodyHandlers.ofFile(responseFile));
+            final Instant finish = Instant.now();
+            httpServer.stop(0);
+            final long requestSize = Files.size(requestFile);
+            Printer.printf("streamFileThroughServer(): response status code[%s], transfer encoding[%s], " +
+                            "sent[%s bytes], received[%s bytes], checksum matches[%b]", httpResponse.statusCode(),
+                    httpResponse.headers().firstValue("Transfer-Encoding").orElse("-"),
+                    Utils.formatNumber(requestSize), Utils.formatNumber(Files.size(responseFile)),
+                    expectedChecksum == checksum(responseFile));
+            Printer.printf("streamFileThroughServer(): %s", formatThroughput(requestSize, start, finish));
+            Files.delete(requestFile);
+            Files.delete(responseFile);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();// Preserve interrupt status
+            Printer.printInterruptedException(e);
+            System.exit(1);
+        } catch (IOException e) {
+            Printer.printIOException(e);
+            System.exit(1);
+        }
+        Printer.printHor();
+    }
+
+    /**
+     * Launches the {@link HttpServer} and the {@link HttpClient}.
+     * <p>
+     * Receives the large streamed response with the {@link LineSplittingSubscriber},
+     * the {@link Utf8DecodingSubscriber} and the {@link FileChannelSubscriber}.
+     * The subscribers consume the buffers in place and request them in batches,
+     * the memory use does not depend on the response size.
+     */
+    public static void receiveLargeResponseUsingByteBufferSubscribers() {
+
+        try (HttpClient httpClient = HttpClient.newBuilder().build()) {
+            final Path tmpDir = Path.of(System.getProperty("java.io.tmpdir"));
+            final Path requestFile = Files.createTempFile(tmpDir, "request", ".txt");
+            final Path responseFile = Files.createTempFile(tmpDir, "response", ".txt");
+            final long expectedChecksum = writeRequestFile(requestFile);
+            final long requestSize = Files.size(requestFile);
+            final HttpServer httpServer = startServer();
+
+            final LongSummaryStatistics lineLengths = new LongSummaryStatistics();
+            final LineSplittingSubscriber lineSubscriber = new LineSplittingSubscriber(
+                    line -> lineLengths.accept(line.length()), REQUEST_BATCH_SIZE);
+            Instant start = Instant.now();
+            final long lines = httpClient.send(createStreamRequest(requestFile),
+                    BodyHandlers.fromSubscriber(lineSubscriber, subscriber -> subscriber.getResult().join())).body();
+            Printer.printf("receiveLargeResponseUsingByteBufferSubscribers(): lines[%s], line length min[%d] " +
+                            "max[%d], %s", Utils.formatNumber(lines), lineLengths.getMin(), lineLengths.getMax(),
+                    formatThroughput(requestSize, start, Instant.now()));
+
+            final long[] euroSigns = new long[1];
+            final Utf8DecodingSubscriber utf8Subscriber = new Utf8DecodingSubscriber(chars -> {
+                for (int i = chars.position(); i < chars.limit(); i++) {
+                    if (chars.get(i) == '\u20AC') {
+                        euroSigns[0]++;
+                    }
+                }
+            }, REQUEST_BATCH_SIZE);
+            start = Instant.now();
+            final long characters = httpClient.send(createStreamRequest(requestFile),
+                    BodyHandlers.fromSubscriber(utf8Subscriber, subscriber -> subscriber.getResult().join())).body();
+            Printer.printf("receiveLargeResponseUsingByteBufferSubscribers(): characters[%s], euro signs[%s], %s",
+                    Utils.formatNumber(characters), Utils.formatNumber(euroSigns[0]),
+                    formatThroughput(requestSize, start, Instant.now()));
+
+            try (FileChannel fileChannel = FileChannel.open(responseFile, StandardOpenOption.WRITE)) {
+                final FileChannelSubscriber fileSubscriber = new FileChannelSubscriber(fileChannel,
+                        REQUEST_BATCH_SIZE);
+                start = Instant.now();
+                final long written = httpClient.send(createStreamRequest(requestFile),
+                        BodyHandlers.fromSubscriber(fileSubscriber, subscriber -> subscriber.getResult().join()))
+                        .body();
+                Printer.printf("receiveLargeResponseUsingByteBufferSubscribers(): written[%s bytes], %s",
+                        Utils.formatNumber(written), formatThroughput(requestSize, start, Instant.now()));
+            }
+            Printer.printf("receiveLargeResponseUsingByteBufferSubscribers(): checksum matches[%b]",
+                    expectedChecksum == checksum(responseFile));
+            httpServer.stop(0);
+            Files.delete(requestFile);
+            Files.delete(responseFile);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();// Preserve interrupt status
+            Printer.printInterruptedException(e);
+            System.exit(1);
+        } catch (IOException e) {
+            Printer.printIOException(e);
+            System.exit(1);
+        }
+        Printer.printHor();
+    }
+
+    /**
+     * Creates the request which streams the file to the '/stream' context.
+     *
+     * @param requestFile the request file
+     * @return the {@link HttpRequest}
+     * @throws IOException if the file is not found
+     */
+    private static HttpRequest createStreamRequest(Path requestFile) throws IOException {
+
+        return HttpRequest.newBuilder(STREAM_URI)
+                .header("Content-Type", "text/plain; charset=UTF-8")
+                .POST(BodyPublishers.ofFile(requestFile)).build();
+    }
+
+    /**
+     * Formats the throughput.
+     *
+     * @param bytes  the number of the transferred bytes
+     * @param start  the start instant
+     * @param finish the finish instant
+     * @return the formatted throughput
+     */
+    private static String formatThroughput(long bytes, Instant start, Instant finish) {
+
+        final double seconds = Math.max(1, Duration.between(start, finish).toNanos()) / NANOS_PER_SECOND;
+        return "throughput[%.1f MB/s], %s".formatted(bytes / (double) BYTES_PER_MEGABYTE / seconds,
+                Utils.formatElapsed(start, finish));
+    }
+
+    /**
+     * Writes the request file with the random lines of the lowercase letters, every line begins with the euro sign.
+     *
+     * @param requestFile the request file
+     * @return the checksum of the expected response (the request in uppercase)
+     * @throws IOException if an I/O error occurs
+     */
+    private static long writeRequestFile(Path requestFile) throws IOException {
+
+        final SplittableRandom random = new SplittableRandom();
+        final CRC32 crc32 = new CRC32();
+        final byte[] block = new byte[BYTES_PER_MEGABYTE];
+        try (FileChannel fileChannel = FileChannel.open(requestFile, StandardOpenOption.WRITE)) {
+            for (long megabyte = 0; megabyte < STREAM_MEGABYTES; megabyte++) {
+                for (int i = 0; i < block.length; i++) {
+                    final int column = (int) ((megabyte * block.length + i) % LINE_LENGTH);
+                    if (column < EURO_SIGN.length) {
+                        block[i] = EURO_SIGN[column];
+                    } else {
+                        block[i] = column == LINE_LENGTH - 1 ? (byte) '\n' : (byte) ('a' + random.nextInt(26));
+                    }
+                }
+                fileChannel.write(ByteBuffer.wrap(block));
+                toUpperCase(block, block.length);
+                crc32.update(block);
+            }
+        }
+        return crc32.getValue();
+    }
+
+    /**
+     * Computes the checksum of the file.
+     *
+     * @param file the file
+     * @return the checksum
+     * @throws IOException if an I/O error occurs
+     */
+    private static long checksum(Path file) throws IOException {
+
+        final CRC32 crc32 = new CRC32();
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BYTES_PER_MEGABYTE);
+        try (FileChannel fileChannel = FileChannel.open(file)) {
+            while (fileChannel.read(buffer.clear()) >= 0) {
+                crc32.update(buffer.flip());
+            }
+        }
+        return crc32.getValue();
+    }
+
     /**
      * Starts the {@link HttpServer}.
      *
@@ -135,6 +353,7 @@ public class WebFlowLauncher {
 
         final HttpServer httpServer = HttpServer.create(new InetSocketAddress(PORT), 0);
         httpServer.createContext("/", WebFlowLauncher::handle);
+        httpServer.createContext("/stream", WebFlowLauncher::handleStreaming);
         httpServer.start();
         Printer.printf("startServer(): uri[%s]", LOCAL_URI);
         return httpServer;
@@ -167,4 +386,74 @@ public class WebFlowLauncher {
         }
         Printer.printf("handle(): received request[%s], sent response[%s]", requestText, responseText);
     }
+
+    /**
+     * Handles the response on the {@link HttpServer} in the streaming mode.
+     * <p>
+     * The request body is read in the bounded chunks, every chunk is transformed to uppercase and appended
+     * to the spool file. Then the spool file is sent back in the same chunks. The zero length passed to
+     * {@link HttpExchange#sendResponseHeaders} selects the chunked transfer encoding.
+     * The memory use does not depend on the body size.
+     * </p>
+     * <p>
+     * The response is not written while the request is being read: the HTTP/1.1 {@link HttpClient}
+     * reads the response only after it has sent the whole request body, and both sides would block
+     * on the full socket buffers.
+     * </p>
+     *
+     * @param httpExchange the {@link HttpExchange}
+     * @throws IOException if an I/O error occurs
+     */
+    private static void handleStreaming(HttpExchange httpExchange) throws IOException {
+
+        final byte[] chunk = new byte[CHUNK_SIZE];
+        final Path spoolFile = Files.createTempFile(Path.of(System.getProperty("java.io.tmpdir")), "spool", ".txt");
+        long transferred = 0;
+        long chunks = 0;
+        try (httpExchange; FileChannel spoolChannel = FileChannel.open(spoolFile, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE)) {
+            try (InputStream inputStream = httpExchange.getRequestBody()) {
+                int length;
+                while ((length = inputStream.read(chunk)) >= 0) {
+                    toUpperCase(chunk, length);
+                    final ByteBuffer buffer = ByteBuffer.wrap(chunk, 0, length);
+                    while (buffer.hasRemaining()) {
+                        spoolChannel.write(buffer);
+                    }
+                    transferred += length;
+                    chunks++;
+                }
+            }
+            httpExchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+            httpExchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, 0);
+            try (OutputStream outputStream = httpExchange.getResponseBody()) {
+                final ByteBuffer buffer = ByteBuffer.wrap(chunk);
+                spoolChannel.position(0);
+                while (spoolChannel.read(buffer.clear()) >= 0) {
+                    outputStream.write(chunk, 0, buffer.position());
+                }
+            }
+        }
+        Printer.printf("handleStreaming(): transformed[%s bytes], chunks[%s]", Utils.formatNumber(transferred),
+                Utils.formatNumber(chunks));
+    }
+
+    /**
+     * Transforms the ASCII lowercase letters to uppercase.
+     * <p>
+     * The bytes of the multibyte UTF-8 sequences are never in the ASCII range,
+     * so the chunk boundaries do not need any state.
+     * </p>
+     *
+     * @param bytes  the bytes
+     * @param length the number of bytes to transform
+     */
+    private static void toUpperCase(byte[] bytes, int length) {
+
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] >= 'a' && bytes[i] <= 'z') {
+                bytes[i] -= 'a' - 'A';
+            }
+        }
+    }
 }
@@ -0,0 +1,377 @@
+package kp.reactive.streams.ext;
+
+import kp.utils.Printer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow.Publisher;
+import java.util.concurrent.Flow.Subscriber;
+import java.util.concurrent.Flow.Subscription;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * The periodic publisher scheduled on the shared {@link TimerWheel}.
+ * <p>
+ * Unlike the {@link PeriodicPublisher}, it has no thread of its own: thousands of publishers share
+ * one wheel thread. The wheel thread never blocks on a slow subscriber. Every subscriber has its own
+ * bounded buffer, the items which do not fit are handled with the {@link OverflowPolicy},
+ * and the items are delivered on the executor.
+ * </p>
+ * <p>
+ * When several periods are due at once, the items for all of them are supplied and delivered as one batch.
+ * </p>
+ *
+ * @param <T> the published item type
+ */
+public final class SharedPeriodicPublisher<T> implements Publisher<T>, AutoCloseable {
+
+    /**
+     * The policy for the item which does not fit into the subscriber buffer.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Drops the oldest buffered item.
+         */
+        DROP_OLDEST,
+        /**
+         * Drops the new item.
+         */
+        DROP_NEWEST,
+        /**
+         * Keeps only the latest item (conflation), the buffer capacity is not used.
+         */
+        LATEST
+    }
+
+    private final Supplier<? extends T> supplier;
+    private final OverflowPolicy overflowPolicy;
+    private final int bufferCapacity;
+    private final Executor executor;
+    private final List<PeriodicSubscription<T>> subscriptions = new CopyOnWriteArrayList<>();
+    private final TimerWheel.Timeout timeout;
+    /**
+     * The failure of the supplier, it is set before the closed flag.
+     */
+    private volatile Throwable failure;
+    private volatile boolean closed;
+
+    /**
+     * The constructor with the common pool executor.
+     *
+     * @param timerWheel     the shared {@link TimerWheel}
+     * @param supplier       the {@link Supplier}
+     * @param period         the period
+     * @param unit           the {@link TimeUnit}
+     * @param overflowPolicy the {@link OverflowPolicy}
+     * @param bufferCapacity the capacity of the subscriber buffer
+     */
+    public SharedPeriodicPublisher(TimerWheel timerWheel, Supplier<? extends T> supplier, long period, TimeUnit unit,
+                                   OverflowPolicy overflowPolicy, int bufferCapacity) {
+        this(timerWheel, supplier, period, unit, overflowPolicy, bufferCapacity, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param timerWheel     the shared {@link TimerWheel}
+     * @param supplier       the {@link Supplier}, it is called on the wheel thread
+     * @param period         the period
+     * @param unit           the {@link TimeUnit}
+     * @param overflowPolicy the {@link OverflowPolicy}
+     * @param bufferCapacity the capacity of the subscriber buffer
+     * @param executor       the {@link Executor} delivering the items to the subscribers
+     */
+    public SharedPeriodicPublisher(TimerWheel timerWheel, Supplier<? extends T> supplier, long period, TimeUnit unit,
+                                   OverflowPolicy overflowPolicy, int bufferCapacity, Executor executor) {
+
+        if (bufferCapacity <= 0) {
+            throw new IllegalArgumentException("buffer capacity must be positive");
+        }
+        this.supplier = Objects.requireNonNull(supplier);
+        this.overflowPolicy = Objects.requireNonNull(overflowPolicy);
+        this.bufferCapacity = bufferCapacity;
+        this.executor = Objects.requireNonNull(executor);
+        this.timeout = timerWheel.schedulePeriodic(this::emit, period, unit);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The subscriber is registered after the {@code onSubscribe} signal (rule 1.9).
+     * The subscriber arriving after the publisher was closed or failed is terminated at once.
+     * </p>
+     */
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+
+        final PeriodicSubscription<T> subscription = new PeriodicSubscription<>(Objects.requireNonNull(subscriber),
+                this);
+        subscriber.onSubscribe(subscription);
+        subscriptions.add(subscription);
+        if (subscription.cancelled) {
+            subscriptions.remove(subscription);
+            return;
+        }
+        // the registration and the flag are both volatile writes, so the close either sees
+        // this subscription or the flag is seen here (a repeated termination is harmless)
+        if (closed) {
+            terminate(subscription);
+        }
+    }
+
+    /**
+     * Gets the number of the items dropped for all current subscribers.
+     *
+     * @return the number of the dropped items
+     */
+    public long getDropped() {
+        return subscriptions.stream().mapToLong(subscription -> subscription.dropped.get()).sum();
+    }
+
+    /**
+     * Cancels the periodic task and completes the subscribers after their buffered items.
+     */
+    @Override
+    public void close() {
+
+        timeout.cancel();
+        closed = true;
+        subscriptions.forEach(PeriodicSubscription::complete);
+    }
+
+    /**
+     * Supplies the items for the due periods and offers them to every subscriber, runs on the wheel thread.
+     * <p>
+     * At most the buffer capacity of items is supplied, the older ones would be dropped anyway.
+     * </p>
+     *
+     * @param duePeriods the number of the due periods
+     */
+    private void emit(long duePeriods) {
+
+        final int count = (int) Math.min(duePeriods, bufferCapacity);
+        final List<T> batch = new ArrayList<>(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                batch.add(Objects.requireNonNull(supplier.get()));
+            }
+        } catch (RuntimeException e) {
+            timeout.cancel();
+            failure = e;
+            closed = true;
+            subscriptions.forEach(subscription -> subscription.fail(e));
+            return;
+        }
+        for (PeriodicSubscription<T> subscription : subscriptions) {
+            subscription.offer(batch);
+        }
+    }
+
+    /**
+     * Terminates the subscription of the closed publisher with the failure or with the completion.
+     *
+     * @param subscription the subscription
+     */
+    private void terminate(PeriodicSubscription<T> subscription) {
+
+        final Throwable throwable = failure;
+        if (Objects.nonNull(throwable)) {
+            subscription.fail(throwable);
+        } else {
+            subscription.complete();
+        }
+    }
+
+    /**
+     * The subscription with the bounded buffer and the serialized drain loop.
+     *
+     * @param <T> the published item type
+     */
+    private static final class PeriodicSubscription<T> implements Subscription, Runnable {
+
+        private final Subscriber<? super T> subscriber;
+        private final SharedPeriodicPublisher<T> publisher;
+        /**
+         * The buffered items, guarded by itself.
+         */
+        private final ArrayDeque<T> buffer = new ArrayDeque<>();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile boolean completed;
+        private volatile Throwable error;
+
+        /**
+         * The constructor.
+         *
+         * @param subscriber the {@link Subscriber}
+         * @param publisher  the {@link SharedPeriodicPublisher}
+         */
+        PeriodicSubscription(Subscriber<? super T> subscriber, SharedPeriodicPublisher<T> publisher) {
+
+            this.subscriber = subscriber;
+            this.publisher = publisher;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void request(long numberOfItems) {
+
+            if (numberOfItems <= 0) {
+                fail(new IllegalArgumentException("non-positive request[%d] (rule 3.9)".formatted(numberOfItems)));
+                return;
+            }
+            requested.accumulateAndGet(numberOfItems, (current, added) -> {
+                final long sum = current + added;
+                return sum < 0 ? Long.MAX_VALUE : sum;
+            });
+            schedule();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void cancel() {
+
+            cancelled = true;
+            publisher.subscriptions.remove(this);
+        }
+
+        /**
+         * Buffers the batch according to the overflow policy and schedules the delivery.
+         *
+         * @param batch the batch of the items
+         */
+        void offer(List<T> batch) {
+
+            synchronized (buffer) {
+                for (T item : batch) {
+                    switch (publisher.overflowPolicy) {
+                        case DROP_OLDEST -> {
+                            if (buffer.size() == publisher.bufferCapacity) {
+                                buffer.poll();
+                                dropped.incrementAndGet();
+                            }
+                            buffer.add(item);
+                        }
+                        case DROP_NEWEST -> {
+                            if (buffer.size() == publisher.bufferCapacity) {
+                                dropped.incrementAndGet();
+                            } else {
+                                buffer.add(item);
+                            }
+                        }
+                        case LATEST -> {
+                            dropped.addAndGet(buffer.size());
+                            buffer.clear();
+                            buffer.add(item);
+                        }
+                    }
+                }
+            }
+            schedule();
+        }
+
+        /**
+         * Completes the subscriber after the buffered items.
+         */
+        void complete() {
+
+            completed = true;
+            schedule();
+        }
+
+        /**
+         * Fails the subscriber, the buffered items are discarded.
+         *
+         * @param throwable the {@link Throwable}
+         */
+        void fail(Throwable throwable) {
+
+            error = throwable;
+            schedule();
+        }
+
+        /**
+         * Submits the drain loop to the executor unless it is already running.
+         */
+        private void schedule() {
+
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            try {
+                publisher.executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                cancel();
+                subscriber.onError(e);
+            }
+        }
+
+        /**
+         * Runs the drain loop.
+         */
+        @Override
+        public void run() {
+
+            int missed = 1;
+            while (true) {
+                if (cancelled) {
+                    return;
+                }
+                final Throwable throwable = error;
+                if (Objects.nonNull(throwable)) {
+                    cancel();
+                    subscriber.onError(throwable);
+                    return;
+                }
+                final long demand = requested.get();
+                final boolean terminated = completed;
+                long emitted = 0;
+                while (emitted != demand) {
+                    final T item;
+                    synchronized (buffer) {
+                        item = buffer.poll();
+                    }
+                    if (Objects.isNull(item)) {
+                        break;
+                    }
+                    subscriber.onNext(item);
+                    emitted++;
+                    if (cancelled) {
+                        return;
+                    }
+                }
+                if (emitted != 0 && demand != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+                final boolean empty;
+                synchronized (buffer) {
+                    empty = buffer.isEmpty();
+                }
+                if (terminated && empty) {
+                    cancel();
+                    subscriber.onComplete();
+                    return;
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package kp.reactive.streams.ext;
+
+import kp.utils.Printer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+
+/**
+ * The hashed timer wheel for the periodic tasks, shared by many publishers.
+ * <p>
+ * One thread advances the wheel every tick and runs the tasks whose deadline tick has passed.
+ * The task is kept in the bucket of its deadline tick, so one tick visits only one bucket.
+ * When the wheel thread falls behind (e.g. after the long pause), all ticks the task missed
+ * are reported to it at once as the number of the due periods.
+ * </p>
+ * <p>
+ * The tasks run on the wheel thread and must not block.
+ * </p>
+ */
+public final class TimerWheel implements AutoCloseable {
+
+    private static final long DEFAULT_TICK_MILLIS = 1;
+    private static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private final long tickNanos;
+    private final int mask;
+    private final List<ArrayDeque<Timeout>> buckets;
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final long startNanos = System.nanoTime();
+    private final Thread wheelThread;
+    private volatile boolean closed;
+    /**
+     * The last processed tick, read and written only by the wheel thread.
+     */
+    private long processedTick = -1;
+
+    /**
+     * The constructor with the 1-millisecond tick and 512 buckets.
+     */
+    public TimerWheel() {
+        this(DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param tickDuration the tick duration
+     * @param unit         the {@link TimeUnit} of the tick duration
+     * @param wheelSize    the number of the buckets, the power of two
+     */
+    public TimerWheel(long tickDuration, TimeUnit unit, int wheelSize) {
+
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tick duration must be positive");
+        }
+        if (wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("wheel size must be the power of two");
+        }
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.mask = wheelSize - 1;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayDeque<>());
+        }
+        this.wheelThread = Thread.ofPlatform().name("timer-wheel").daemon().start(this::run);
+        Printer.printf("TimerWheel(): tick[%d ns], wheel size[%d]", tickNanos, wheelSize);
+    }
+
+    /**
+     * Schedules the periodic task, the first run is on the next tick.
+     * <p>
+     * The task receives the number of the periods which are due, it is more than one
+     * when the wheel thread was late.
+     * </p>
+     *
+     * @param task   the task receiving the number of the due periods
+     * @param period the period, rounded up to the whole ticks
+     * @param unit   the {@link TimeUnit} of the period
+     * @return the {@link Timeout} for the cancellation
+     */
+    public Timeout schedulePeriodic(LongConsumer task, long period, TimeUnit unit) {
+
+        if (closed) {
+            throw new IllegalStateException("timer wheel closed");
+        }
+        if (period <= 0) {
+            throw new IllegalArgumentException("period must be positive");
+        }
+        final long periodTicks = Math.max(1, (unit.toNanos(period) + tickNanos - 1) / tickNanos);
+        final Timeout timeout = new Timeout(Objects.requireNonNull(task), periodTicks);
+        pending.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Stops the wheel thread, the scheduled tasks do not run anymore.
+     */
+    @Override
+    public void close() {
+
+        closed = true;
+        LockSupport.unpark(wheelThread);
+        try {
+            wheelThread.join();
+        } catch (InterruptedException e) {
+            Printer.printInterruptedException(e);
+            Thread.currentThread().interrupt();// Preserve interrupt status
+        }
+        Printer.print("TimerWheel.close():");
+    }
+
+    /**
+     * Runs the wheel loop.
+     */
+    private void run() {
+
+        while (!closed) {
+            final long currentTick = (System.nanoTime() - startNanos) / tickNanos;
+            registerPending();
+            // after the long pause every bucket is visited once
+            final long firstTick = Math.max(processedTick + 1, currentTick - mask);
+            for (long tick = firstTick; tick <= currentTick; tick++) {
+                processBucket(tick, currentTick);
+            }
+            processedTick = currentTick;
+            final long nextTickNanos = startNanos + (currentTick + 1) * tickNanos;
+            LockSupport.parkNanos(nextTickNanos - System.nanoTime());
+        }
+    }
+
+    /**
+     * Moves the newly scheduled tasks into the buckets of their first deadline.
+     */
+    private void registerPending() {
+
+        Timeout timeout;
+        while (Objects.nonNull(timeout = pending.poll())) {
+            timeout.deadlineTick = processedTick + 1;
+            buckets.get((int) (timeout.deadlineTick & mask)).add(timeout);
+        }
+    }
+
+    /**
+     * Runs the due tasks of the bucket and moves them to the bucket of their next deadline.
+     *
+     * @param tick        the tick of the bucket
+     * @param currentTick the current tick
+     */
+    private void processBucket(long tick, long currentTick) {
+
+        final ArrayDeque<Timeout> bucket = buckets.get((int) (tick & mask));
+        for (int remaining = bucket.size(); remaining > 0; remaining--) {
+            final Timeout timeout = bucket.poll();
+            if (timeout.cancelled) {
+                continue;
+            }
+            if (timeout.deadlineTick > currentTick) {
+                // the deadline is in the next revolution of the wheel
+                bucket.add(timeout);
+                continue;
+            }
+            final long duePeriods = 1 + (currentTick - timeout.deadlineTick) / timeout.periodTicks;
+            try {
+                timeout.task.accept(duePeriods);
+            } catch (RuntimeException e) {
+                Printer.printException("TimerWheel.processBucket(): task failed, cancelled", e);
+                timeout.cancel();
+                continue;
+            }
+            timeout.deadlineTick += duePeriods * timeout.periodTicks;
+            buckets.get((int) (timeout.deadlineTick & mask)).add(timeout);
+        }
+    }
+
+    /**
+     * The scheduled periodic task.
+     */
+    public static final class Timeout {
+
+        private final LongConsumer task;
+        private final long periodTicks;
+        /**
+         * The deadline tick, read and written only by the wheel thread.
+         */
+        private long deadlineTick;
+        private volatile boolean cancelled;
+
+        /**
+         * The constructor.
+         *
+         * @param task        the task receiving the number of the due periods
+         * @param periodTicks the period in the ticks
+         */
+        private Timeout(LongConsumer task, long periodTicks) {
+
+            this.task = task;
+            this.periodTicks = periodTicks;
+        }
+
+        /**
+         * Cancels the task, it is removed from the wheel when its bucket is visited.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package kp.reactive.streams.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow.Subscriber;
+import java.util.concurrent.Flow.Subscription;
+
+/**
+ * The base of the {@link Subscriber}s for the {@link ByteBuffer} list which consume the buffers in place.
+ * <p>
+ * It requests the configured batch of the lists at first and requests the half of the batch again
+ * whenever the half of the batch has been consumed. The outstanding demand stays between the half
+ * and the whole batch, so the publisher neither stalls nor buffers more than the batch.
+ * </p>
+ * <p>
+ * It can be used with the {@link java.net.http.HttpResponse.BodyHandlers#fromSubscriber} with the finisher
+ * {@code subscriber -> subscriber.getResult().join()}.
+ * </p>
+ *
+ * @param <R> the result type
+ */
+public abstract class ByteBufferListSubscriber<R> implements Subscriber<List<ByteBuffer>> {
+
+    private final int requestBatchSize;
+    private final int replenishSize;
+    private final CompletableFuture<R> result = new CompletableFuture<>();
+    private Subscription subscription;
+    private int consumedSinceRequest;
+    private boolean failed;
+
+    /**
+     * The constructor.
+     *
+     * @param requestBatchSize the number of the lists requested at first
+     */
+    protected ByteBufferListSubscriber(int requestBatchSize) {
+
+        if (requestBatchSize <= 0) {
+            throw new IllegalArgumentException("request batch size must be positive");
+        }
+        this.requestBatchSize = requestBatchSize;
+        this.replenishSize = Math.max(1, requestBatchSize / 2);
+    }
+
+    /**
+     * Gets the result, it is completed after the last buffer.
+     *
+     * @return the result future
+     */
+    public CompletableFuture<R> getResult() {
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onSubscribe(Subscription subscriptionParam) {
+
+        if (Objects.nonNull(subscription)) {
+            // only one subscription (rule 2.5)
+            subscriptionParam.cancel();
+            return;
+        }
+        subscription = subscriptionParam;
+        subscription.request(requestBatchSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onNext(List<ByteBuffer> byteBufferList) {
+
+        if (failed) {
+            return;
+        }
+        try {
+            consume(byteBufferList);
+        } catch (IOException | RuntimeException e) {
+            failed = true;
+            subscription.cancel();
+            result.completeExceptionally(e);
+            return;
+        }
+        if (++consumedSinceRequest == replenishSize) {
+            consumedSinceRequest = 0;
+            subscription.request(replenishSize);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onError(Throwable throwable) {
+        result.completeExceptionally(throwable);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onComplete() {
+
+        if (failed) {
+            return;
+        }
+        try {
+            result.complete(finish());
+        } catch (IOException | RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Consumes the buffers, the buffers are not used after the return.
+     *
+     * @param byteBufferList the {@link ByteBuffer} list
+     * @throws IOException if an I/O error occurs
+     */
+    protected abstract void consume(List<ByteBuffer> byteBufferList) throws IOException;
+
+    /**
+     * Finishes the consumption after the last buffer.
+     *
+     * @return the result
+     * @throws IOException if an I/O error occurs
+     */
+    protected abstract R finish() throws IOException;
+}
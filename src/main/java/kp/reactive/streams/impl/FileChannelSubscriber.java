@@ -0,0 +1,69 @@
+package kp.reactive.streams.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The {@link ByteBufferListSubscriber} which writes the buffers to the {@link FileChannel}.
+ * <p>
+ * Every list is written with the gathering write, one system call for all its buffers.
+ * The channel is opened and closed by the caller. The result is the number of the written bytes.
+ * </p>
+ */
+public class FileChannelSubscriber extends ByteBufferListSubscriber<Long> {
+
+    private final FileChannel fileChannel;
+    private ByteBuffer[] gathered = new ByteBuffer[0];
+    private long written;
+
+    /**
+     * The constructor.
+     *
+     * @param fileChannel      the {@link FileChannel} opened for writing
+     * @param requestBatchSize the number of the lists requested at first
+     */
+    public FileChannelSubscriber(FileChannel fileChannel, int requestBatchSize) {
+
+        super(requestBatchSize);
+        this.fileChannel = Objects.requireNonNull(fileChannel);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void consume(List<ByteBuffer> byteBufferList) throws IOException {
+
+        final int count = byteBufferList.size();
+        if (count == 0) {
+            return;
+        }
+        if (gathered.length < count) {
+            gathered = new ByteBuffer[count];
+        }
+        long remaining = 0;
+        for (int i = 0; i < count; i++) {
+            gathered[i] = byteBufferList.get(i);
+            remaining += gathered[i].remaining();
+        }
+        while (remaining > 0) {
+            final long bytes = fileChannel.write(gathered, 0, count);
+            remaining -= bytes;
+            written += bytes;
+        }
+        // does not keep the buffers of the publisher
+        Arrays.fill(gathered, 0, count, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Long finish() {
+        return written;
+    }
+}
@@ -0,0 +1,300 @@
+package kp.reactive.streams.impl;
+
+import kp.utils.Printer;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Flow.Publisher;
+import java.util.concurrent.Flow.Subscriber;
+import java.util.concurrent.Flow.Subscription;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@link Publisher} of the {@link Iterable} items with the back pressure.
+ * <p>
+ * Every subscriber gets its own iterator. The outstanding demand is tracked with the lock-free counter,
+ * the items are emitted in the serialized drain loop running on the executor.
+ * One run of the drain loop emits up to the batch size of items, then it is resubmitted to the executor
+ * so that the other tasks of the shared executor are not starved.
+ * </p>
+ * <p>
+ * The rules of the Reactive Streams specification:
+ * <ul>
+ * <li>the signals to one subscriber are serialized, 'onNext' is never called reentrantly from 'request'
+ * <li>the demand is added up to {@link Long#MAX_VALUE}, which is treated as unbounded
+ * <li>the non-positive request is signalled with the {@link IllegalArgumentException} (rule 3.9)
+ * <li>the cancelled subscription drops the references to the subscriber and the iterator (rule 3.13)
+ * <li>the failure of the iterator is signalled with 'onError'
+ * </ul>
+ *
+ * @param <T> the published item type
+ */
+public class IterablePublisher<T> implements Publisher<T> {
+
+    private final Iterable<? extends T> source;
+    private final Executor executor;
+    private final int batchSize;
+
+    /**
+     * The constructor with the common pool executor and the default batch size.
+     *
+     * @param source the {@link Iterable} with the items
+     */
+    public IterablePublisher(Iterable<? extends T> source) {
+        this(source, ForkJoinPool.commonPool(), Flow.defaultBufferSize());
+    }
+
+    /**
+     * The constructor.
+     * <p>
+     * The executor should run the tasks asynchronously. With the synchronous executor
+     * the resubmitted drain loop nests one stack frame per batch.
+     * </p>
+     *
+     * @param source    the {@link Iterable} with the items
+     * @param executor  the {@link Executor} for the drain loop
+     * @param batchSize the maximum number of items emitted in one run of the drain loop
+     */
+    public IterablePublisher(Iterable<? extends T> source, Executor executor, int batchSize) {
+
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batch size must be positive");
+        }
+        this.source = Objects.requireNonNull(source);
+        this.executor = Objects.requireNonNull(executor);
+        this.batchSize = batchSize;
+        Printer.printf("IterablePublisher(): batch size[%d]", batchSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+
+        Objects.requireNonNull(subscriber);
+        final Iterator<? extends T> iterator;
+        try {
+            iterator = source.iterator();
+        } catch (RuntimeException e) {
+            subscriber.onSubscribe(new IterableSubscription<>(null, null, executor, batchSize));
+            subscriber.onError(e);
+            return;
+        }
+        final IterableSubscription<T> subscription =
+                new IterableSubscription<>(subscriber, iterator, executor, batchSize);
+        subscriber.onSubscribe(subscription);
+        // completes the empty source without any demand
+        subscription.schedule();
+    }
+
+    /**
+     * The subscription with the demand counter and the drain loop.
+     *
+     * @param <T> the published item type
+     */
+    private static final class IterableSubscription<T> implements Subscription, Runnable {
+
+        private final Executor executor;
+        private final int batchSize;
+        private final AtomicLong requested = new AtomicLong();
+        /**
+         * The number of the drain requests, the thread which increments it from zero owns the drain loop.
+         */
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile IllegalArgumentException badRequest;
+        private Subscriber<? super T> subscriber;
+        private Iterator<? extends T> iterator;
+
+        /**
+         * The constructor.
+         *
+         * @param subscriber the {@link Subscriber}, null for the already failed subscription
+         * @param iterator   the {@link Iterator}, null for the already failed subscription
+         * @param executor   the {@link Executor} for the drain loop
+         * @param batchSize  the maximum number of items emitted in one run of the drain loop
+         */
+        IterableSubscription(Subscriber<? super T> subscriber, Iterator<? extends T> iterator, Executor executor,
+                             int batchSize) {
+
+            this.subscriber = subscriber;
+            this.iterator = iterator;
+            this.executor = executor;
+            this.batchSize = batchSize;
+            this.cancelled = Objects.isNull(subscriber);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void request(long numberOfItems) {
+
+            if (numberOfItems <= 0) {
+                badRequest = new IllegalArgumentException(
+                        "non-positive request[%d] (rule 3.9)".formatted(numberOfItems));
+            } else {
+                requested.accumulateAndGet(numberOfItems, IterableSubscription::addCapped);
+            }
+            schedule();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void cancel() {
+
+            cancelled = true;
+            schedule();
+        }
+
+        /**
+         * Submits the drain loop to the executor unless it is already running.
+         */
+        void schedule() {
+
+            if (wip.getAndIncrement() == 0) {
+                execute();
+            }
+        }
+
+        /**
+         * Submits the drain loop to the executor, the rejected submission is signalled with 'onError'.
+         */
+        private void execute() {
+
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                final Subscriber<? super T> rejected = subscriber;
+                cancelled = true;
+                release();
+                if (Objects.nonNull(rejected)) {
+                    rejected.onError(e);
+                }
+            }
+        }
+
+        /**
+         * Runs the drain loop.
+         */
+        @Override
+        public void run() {
+
+            int missed = 1;
+            int budget = batchSize;
+            while (true) {
+                if (isTerminated()) {
+                    return;
+                }
+                final long demand = requested.get();
+                long emitted = 0;
+                while (emitted != demand && budget > 0) {
+                    final T item;
+                    try {
+                        if (!iterator.hasNext()) {
+                            break;
+                        }
+                        item = Objects.requireNonNull(iterator.next(), "null item (rule 2.13)");
+                    } catch (RuntimeException e) {
+                        final Subscriber<? super T> failed = subscriber;
+                        cancelled = true;
+                        release();
+                        failed.onError(e);
+                        return;
+                    }
+                    subscriber.onNext(item);
+                    emitted++;
+                    budget--;
+                    if (cancelled) {
+                        release();
+                        return;
+                    }
+                }
+                if (emitted != 0 && demand != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+                if (isTerminated()) {
+                    return;
+                }
+                if (budget == 0) {
+                    // yields the executor, the drain loop keeps its ownership
+                    execute();
+                    return;
+                }
+                if (requested.get() != 0) {
+                    continue;
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Checks the cancellation, the bad request and the end of the items, signals the terminal event.
+         *
+         * @return true if the subscription is terminated
+         */
+        private boolean isTerminated() {
+
+            if (cancelled) {
+                release();
+                return true;
+            }
+            final IllegalArgumentException exception = badRequest;
+            final boolean completed;
+            try {
+                completed = Objects.isNull(exception) && !iterator.hasNext();
+            } catch (RuntimeException e) {
+                final Subscriber<? super T> failed = subscriber;
+                cancelled = true;
+                release();
+                failed.onError(e);
+                return true;
+            }
+            if (Objects.isNull(exception) && !completed) {
+                return false;
+            }
+            final Subscriber<? super T> terminated = subscriber;
+            cancelled = true;
+            release();
+            if (Objects.nonNull(exception)) {
+                terminated.onError(exception);
+            } else {
+                terminated.onComplete();
+            }
+            return true;
+        }
+
+        /**
+         * Drops the references to the subscriber and the iterator.
+         */
+        private void release() {
+
+            subscriber = null;
+            iterator = null;
+        }
+
+        /**
+         * Adds the demand, the sum is capped at {@link Long#MAX_VALUE}.
+         *
+         * @param current the current demand
+         * @param added   the added demand
+         * @return the sum
+         */
+        private static long addCapped(long current, long added) {
+
+            final long sum = current + added;
+            return sum < 0 ? Long.MAX_VALUE : sum;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package kp.reactive.streams.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * The {@link ByteBufferListSubscriber} which decodes the UTF-8 bytes and splits them into the lines.
+ * <p>
+ * The line is terminated with '\n' or "\r\n", the terminator is not passed to the consumer.
+ * The consumer receives the {@link CharSequence} view of the line, it is valid only until the consumer returns.
+ * The line inside the decoded characters is passed as the slice without copying. Only the line
+ * split between the decoded chunks is collected in the reusable line buffer.
+ * The result is the number of the lines.
+ * </p>
+ */
+public class LineSplittingSubscriber extends ByteBufferListSubscriber<Long> {
+
+    private static final int CHAR_BUFFER_SIZE = 8 * 1024;
+    private static final int INITIAL_LINE_BUFFER_SIZE = 256;
+
+    private final Consumer<? super CharSequence> consumer;
+    private final Utf8Decoder utf8Decoder = new Utf8Decoder(CHAR_BUFFER_SIZE);
+    /**
+     * The beginning of the line split between the decoded chunks.
+     */
+    private CharBuffer lineBuffer = CharBuffer.allocate(INITIAL_LINE_BUFFER_SIZE);
+    private long lines;
+
+    /**
+     * The constructor.
+     *
+     * @param consumer         the consumer of the lines
+     * @param requestBatchSize the number of the lists requested at first
+     */
+    public LineSplittingSubscriber(Consumer<? super CharSequence> consumer, int requestBatchSize) {
+
+        super(requestBatchSize);
+        this.consumer = Objects.requireNonNull(consumer);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void consume(List<ByteBuffer> byteBufferList) throws IOException {
+
+        for (ByteBuffer byteBuffer : byteBufferList) {
+            utf8Decoder.decode(byteBuffer, this::split);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The last line without the terminator is passed to the consumer.
+     * </p>
+     */
+    @Override
+    protected Long finish() throws IOException {
+
+        utf8Decoder.finish();
+        if (lineBuffer.position() > 0) {
+            emit(lineBuffer.flip());
+            lineBuffer.clear();
+        }
+        return lines;
+    }
+
+    /**
+     * Splits the decoded characters into the lines.
+     *
+     * @param chars the decoded characters
+     */
+    private void split(CharBuffer chars) {
+
+        while (chars.hasRemaining()) {
+            final int start = chars.position();
+            int newline = start;
+            while (newline < chars.limit() && chars.get(newline) != '\n') {
+                newline++;
+            }
+            if (newline == chars.limit()) {
+                appendToLineBuffer(chars);
+                return;
+            }
+            final CharBuffer line = chars.slice(start, newline - start);
+            chars.position(newline + 1);
+            if (lineBuffer.position() > 0) {
+                appendToLineBuffer(line);
+                emit(lineBuffer.flip());
+                lineBuffer.clear();
+            } else {
+                emit(line);
+            }
+        }
+    }
+
+    /**
+     * Passes the line without the trailing '\r' to the consumer.
+     *
+     * @param line the line
+     */
+    private void emit(CharBuffer line) {
+
+        final int length = line.remaining();
+        final boolean carriageReturn = length > 0 && line.get(line.limit() - 1) == '\r';
+        consumer.accept(carriageReturn ? line.slice(line.position(), length - 1) : line);
+        lines++;
+    }
+
+    /**
+     * Appends the characters to the line buffer, the line buffer is enlarged when needed.
+     *
+     * @param chars the characters
+     */
+    private void appendToLineBuffer(CharBuffer chars) {
+
+        if (lineBuffer.remaining() < chars.remaining()) {
+            final int capacity = Math.max(2 * lineBuffer.capacity(), lineBuffer.position() + chars.remaining());
+            lineBuffer = CharBuffer.allocate(capacity).put(lineBuffer.flip());
+        }
+        lineBuffer.put(chars);
+    }
+}
@@ -0,0 +1,483 @@
+package kp.reactive.streams.impl;
+
+import kp.utils.Printer;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.Flow.Processor;
+import java.util.concurrent.Flow.Subscriber;
+import java.util.concurrent.Flow.Subscription;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * The {@link Processor} backed by the preallocated ring buffer.
+ * <p>
+ * The producers (the upstream 'onNext' or the {@link #offer} callers) publish the items into the ring buffer
+ * slots, the consumer thread of the stage applies the function and delivers the items to the downstream
+ * subscriber. The hand-off between the stages does not submit any task to an executor.
+ * </p>
+ * <p>
+ * The sequences are the padded counters accessed with the {@link VarHandle} acquire/release modes:
+ * <ul>
+ * <li>{@link Sequencing#SINGLE_PRODUCER}: the producer publishes with the release store of its cursor
+ * <li>{@link Sequencing#MULTI_PRODUCER}: the producers claim the slots with the atomic increment
+ * and publish every slot with the release store of its availability flag
+ * </ul>
+ * The consumer takes all available items up to the batch size at once, it releases their slots
+ * and requests them again from the upstream once per batch.
+ * </p>
+ * <p>
+ * The upstream is requested for the ring buffer capacity, so the upstream 'onNext' never waits for a slot.
+ * The {@link #offer} caller waits with the {@link WaitStrategy} while the ring buffer is full.
+ * </p>
+ *
+ * @param <S> the subscribed item type
+ * @param <T> the published item type
+ */
+public class RingBufferProcessor<S, T> implements Processor<S, T> {
+
+    /**
+     * The producer sequencing.
+     */
+    public enum Sequencing {
+        /**
+         * Only one thread publishes the items.
+         */
+        SINGLE_PRODUCER,
+        /**
+         * Many threads publish the items.
+         */
+        MULTI_PRODUCER
+    }
+
+    /**
+     * The strategy of waiting for the items, the demand or the free slots.
+     */
+    public enum WaitStrategy {
+        /**
+         * Spins with {@link Thread#onSpinWait()}, the lowest latency, it occupies the core.
+         * Use it only when every spinning thread has its own core.
+         */
+        BUSY_SPIN,
+        /**
+         * Spins for a while, then yields the core.
+         */
+        YIELD,
+        /**
+         * Spins, yields, then parks for the short time, the highest latency and the lowest CPU use.
+         */
+        PARK;
+
+        private static final int SPIN_TRIES = 100;
+        private static final int YIELD_TRIES = 100;
+        private static final long PARK_NANOS = 50_000;
+
+        /**
+         * Waits once.
+         *
+         * @param counter the number of the previous waits
+         */
+        void idle(int counter) {
+
+            if (this == BUSY_SPIN || counter < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else if (this == YIELD || counter < SPIN_TRIES + YIELD_TRIES) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+    }
+
+    private static final AtomicInteger STAGE_NUMBER = new AtomicInteger();
+    private static final VarHandle AVAILABILITY = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final Function<? super S, ? extends T> function;
+    private final Sequencing sequencing;
+    private final WaitStrategy waitStrategy;
+    private final int batchSize;
+    private final int mask;
+    private final Object[] items;
+    /**
+     * The sequence published in the slot, used only with the {@link Sequencing#MULTI_PRODUCER}.
+     */
+    private final long[] availability;
+    /**
+     * The number of the published items, used only with the {@link Sequencing#SINGLE_PRODUCER}.
+     */
+    private final Sequence published = new Sequence();
+    /**
+     * The number of the claimed slots, used only with the {@link Sequencing#MULTI_PRODUCER}.
+     */
+    private final Sequence claimed = new Sequence();
+    /**
+     * The number of the consumed items, the slots below it are free.
+     */
+    private final Sequence consumed = new Sequence();
+    private final AtomicLong requested = new AtomicLong();
+    /**
+     * The last read value of the consumed sequence, read and written only by the single producer.
+     */
+    private long cachedConsumed;
+    private volatile Subscription upstream;
+    private volatile Subscriber<? super T> downstream;
+    private volatile boolean done;
+    private volatile Throwable error;
+    private volatile boolean cancelled;
+    private volatile IllegalArgumentException badRequest;
+
+    /**
+     * The constructor.
+     *
+     * @param function     the {@link Function} applied on the consumer thread
+     * @param capacity     the ring buffer capacity, the power of two
+     * @param sequencing   the {@link Sequencing}
+     * @param waitStrategy the {@link WaitStrategy}
+     * @param batchSize    the maximum number of items delivered in one batch
+     */
+    public RingBufferProcessor(Function<? super S, ? extends T> function, int capacity, Sequencing sequencing,
+                               WaitStrategy waitStrategy, int batchSize) {
+
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be the power of two");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batch size must be positive");
+        }
+        this.function = Objects.requireNonNull(function);
+        this.sequencing = Objects.requireNonNull(sequencing);
+        this.waitStrategy = Objects.requireNonNull(waitStrategy);
+        this.batchSize = batchSize;
+        this.mask = capacity - 1;
+        this.items = new Object[capacity];
+        if (sequencing == Sequencing.MULTI_PRODUCER) {
+            this.availability = new long[capacity];
+            Arrays.fill(availability, -1);
+        } else {
+            this.availability = null;
+        }
+        Printer.printf("RingBufferProcessor(): capacity[%d], sequencing[%s], wait strategy[%s], batch size[%d]",
+                capacity, sequencing, waitStrategy, batchSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onSubscribe(Subscription subscription) {
+
+        if (Objects.nonNull(upstream)) {
+            // only one upstream (rule 2.5)
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        if (cancelled) {
+            subscription.cancel();
+            return;
+        }
+        subscription.request(items.length);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onNext(S item) {
+        offer(item);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onError(Throwable throwable) {
+
+        error = Objects.requireNonNull(throwable);
+        done = true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onComplete() {
+        done = true;
+    }
+
+    /**
+     * Publishes the item, waits while the ring buffer is full.
+     * <p>
+     * With the {@link Sequencing#SINGLE_PRODUCER} this method and the 'onNext' must not be called concurrently.
+     * The item is dropped when the downstream has cancelled.
+     * </p>
+     *
+     * @param item the item
+     */
+    public void offer(S item) {
+
+        Objects.requireNonNull(item);
+        if (sequencing == Sequencing.SINGLE_PRODUCER) {
+            final long sequence = published.getPlain();
+            int counter = 0;
+            while (sequence - items.length >= cachedConsumed) {
+                cachedConsumed = consumed.getAcquire();
+                if (sequence - items.length < cachedConsumed) {
+                    break;
+                }
+                if (cancelled) {
+                    return;
+                }
+                waitStrategy.idle(counter++);
+            }
+            items[(int) sequence & mask] = item;
+            published.setRelease(sequence + 1);
+            return;
+        }
+        final long sequence = claimed.getAndIncrement();
+        int counter = 0;
+        while (sequence - items.length >= consumed.getAcquire()) {
+            if (cancelled) {
+                return;
+            }
+            waitStrategy.idle(counter++);
+        }
+        final int index = (int) sequence & mask;
+        items[index] = item;
+        AVAILABILITY.setRelease(availability, index, sequence);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Starts the consumer thread of this stage. Only one subscriber is supported.
+     * </p>
+     */
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+
+        Objects.requireNonNull(subscriber);
+        synchronized (this) {
+            if (Objects.isNull(downstream)) {
+                downstream = subscriber;
+                subscriber.onSubscribe(new StageSubscription());
+                Thread.ofPlatform().name("ring-buffer-stage-" + STAGE_NUMBER.incrementAndGet()).daemon(true)
+                        .start(this::consume);
+                return;
+            }
+        }
+        subscriber.onSubscribe(new StageSubscription());
+        subscriber.onError(new IllegalStateException("only one subscriber is supported"));
+    }
+
+    /**
+     * Runs the consumer loop of this stage.
+     */
+    private void consume() {
+
+        final Subscriber<? super T> subscriber = downstream;
+        long next = 0;
+        int counter = 0;
+        while (true) {
+            if (cancelled) {
+                cancelUpstream();
+                return;
+            }
+            final IllegalArgumentException exception = badRequest;
+            if (Objects.nonNull(exception)) {
+                cancelled = true;
+                cancelUpstream();
+                subscriber.onError(exception);
+                return;
+            }
+            final long demand = requested.get();
+            final boolean terminated = done;
+            final int available = available(next, (int) Math.min(demand, batchSize));
+            if (available == 0) {
+                if (terminated && available(next, 1) == 0) {
+                    finish(subscriber);
+                    return;
+                }
+                waitStrategy.idle(counter++);
+                continue;
+            }
+            counter = 0;
+            for (int i = 0; i < available; i++) {
+                final int index = (int) (next + i) & mask;
+                @SuppressWarnings("unchecked") final S item = (S) items[index];
+                items[index] = null;
+                final T result;
+                try {
+                    result = function.apply(item);
+                } catch (RuntimeException e) {
+                    cancelled = true;
+                    cancelUpstream();
+                    subscriber.onError(e);
+                    return;
+                }
+                subscriber.onNext(result);
+            }
+            next += available;
+            consumed.setRelease(next);
+            if (demand != Long.MAX_VALUE) {
+                requested.addAndGet(-available);
+            }
+            final Subscription subscription = upstream;
+            if (Objects.nonNull(subscription)) {
+                subscription.request(available);
+            }
+        }
+    }
+
+    /**
+     * Counts the published items available to the consumer.
+     *
+     * @param next  the next sequence to consume
+     * @param limit the maximum count
+     * @return the number of the available items
+     */
+    private int available(long next, int limit) {
+
+        if (sequencing == Sequencing.SINGLE_PRODUCER) {
+            return (int) Math.min(published.getAcquire() - next, limit);
+        }
+        int count = 0;
+        while (count < limit && (long) AVAILABILITY.getAcquire(availability, (int) (next + count) & mask)
+                == next + count) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Signals the terminal event to the downstream.
+     *
+     * @param subscriber the downstream {@link Subscriber}
+     */
+    private void finish(Subscriber<? super T> subscriber) {
+
+        final Throwable throwable = error;
+        if (Objects.nonNull(throwable)) {
+            subscriber.onError(throwable);
+        } else {
+            subscriber.onComplete();
+        }
+    }
+
+    /**
+     * Cancels the upstream subscription.
+     */
+    private void cancelUpstream() {
+
+        final Subscription subscription = upstream;
+        if (Objects.nonNull(subscription)) {
+            subscription.cancel();
+        }
+    }
+
+    /**
+     * The subscription of the downstream subscriber.
+     */
+    private final class StageSubscription implements Subscription {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void request(long numberOfItems) {
+
+            if (numberOfItems <= 0) {
+                badRequest = new IllegalArgumentException(
+                        "non-positive request[%d] (rule 3.9)".formatted(numberOfItems));
+                return;
+            }
+            requested.accumulateAndGet(numberOfItems, (current, added) -> {
+                final long sum = current + added;
+                return sum < 0 ? Long.MAX_VALUE : sum;
+            });
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    /**
+     * The padding before the sequence value.
+     */
+    @SuppressWarnings("unused")
+    private abstract static class LeftPadding {
+        private long p01, p02, p03, p04, p05, p06, p07;
+    }
+
+    /**
+     * The sequence value.
+     */
+    private abstract static class SequenceValue extends LeftPadding {
+        protected long value;
+    }
+
+    /**
+     * The sequence padded on both sides, it does not share the cache line with the other sequences.
+     */
+    @SuppressWarnings("unused")
+    private static final class Sequence extends SequenceValue {
+
+        private static final VarHandle VALUE;
+
+        static {
+            try {
+                VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private long p11, p12, p13, p14, p15, p16, p17;
+
+        /**
+         * Gets the value with the plain read, only for the single writer.
+         *
+         * @return the value
+         */
+        long getPlain() {
+            return (long) VALUE.get(this);
+        }
+
+        /**
+         * Gets the value with the acquire read.
+         *
+         * @return the value
+         */
+        long getAcquire() {
+            return (long) VALUE.getAcquire(this);
+        }
+
+        /**
+         * Sets the value with the release write.
+         *
+         * @param newValue the new value
+         */
+        void setRelease(long newValue) {
+            VALUE.setRelease(this, newValue);
+        }
+
+        /**
+         * Increments the value atomically.
+         *
+         * @return the previous value
+         */
+        long getAndIncrement() {
+            return (long) VALUE.getAndAdd(this, 1L);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package kp.reactive.streams.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * The incremental UTF-8 decoder for the sequence of the {@link ByteBuffer}s.
+ * <p>
+ * The bytes are decoded from the buffers into one reusable {@link CharBuffer}.
+ * The multibyte sequence split between two buffers is kept in the 4-byte carry buffer
+ * and completed with the first bytes of the next buffer.
+ * </p>
+ */
+final class Utf8Decoder {
+
+    private static final int MAX_SEQUENCE_LENGTH = 4;
+
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+    private final CharBuffer chars;
+    private final ByteBuffer carry = ByteBuffer.allocate(MAX_SEQUENCE_LENGTH);
+
+    /**
+     * The constructor.
+     *
+     * @param charBufferSize the size of the reusable {@link CharBuffer}
+     */
+    Utf8Decoder(int charBufferSize) {
+        this.chars = CharBuffer.allocate(charBufferSize);
+    }
+
+    /**
+     * Decodes the buffer.
+     * <p>
+     * The sink receives the reusable {@link CharBuffer} with the decoded characters,
+     * it is valid only until the sink returns.
+     * </p>
+     *
+     * @param byteBuffer the {@link ByteBuffer}
+     * @param sink       the sink of the decoded characters
+     * @throws CharacterCodingException if the bytes are not valid UTF-8
+     */
+    void decode(ByteBuffer byteBuffer, Consumer<CharBuffer> sink) throws CharacterCodingException {
+
+        while (carry.position() > 0 && byteBuffer.hasRemaining()) {
+            carry.put(byteBuffer.get()).flip();
+            decodeInto(carry, sink);
+            if (carry.hasRemaining()) {
+                carry.compact();
+            } else {
+                carry.clear();
+            }
+        }
+        decodeInto(byteBuffer, sink);
+        // the incomplete sequence at the end of the buffer
+        carry.put(byteBuffer);
+    }
+
+    /**
+     * Checks that no incomplete sequence is left after the last buffer.
+     *
+     * @throws MalformedInputException if the input ends in the middle of the sequence
+     */
+    void finish() throws MalformedInputException {
+
+        if (carry.position() > 0) {
+            throw new MalformedInputException(carry.position());
+        }
+    }
+
+    /**
+     * Decodes the bytes until the underflow.
+     *
+     * @param byteBuffer the {@link ByteBuffer}
+     * @param sink       the sink of the decoded characters
+     * @throws CharacterCodingException if the bytes are not valid UTF-8
+     */
+    private void decodeInto(ByteBuffer byteBuffer, Consumer<CharBuffer> sink) throws CharacterCodingException {
+
+        while (true) {
+            final CoderResult coderResult = decoder.decode(byteBuffer, chars, false);
+            if (coderResult.isError()) {
+                coderResult.throwException();
+            }
+            chars.flip();
+            if (chars.hasRemaining()) {
+                sink.accept(chars);
+            }
+            chars.clear();
+            if (coderResult.isUnderflow()) {
+                return;
+            }
+        }
+    }
+}
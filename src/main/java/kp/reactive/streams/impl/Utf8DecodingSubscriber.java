@@ -0,0 +1,60 @@
+package kp.reactive.streams.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * The {@link ByteBufferListSubscriber} which decodes the UTF-8 bytes incrementally.
+ * <p>
+ * The consumer receives the reusable {@link CharBuffer} with the decoded characters, it is valid only
+ * until the consumer returns. No {@link String} is created. The result is the number of the decoded characters.
+ * </p>
+ */
+public class Utf8DecodingSubscriber extends ByteBufferListSubscriber<Long> {
+
+    private static final int CHAR_BUFFER_SIZE = 8 * 1024;
+
+    private final Consumer<? super CharBuffer> consumer;
+    private final Utf8Decoder utf8Decoder = new Utf8Decoder(CHAR_BUFFER_SIZE);
+    private long decoded;
+
+    /**
+     * The constructor.
+     *
+     * @param consumer         the consumer of the decoded characters
+     * @param requestBatchSize the number of the lists requested at first
+     */
+    public Utf8DecodingSubscriber(Consumer<? super CharBuffer> consumer, int requestBatchSize) {
+
+        super(requestBatchSize);
+        this.consumer = Objects.requireNonNull(consumer);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void consume(List<ByteBuffer> byteBufferList) throws IOException {
+
+        for (ByteBuffer byteBuffer : byteBufferList) {
+            utf8Decoder.decode(byteBuffer, chars -> {
+                decoded += chars.remaining();
+                consumer.accept(chars);
+            });
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Long finish() throws IOException {
+
+        utf8Decoder.finish();
+        return decoded;
+    }
+}
@@ -0,0 +1,129 @@
+package kp.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The thread-safe latency histogram with the log-linear buckets.
+ * <p>
+ * The values below 32 have their own buckets. Every power of two above has 32 buckets,
+ * so the reported percentiles are within about 3% of the recorded values.
+ * The histogram has the fixed size, it does not keep the recorded values.
+ * </p>
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Constructs an empty histogram.
+     */
+    public LatencyHistogram() {
+        // No specific implementation needed
+    }
+
+    /**
+     * Records the latency.
+     *
+     * @param nanos the latency in nanoseconds, the negative value is recorded as zero
+     */
+    public void record(long nanos) {
+
+        final long value = Math.max(0, nanos);
+        counts.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        min.accumulateAndGet(value, Math::min);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Gets the number of the recorded latencies.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the latency at the percentile.
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @return the latency in nanoseconds, zero when empty
+     */
+    public long getPercentile(double percentile) {
+
+        final long total = getCount();
+        if (total == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            cumulative += counts.get(i);
+            if (cumulative >= rank) {
+                return Math.min(Math.max(highestEquivalent(i), min.get()), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Formats the count, the minimum, the average, the percentiles and the maximum in milliseconds.
+     *
+     * @return the formatted histogram
+     */
+    public String format() {
+
+        final long total = getCount();
+        if (total == 0) {
+            return "count[0]";
+        }
+        return String.format("count[%s], min[%.3fms], avg[%.3fms], p50[%.3fms], p90[%.3fms], p99[%.3fms], max[%.3fms]",
+                Utils.formatNumber(total), min.get() / NANOS_PER_MILLI, sum.sum() / NANOS_PER_MILLI / total,
+                getPercentile(50) / NANOS_PER_MILLI, getPercentile(90) / NANOS_PER_MILLI,
+                getPercentile(99) / NANOS_PER_MILLI, max.get() / NANOS_PER_MILLI);
+    }
+
+    /**
+     * Computes the bucket index.
+     *
+     * @param value the non-negative value
+     * @return the bucket index
+     */
+    private static int index(long value) {
+
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    /**
+     * Computes the highest value of the bucket.
+     *
+     * @param index the bucket index
+     * @return the highest value
+     */
+    private static long highestEquivalent(int index) {
+
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        final int shift = index / SUB_BUCKETS - 1;
+        final long top = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+}
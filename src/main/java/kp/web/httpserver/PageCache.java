@@ -0,0 +1,190 @@
+package kp.web.httpserver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The cache of the rendered pages.
+ * <p>
+ * The page is rendered once and kept in the identity, the 'gzip' and the 'deflate' encodings
+ * with the entity tag computed from the identity bytes.
+ * The page rendered from the source file is rendered again when the file modification time changes.
+ * </p>
+ */
+final class PageCache {
+
+    /**
+     * The page renderer.
+     */
+    @FunctionalInterface
+    interface Renderer {
+        /**
+         * Renders the page.
+         *
+         * @return the page bytes
+         * @throws IOException if an I/O error occurs
+         */
+        byte[] render() throws IOException;
+    }
+
+    /**
+     * The content encoding of the cached page.
+     */
+    enum Encoding {
+        /**
+         * No encoding.
+         */
+        IDENTITY("identity"),
+        /**
+         * The 'gzip' encoding.
+         */
+        GZIP("gzip"),
+        /**
+         * The 'deflate' encoding (the 'zlib' format).
+         */
+        DEFLATE("deflate");
+
+        private final String token;
+
+        /**
+         * The constructor.
+         *
+         * @param token the content coding token
+         */
+        Encoding(String token) {
+            this.token = token;
+        }
+
+        /**
+         * Gets the content coding token.
+         *
+         * @return the token
+         */
+        String token() {
+            return token;
+        }
+    }
+
+    /**
+     * The cached page.
+     *
+     * @param identity       the page bytes
+     * @param gzip           the page bytes in the 'gzip' encoding
+     * @param deflate        the page bytes in the 'deflate' encoding
+     * @param entityTag      the entity tag value without the quotes
+     * @param sourceModified the modification time of the source file, null when the page has no source file
+     */
+    record Entry(byte[] identity, byte[] gzip, byte[] deflate, String entityTag, FileTime sourceModified) {
+
+        /**
+         * Gets the page bytes in the encoding.
+         *
+         * @param encoding the {@link Encoding}
+         * @return the encoded bytes
+         */
+        byte[] bytes(Encoding encoding) {
+
+            return switch (encoding) {
+                case IDENTITY -> identity;
+                case GZIP -> gzip;
+                case DEFLATE -> deflate;
+            };
+        }
+
+        /**
+         * Gets the quoted entity tag of the encoded page.
+         *
+         * @param encoding the {@link Encoding}
+         * @return the entity tag
+         */
+        String entityTag(Encoding encoding) {
+            return encoding == Encoding.IDENTITY ? "\"%s\"".formatted(entityTag) :
+                    "\"%s-%s\"".formatted(entityTag, encoding.token());
+        }
+    }
+
+    private final Map<Object, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the cached page, the page is rendered when it is missing or its source file was modified.
+     *
+     * @param key      the page key
+     * @param source   the source file, null when the page has no source file
+     * @param renderer the {@link Renderer}
+     * @return the cached page
+     * @throws IOException if an I/O error occurs
+     */
+    Entry get(Object key, Path source, Renderer renderer) throws IOException {
+
+        final FileTime sourceModified = Objects.isNull(source) ? null : Files.getLastModifiedTime(source);
+        final Entry entry = entries.get(key);
+        if (Objects.nonNull(entry) && Objects.equals(entry.sourceModified(), sourceModified)) {
+            return entry;
+        }
+        final byte[] identity = renderer.render();
+        final Entry rendered = new Entry(identity, gzip(identity), deflate(identity), digest(identity),
+                sourceModified);
+        entries.put(key, rendered);
+        return rendered;
+    }
+
+    /**
+     * Compresses the bytes in the 'gzip' format.
+     *
+     * @param bytes the bytes
+     * @return the compressed bytes
+     * @throws IOException if an I/O error occurs
+     */
+    private static byte[] gzip(byte[] bytes) throws IOException {
+
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (OutputStream outputStream = new GZIPOutputStream(byteArrayOutputStream)) {
+            outputStream.write(bytes);
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    /**
+     * Compresses the bytes in the 'zlib' format.
+     *
+     * @param bytes the bytes
+     * @return the compressed bytes
+     * @throws IOException if an I/O error occurs
+     */
+    private static byte[] deflate(byte[] bytes) throws IOException {
+
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (OutputStream outputStream = new DeflaterOutputStream(byteArrayOutputStream)) {
+            outputStream.write(bytes);
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    /**
+     * Computes the entity tag value from the SHA-256 digest.
+     *
+     * @param bytes the bytes
+     * @return the first 16 digest bytes in hexadecimal
+     */
+    private static String digest(byte[] bytes) {
+
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
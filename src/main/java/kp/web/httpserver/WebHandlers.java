@@ -1,5 +1,6 @@
 package kp.web.httpserver;
 
+import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpExchange;
 import kp.utils.Printer;
 
@@ -12,10 +13,13 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
@@ -24,12 +28,19 @@ import java.util.stream.Stream;
 
 /**
  * Handlers for the web server.
+ * <p>
+ * The pages are rendered once and served from the {@link PageCache} in the encoding accepted by the client.
+ * </p>
  */
 public class WebHandlers {
     /**
      * Path to the input tag file.
      */
     private static final Path INPUT_TAGS_FILE = new File("src/main/java/kp/web/httpserver/InputTags.html").toPath();
+    /**
+     * The cache of the rendered pages.
+     */
+    private static final PageCache PAGE_CACHE = new PageCache();
     /**
      * Number of characters in one combination.
      */
@@ -216,7 +227,7 @@ public class WebHandlers {
     static void handleHome(HttpExchange httpExchange) {
 
         try {
-            handle(httpExchange, prepareContent(Page.HOME));
+            handle(httpExchange, PAGE_CACHE.get(Page.HOME, null, () -> prepareContent(Page.HOME)));
         } catch (IOException e) {
             Printer.printIOException(e);
             System.exit(1);
@@ -225,14 +236,16 @@ public class WebHandlers {
 
     /**
      * Handles the 'Input Tags' page.
+     * <p>
+     * The page is read from the file again only when the file modification time changes.
+     * </p>
      *
      * @param httpExchange the {@link HttpExchange}.
      */
     static void handleInputTags(HttpExchange httpExchange) {
 
-        try (BufferedReader bufferedReader = Files.newBufferedReader(INPUT_TAGS_FILE)) {
-            handle(httpExchange,
-                    bufferedReader.lines().collect(Collectors.joining(System.lineSeparator())).getBytes());
+        try {
+            handle(httpExchange, PAGE_CACHE.get(INPUT_TAGS_FILE, INPUT_TAGS_FILE, WebHandlers::readInputTags));
         } catch (IOException e) {
             Printer.printIOException(e);
             System.exit(1);
@@ -247,7 +260,7 @@ public class WebHandlers {
     static void handleEmojis(HttpExchange httpExchange) {
 
         try {
-            handle(httpExchange, prepareContent(Page.EMOJIS));
+            handle(httpExchange, PAGE_CACHE.get(Page.EMOJIS, null, () -> prepareContent(Page.EMOJIS)));
         } catch (IOException e) {
             Printer.printIOException(e);
             System.exit(1);
@@ -262,7 +275,7 @@ public class WebHandlers {
     static void handleCombining(HttpExchange httpExchange) {
 
         try {
-            handle(httpExchange, prepareContent(Page.COMBINING));
+            handle(httpExchange, PAGE_CACHE.get(Page.COMBINING, null, () -> prepareContent(Page.COMBINING)));
         } catch (IOException e) {
             Printer.printIOException(e);
             System.exit(1);
@@ -270,15 +283,34 @@ public class WebHandlers {
     }
 
     /**
-     * Handles the response.
+     * Handles the response with the cached page.
+     * <p>
+     * The encoding is selected from the 'Accept-Encoding' request header.
+     * When the 'If-None-Match' request header matches the entity tag, the response is '304 Not Modified' without the body.
+     * </p>
      *
      * @param httpExchange the {@link HttpExchange}.
-     * @param bytes        the response bytes.
+     * @param entry        the cached page.
      * @throws IOException if an I/O error occurs.
      */
-    private static void handle(HttpExchange httpExchange, byte[] bytes) throws IOException {
+    private static void handle(HttpExchange httpExchange, PageCache.Entry entry) throws IOException {
 
-        httpExchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+        final Headers requestHeaders = httpExchange.getRequestHeaders();
+        final PageCache.Encoding encoding = negotiateEncoding(requestHeaders.getFirst("Accept-Encoding"));
+        final String entityTag = entry.entityTag(encoding);
+        final Headers responseHeaders = httpExchange.getResponseHeaders();
+        responseHeaders.set("ETag", entityTag);
+        responseHeaders.set("Vary", "Accept-Encoding");
+        if (matchesEntityTag(requestHeaders.getFirst("If-None-Match"), entityTag)) {
+            httpExchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_MODIFIED, -1);
+            httpExchange.close();
+            return;
+        }
+        responseHeaders.set("Content-Type", "text/html; charset=utf-8");
+        if (encoding != PageCache.Encoding.IDENTITY) {
+            responseHeaders.set("Content-Encoding", encoding.token());
+        }
+        final byte[] bytes = entry.bytes(encoding);
         httpExchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, bytes.length);
 
         try (OutputStream output = httpExchange.getResponseBody()) {
@@ -288,6 +320,87 @@ public class WebHandlers {
         httpExchange.close();
     }
 
+    /**
+     * Selects the encoding from the 'Accept-Encoding' request header.
+     * <p>
+     * The acceptable coding with the highest quality value is selected, the 'gzip' is preferred over
+     * the 'deflate' when their quality values are equal. The 'identity' is selected over the compressed
+     * codings only when it is listed with the higher quality value.
+     * The codings with the zero quality value are not acceptable.
+     * </p>
+     *
+     * @param acceptEncoding the 'Accept-Encoding' header value, null when absent.
+     * @return the {@link PageCache.Encoding}.
+     */
+    private static PageCache.Encoding negotiateEncoding(String acceptEncoding) {
+
+        if (Objects.isNull(acceptEncoding)) {
+            return PageCache.Encoding.IDENTITY;
+        }
+        final Map<String, Double> qualities = new HashMap<>();
+        for (String element : acceptEncoding.split(",")) {
+            final String[] parameters = element.split(";");
+            double quality = 1.0;
+            for (int i = 1; i < parameters.length; i++) {
+                final String parameter = parameters[i].strip();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException _) {
+                        quality = 0.0;
+                    }
+                }
+            }
+            qualities.put(parameters[0].strip().toLowerCase(Locale.ROOT), quality);
+        }
+        final double wildcard = qualities.getOrDefault("*", 0.0);
+        PageCache.Encoding selected = PageCache.Encoding.IDENTITY;
+        double selectedQuality = 0.0;
+        for (PageCache.Encoding encoding : List.of(PageCache.Encoding.GZIP, PageCache.Encoding.DEFLATE)) {
+            final double quality = qualities.getOrDefault(encoding.token(), wildcard);
+            if (quality > selectedQuality) {
+                selected = encoding;
+                selectedQuality = quality;
+            }
+        }
+        if (qualities.getOrDefault(PageCache.Encoding.IDENTITY.token(), 0.0) > selectedQuality) {
+            return PageCache.Encoding.IDENTITY;
+        }
+        return selected;
+    }
+
+    /**
+     * Checks whether the 'If-None-Match' request header matches the entity tag (the weak comparison).
+     *
+     * @param ifNoneMatch the 'If-None-Match' header value, null when absent.
+     * @param entityTag   the quoted entity tag.
+     * @return true if matches
+     */
+    private static boolean matchesEntityTag(String ifNoneMatch, String entityTag) {
+
+        if (Objects.isNull(ifNoneMatch)) {
+            return false;
+        }
+        return Stream.of(ifNoneMatch.split(","))
+                .map(String::strip)
+                .map(tag -> tag.startsWith("W/") ? tag.substring(2) : tag)
+                .anyMatch(tag -> tag.equals("*") || tag.equals(entityTag));
+    }
+
+    /**
+     * Reads the 'Input Tags' page from the file.
+     *
+     * @return the content bytes.
+     * @throws IOException if an I/O error occurs.
+     */
+    private static byte[] readInputTags() throws IOException {
+
+        try (BufferedReader bufferedReader = Files.newBufferedReader(INPUT_TAGS_FILE)) {
+            return bufferedReader.lines().collect(Collectors.joining(System.lineSeparator()))
+                    .getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
     /**
      * Prepares the content for the given page.
      *
@@ -1,23 +1,81 @@
 package kp.web.httpserver;
 
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
+import kp.utils.LatencyHistogram;
 import kp.utils.Printer;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
 import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 
 /**
  * The launcher for the {@link HttpServer}.
+ * <p>
+ * The exchanges are executed in the configured {@link ExecutionMode}.
+ * Every context has the statistics filter which counts the requests and records their latencies.
+ * The statistics are served on the '/statistics' context and printed when the server stops.
+ * </p>
  */
 public class WebServerLauncher {
+    /**
+     * The execution mode of the exchanges.
+     */
+    public enum ExecutionMode {
+        /**
+         * Every exchange has its own virtual thread.
+         * <p>
+         * The request is read in the synchronized stream, before the JDK 24 it pins the carrier thread.
+         * </p>
+         */
+        VIRTUAL_THREADS,
+        /**
+         * The exchanges are executed in the bounded pool of the platform threads.
+         */
+        BOUNDED_POOL,
+        /**
+         * The exchanges are executed on the dispatcher thread, one slow client stalls the server.
+         */
+        INLINE
+    }
+
     /**
      * The {@link HttpServer}.
      */
     private static HttpServer httpServer;
+    /**
+     * The {@link ExecutorService} for the exchanges, it is null in the inline mode.
+     */
+    private static ExecutorService executorService;
+    /**
+     * The statistics for the context paths.
+     */
+    private static final Map<String, ContextStatistics> CONTEXT_STATISTICS =
+            Collections.synchronizedMap(new LinkedHashMap<>());
     /**
      * The {@link HttpServer} server port.
      */
     private static final int PORT = 8080;
+    /**
+     * The default backlog of the server socket.
+     */
+    public static final int DEFAULT_BACKLOG = 1_024;
+    /**
+     * The number of threads in the bounded pool.
+     */
+    private static final int POOL_SIZE = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
 
     /**
      * Private constructor to prevent instantiation.
@@ -27,22 +85,40 @@ public class WebServerLauncher {
     }
 
     /**
-     * Starts the {@link HttpServer}.
+     * Starts the {@link HttpServer} with the virtual threads and the default backlog.
      */
     public static void startServer() {
+        startServer(ExecutionMode.VIRTUAL_THREADS, DEFAULT_BACKLOG);
+    }
+
+    /**
+     * Starts the {@link HttpServer}.
+     *
+     * @param executionMode the {@link ExecutionMode}
+     * @param backlog       the maximum number of the queued incoming connections
+     */
+    public static void startServer(ExecutionMode executionMode, int backlog) {
 
         try {
-            httpServer = HttpServer.create(new InetSocketAddress(PORT), 0);
+            httpServer = HttpServer.create(new InetSocketAddress(PORT), backlog);
         } catch (IOException e) {
             Printer.printIOException(e);
             System.exit(1);
         }
-        httpServer.createContext("/", WebHandlers::handleHome);
-        httpServer.createContext("/input_tags", WebHandlers::handleInputTags);
-        httpServer.createContext("/emojis", WebHandlers::handleEmojis);
-        httpServer.createContext("/combining", WebHandlers::handleCombining);
+        executorService = switch (executionMode) {
+            case VIRTUAL_THREADS -> Executors.newVirtualThreadPerTaskExecutor();
+            case BOUNDED_POOL -> Executors.newFixedThreadPool(POOL_SIZE);
+            case INLINE -> null;
+        };
+        httpServer.setExecutor(executorService);
+        CONTEXT_STATISTICS.clear();
+        createContext("/", WebHandlers::handleHome);
+        createContext("/input_tags", WebHandlers::handleInputTags);
+        createContext("/emojis", WebHandlers::handleEmojis);
+        createContext("/combining", WebHandlers::handleCombining);
+        httpServer.createContext("/statistics", WebServerLauncher::handleStatistics);
         httpServer.start();
-        Printer.print("Web server started");
+        Printer.printf("Web server started, execution mode[%s], backlog[%d]", executionMode, backlog);
         Printer.printHor();
     }
 
@@ -52,7 +128,145 @@ public class WebServerLauncher {
     public static void stopServer() {
 
         httpServer.stop(0);
+        if (Objects.nonNull(executorService)) {
+            executorService.close();
+            executorService = null;
+        }
         Printer.print("Web server stopped");
+        CONTEXT_STATISTICS.forEach((path, statistics) -> Printer.printf("stopServer(): %s", statistics.format(path)));
+    }
+
+    /**
+     * Gets the statistics for the context paths.
+     *
+     * @return the unmodifiable map of the context path to the statistics
+     */
+    public static Map<String, ContextStatistics> getContextStatistics() {
+
+        synchronized (CONTEXT_STATISTICS) {
+            return Map.copyOf(CONTEXT_STATISTICS);
+        }
+    }
+
+    /**
+     * Creates the context with the statistics filter.
+     *
+     * @param path    the context path
+     * @param handler the {@link HttpHandler}
+     */
+    private static void createContext(String path, HttpHandler handler) {
+
+        final ContextStatistics statistics = new ContextStatistics();
+        CONTEXT_STATISTICS.put(path, statistics);
+        httpServer.createContext(path, handler).getFilters().add(statistics.filter());
+    }
+
+    /**
+     * Handles the statistics in the plain text.
+     *
+     * @param httpExchange the {@link HttpExchange}.
+     * @throws IOException if an I/O error occurs.
+     */
+    private static void handleStatistics(HttpExchange httpExchange) throws IOException {
+
+        final String text;
+        synchronized (CONTEXT_STATISTICS) {
+            text = CONTEXT_STATISTICS.entrySet().stream()
+                    .map(entry -> entry.getValue().format(entry.getKey()))
+                    .collect(Collectors.joining(System.lineSeparator(), "", System.lineSeparator()));
+        }
+        final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        httpExchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        httpExchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, bytes.length);
+        try (OutputStream output = httpExchange.getResponseBody()) {
+            output.write(bytes);
+        }
     }
 
+    /**
+     * The request counter and the latency histogram of one context.
+     */
+    public static final class ContextStatistics {
+
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LatencyHistogram latencies = new LatencyHistogram();
+
+        /**
+         * The constructor.
+         */
+        ContextStatistics() {
+            // No specific implementation needed
+        }
+
+        /**
+         * Gets the number of the requests.
+         *
+         * @return the number of the requests
+         */
+        public long getRequests() {
+            return requests.sum();
+        }
+
+        /**
+         * Gets the number of the requests which failed with the exception.
+         *
+         * @return the number of the failed requests
+         */
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        /**
+         * Gets the latency histogram.
+         *
+         * @return the latency histogram
+         */
+        public LatencyHistogram getLatencies() {
+            return latencies;
+        }
+
+        /**
+         * Formats the statistics.
+         *
+         * @param path the context path
+         * @return the formatted statistics
+         */
+        String format(String path) {
+            return "context[%s], requests[%d], failures[%d], latency %s".formatted(path, getRequests(),
+                    getFailures(), latencies.format());
+        }
+
+        /**
+         * Creates the filter which records the exchanges.
+         *
+         * @return the {@link Filter}
+         */
+        Filter filter() {
+
+            return new Filter() {
+                @Override
+                public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+
+                    final long begin = System.nanoTime();
+                    boolean failed = true;
+                    try {
+                        chain.doFilter(exchange);
+                        failed = false;
+                    } finally {
+                        requests.increment();
+                        if (failed) {
+                            failures.increment();
+                        }
+                        latencies.record(System.nanoTime() - begin);
+                    }
+                }
+
+                @Override
+                public String description() {
+                    return "request counter and latency histogram";
+                }
+            };
+        }
+    }
 }
\ No newline at end of file
@@ -3,9 +3,14 @@ package kp.web.sockets;
 import kp.utils.Printer;
 import kp.utils.Utils;
 import kp.web.sockets.generator.RandomTextsGenerator;
+import kp.web.sockets.load.LoadDriver;
 import kp.web.sockets.wrapper.SocketWrapper;
+import kp.web.sockets.wrapper.impl.BinarySocketWrapper;
 import kp.web.sockets.wrapper.impl.InsecureSocketWrapper;
 import kp.web.sockets.wrapper.impl.SecureSocketWrapper;
+import kp.web.sockets.wrapper.impl.SelectorSocketWrapper;
+import kp.web.sockets.wrapper.impl.SslEngineSocketWrapper;
+import kp.web.sockets.wrapper.impl.VirtualThreadSocketWrapper;
 
 import java.time.Duration;
 import java.time.Instant;
@@ -47,14 +52,22 @@ import java.util.concurrent.atomic.AtomicInteger;
  * <li>ServerSocket
  * <li>SSLSocket
  * <li>SSLServerSocket
+ * <li>ServerSocketChannel with Selector
+ * <li>ServerSocket with virtual thread per connection
+ * <li>SSLEngine with SocketChannel and Selector
+ * <li>SocketChannel with length-prefixed frames and FileChannel.transferTo
  * </ul>
- * <small>The 'SSLEngine' is not researched here.</small>
  */
 public class ApplicationForSockets {
 
     private static final int ITERATIONS = 4;
+    private static final int LOAD_CONNECTIONS = 10_000;
+    private static final int LOAD_CONCURRENCY = 1_000;
+    private static final int LOAD_POOL_SIZE = 16;
 
-    private final RandomTextsGenerator randomTextsGenerator = new RandomTextsGenerator(ITERATIONS);
+    // the fast generation into the memory-mapped payloads file is selected with '-Dkp.sockets.fastTexts=true'
+    private final RandomTextsGenerator randomTextsGenerator =
+            new RandomTextsGenerator(ITERATIONS, Boolean.getBoolean("kp.sockets.fastTexts"));
 
     /**
      * The primary entry point for launching the application.
@@ -68,7 +81,16 @@ public class ApplicationForSockets {
         }
         final ApplicationForSockets application = new ApplicationForSockets();
         application.processLoop(new InsecureSocketWrapper());
-        application.processLoop(new SecureSocketWrapper());
+        for (BinarySocketWrapper.Mode mode : BinarySocketWrapper.Mode.values()) {
+            application.processLoop(new BinarySocketWrapper(mode, application.randomTextsGenerator));
+        }
+        application.processLoop(new SecureSocketWrapper(false));
+        application.processLoop(new SecureSocketWrapper(true));
+        application.processLoop(new SslEngineSocketWrapper());
+        application.processLoop(new SelectorSocketWrapper());
+        application.processLoad(new SelectorSocketWrapper());
+        application.processLoop(new VirtualThreadSocketWrapper());
+        application.processLoad(new VirtualThreadSocketWrapper());
     }
 
     /**
@@ -100,6 +122,25 @@ public class ApplicationForSockets {
         Printer.printHor();
     }
 
+    /**
+     * Processes the load with many concurrent connections,
+     * first with the connection for every message and then with the pooled persistent connections.
+     *
+     * @param socketWrapper the {@link SocketWrapper} serving the line-framed echo
+     */
+    private void processLoad(SocketWrapper socketWrapper) {
+
+        Printer.printSeparatorLine();
+        final String implementation = socketWrapper.getClass().getSimpleName();
+        final LoadDriver loadDriver = new LoadDriver(SocketWrapper.getServerAddress(), LOAD_CONNECTIONS,
+                LOAD_CONCURRENCY);
+        loadDriver.run(implementation);
+        Printer.printSeparatorLine();
+        loadDriver.runWithConnectionPool(implementation, LOAD_POOL_SIZE);
+        socketWrapper.closeServerSocket();
+        Printer.printHor();
+    }
+
     /**
      * Processes single loop item.
      *
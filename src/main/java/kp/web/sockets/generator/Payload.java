@@ -0,0 +1,13 @@
+package kp.web.sockets.generator;
+
+import java.nio.file.Path;
+
+/**
+ * The region of the payloads file which holds one random text encoded in US-ASCII.
+ *
+ * @param file   the payloads file
+ * @param offset the region offset in bytes
+ * @param length the region length in bytes
+ */
+public record Payload(Path file, long offset, int length) {
+}
@@ -4,18 +4,39 @@ import kp.utils.Printer;
 import kp.utils.Utils;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.security.SecureRandom;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
 import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
 import java.util.stream.IntStream;
 
 /**
  * The random text generator.
+ * <p>
+ * The texts are also written to the payloads file with the fixed layout: the header
+ * (the magic number, the version, the texts count and the text length) followed by the texts in the list order.
+ * Every text has the same length and is encoded in US-ASCII, so the text is the fixed-size {@link Payload}
+ * which can be sent without encoding.
+ * </p>
+ * <p>
+ * In the fast mode the texts are not kept as strings. The random bytes are generated in parallel
+ * from the split {@link SplittableRandom}s directly into the memory-mapped payloads file.
+ * On the next start the valid payloads file is only mapped, it is not read.
+ * The text is decoded from the mapped file when it is requested.
+ * </p>
  */
 public class RandomTextsGenerator {
 
@@ -23,8 +44,29 @@ public class RandomTextsGenerator {
     private static final boolean USE_RANDOM_TEXTS_FILE = true;
     private static final Path RANDOM_TEXTS_FILE = Paths.get(System.getProperty("java.io.tmpdir"))
             .resolve("RandomTexts.txt");
+    private static final Path PAYLOADS_FILE = Paths.get(System.getProperty("java.io.tmpdir"))
+            .resolve("RandomPayloads.bin");
+    private static final int PAYLOADS_MAGIC = 0x52_54_58_54;// 'RTXT'
+    private static final int PAYLOADS_VERSION = 1;
+    private static final int PAYLOADS_HEADER_LENGTH = 4 * Integer.BYTES;
+    private static final int CHUNK_LENGTH = 1 << 20;
+    private static final int BITS_PER_DRAW = 6;
+    private static final int DRAWS_PER_LONG = Long.SIZE / BITS_PER_DRAW;
+    private static final int DRAW_MASK = (1 << BITS_PER_DRAW) - 1;
+    /*
+     * Only allow numbers less than 57 (the digits 0-9) or
+     * numbers greater than 65 and less than 90 (the letters A-Z) or
+     * numbers greater than 97 (the letters a-z).
+     * The bounds are exclusive, so the letters '9', 'A', 'Z' and 'a' are not in the alphabet.
+     */
+    private static final IntPredicate ALPHABET_FILTER = i -> (i < 57 || i > 65) && (i < 90 || i > 97);
+    private static final byte[] ALPHABET = alphabet();
 
+    private final int textLength;
+    private final boolean fastMode;
+    private int textsCount;
     private List<String> textsList;
+    private MappedByteBuffer mappedPayloads;
     private final SecureRandom secureRandom = new SecureRandom();
 
     /**
@@ -33,13 +75,39 @@ public class RandomTextsGenerator {
      * @param iterations the number of iterations for generating random texts; defines the size of the text list.
      */
     public RandomTextsGenerator(int iterations) {
+        this(iterations, false);
+    }
+
+    /**
+     * Constructs a RandomTextsGenerator instance with the default text length.
+     *
+     * @param iterations the number of iterations for generating random texts; defines the size of the text list.
+     * @param fastMode   the flag whether to generate the texts into the memory-mapped payloads file
+     */
+    public RandomTextsGenerator(int iterations, boolean fastMode) {
+        this(iterations, RANDOM_TEXT_LENGTH, fastMode);
+    }
 
+    /**
+     * Constructs a RandomTextsGenerator instance and initializes the random texts.
+     *
+     * @param iterations the number of iterations for generating random texts; defines the size of the text list.
+     * @param textLength the text length
+     * @param fastMode   the flag whether to generate the texts into the memory-mapped payloads file
+     */
+    public RandomTextsGenerator(int iterations, int textLength, boolean fastMode) {
+
+        if (fastMode && PAYLOADS_HEADER_LENGTH + 2L * iterations * textLength > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("the payloads file exceeds the mapped buffer limit");
+        }
+        this.textLength = textLength;
+        this.fastMode = fastMode;
         final Instant start = Instant.now();
         initialize(iterations);
         final Instant finish = Instant.now();
-        Printer.printf("RandomTextsGenerator(): text length[%s], use random texts file[%b], iterations[%d], %s",
-                Utils.formatNumber(RANDOM_TEXT_LENGTH), USE_RANDOM_TEXTS_FILE, iterations,
-                Utils.formatElapsed(start, finish));
+        Printer.printf("RandomTextsGenerator(): text length[%s], use random texts file[%b], fast mode[%b], " +
+                        "iterations[%d], %s", Utils.formatNumber(textLength), USE_RANDOM_TEXTS_FILE, fastMode,
+                iterations, Utils.formatElapsed(start, finish));
     }
 
     /**
@@ -49,7 +117,7 @@ public class RandomTextsGenerator {
      * @return the text element
      */
     public String getTextForServer(int number) {
-        return textsList.get(number - 1);
+        return getText(number - 1);
     }
 
     /**
@@ -59,28 +127,103 @@ public class RandomTextsGenerator {
      * @return the text element
      */
     public String getTextForClient(int number) {
-        return textsList.get(textsList.size() / 2 + number - 1);
+        return getText(textsCount / 2 + number - 1);
+    }
+
+    /**
+     * Gets the payload for the server.
+     *
+     * @param number the text number
+     * @return the payload with the same text as {@link #getTextForServer(int)}
+     */
+    public Payload getPayloadForServer(int number) {
+        return getPayload(number - 1);
+    }
+
+    /**
+     * Gets the payload for the client.
+     *
+     * @param number the text number
+     * @return the payload with the same text as {@link #getTextForClient(int)}
+     */
+    public Payload getPayloadForClient(int number) {
+        return getPayload(textsCount / 2 + number - 1);
+    }
+
+    /**
+     * Gets the number of iterations.
+     *
+     * @return the number of iterations
+     */
+    public int getIterations() {
+        return textsCount / 2;
     }
 
     /**
-     * Initializes the random text list.
+     * Gets the text.
+     *
+     * @param index the text index
+     * @return the text from the list or decoded from the mapped payloads file
+     */
+    private String getText(int index) {
+
+        if (Objects.nonNull(textsList)) {
+            return textsList.get(index);
+        }
+        final byte[] bytes = new byte[textLength];
+        mappedPayloads.get(textOffset(index), bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Gets the payload.
+     *
+     * @param index the text index
+     * @return the payload
+     */
+    private Payload getPayload(int index) {
+        return new Payload(PAYLOADS_FILE, textOffset(index), textLength);
+    }
+
+    /**
+     * Computes the text offset in the payloads file.
+     *
+     * @param index the text index
+     * @return the text offset
+     */
+    private int textOffset(int index) {
+        return Math.toIntExact(PAYLOADS_HEADER_LENGTH + (long) index * textLength);
+    }
+
+    /**
+     * Initializes the random texts.
      *
      * @param iterations the number of iterations
      */
     private void initialize(int iterations) {
 
         final int listSize = 2 * iterations;
+        textsCount = listSize;
         try {
+            if (fastMode) {
+                if (!(USE_RANDOM_TEXTS_FILE && mapPayloadsFile())) {
+                    Printer.printf("initialize(): failed mapping payloads file[%s]. Generating ...", PAYLOADS_FILE);
+                    generatePayloadsFile(iterations);
+                }
+                return;
+            }
             boolean fileReadingFlag = false;
             if (USE_RANDOM_TEXTS_FILE && RANDOM_TEXTS_FILE.toFile().canRead()) {
                 textsList = Files.readAllLines(RANDOM_TEXTS_FILE);
-                fileReadingFlag = listSize == textsList.size();
+                fileReadingFlag = listSize == textsList.size()
+                                  && textsList.stream().allMatch(text -> text.length() == textLength);
             }
             if (!fileReadingFlag) {
                 Printer.printf("initialize(): failed reading from random texts file[%s]. Generating ...",
                         RANDOM_TEXTS_FILE);
                 generateTextsList(iterations, listSize);
             }
+            writePayloadsFile();
         } catch (IOException e) {
             Printer.printf("initialize(): IOException[%s], random texts file[%s]", e.getMessage(), RANDOM_TEXTS_FILE);
             System.exit(1);
@@ -96,8 +239,7 @@ public class RandomTextsGenerator {
      */
     private void generateTextsList(int listSize, int totalListSize) throws IOException {
 
-        final IntFunction<String> stampFunc = index -> String.format("#%03d",
-                index <= listSize ? index : index - listSize);
+        final IntFunction<String> stampFunc = stampFunction(listSize);
         textsList = IntStream.rangeClosed(1, totalListSize).boxed()
                 .map(index -> generateElement(stampFunc.apply(index))).toList();
         Files.write(RANDOM_TEXTS_FILE, textsList, Charset.defaultCharset());
@@ -112,16 +254,168 @@ public class RandomTextsGenerator {
     private String generateElement(String stamp) {
 
         /* Generate random numbers within the range 48 (Unicode for 0) to 122 (Unicode for z).
-         * Only allow numbers less than 57 (the digits 0-9) or
-         * numbers greater than 65 and less than 90 (the letters A-Z) or
-         * numbers greater than 97 (the letters a-z)
+         * Only allow numbers from the alphabet.
          */
         return secureRandom.ints(48, 123)
-                .filter(i -> (i < 57 || i > 65) && (i < 90 || i > 97))
+                .filter(ALPHABET_FILTER)
                 .mapToObj(i -> (char) i)
-                .limit(RANDOM_TEXT_LENGTH - 4L)
+                .limit((long) textLength - stamp.length())
                 .collect(StringBuilder::new, StringBuilder::append, StringBuilder::append)
                 .append(stamp).toString();
     }
 
+    /**
+     * Writes the texts to the payloads file.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void writePayloadsFile() throws IOException {
+
+        try (FileChannel fileChannel = FileChannel.open(PAYLOADS_FILE, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(fileChannel, header());
+            for (String text : textsList) {
+                writeFully(fileChannel, ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII)));
+            }
+        }
+    }
+
+    /**
+     * Maps the payloads file when its header matches the texts count and the text length.
+     *
+     * @return true if the payloads file was mapped
+     * @throws IOException if an I/O error occurs
+     */
+    private boolean mapPayloadsFile() throws IOException {
+
+        if (!Files.isReadable(PAYLOADS_FILE)) {
+            return false;
+        }
+        try (FileChannel fileChannel = FileChannel.open(PAYLOADS_FILE, StandardOpenOption.READ)) {
+            if (fileChannel.size() != textOffset(textsCount)) {
+                return false;
+            }
+            final MappedByteBuffer mapped = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
+            if (!header().equals(mapped.slice(0, PAYLOADS_HEADER_LENGTH))) {
+                return false;
+            }
+            mappedPayloads = mapped;
+            return true;
+        }
+    }
+
+    /**
+     * Generates the texts into the memory-mapped payloads file.
+     * <p>
+     * The random part of every text is split into chunks, every chunk has its own split generator,
+     * so the chunks are filled in parallel. The header is written last, after the texts were forced to the storage.
+     * </p>
+     *
+     * @param iterations the number of iterations
+     * @throws IOException if an I/O error occurs
+     */
+    private void generatePayloadsFile(int iterations) throws IOException {
+
+        final IntFunction<String> stampFunc = stampFunction(iterations);
+        final SplittableRandom splittableRandom = new SplittableRandom(secureRandom.nextLong());
+        final List<Chunk> chunks = new ArrayList<>();
+        try (FileChannel fileChannel = FileChannel.open(PAYLOADS_FILE, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final MappedByteBuffer mapped = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, textOffset(textsCount));
+            for (int index = 0; index < textsCount; index++) {
+                final byte[] stamp = stampFunc.apply(index + 1).getBytes(StandardCharsets.US_ASCII);
+                final int randomLength = textLength - stamp.length;
+                mapped.put(textOffset(index) + randomLength, stamp);
+                for (int start = 0; start < randomLength; start += CHUNK_LENGTH) {
+                    chunks.add(new Chunk(textOffset(index) + start, Math.min(CHUNK_LENGTH, randomLength - start),
+                            splittableRandom.split()));
+                }
+            }
+            chunks.parallelStream().forEach(chunk -> mapped.put(chunk.offset(), fill(chunk)));
+            mapped.force();
+            mapped.put(0, header(), 0, PAYLOADS_HEADER_LENGTH);
+            mapped.force();
+            mappedPayloads = mapped;
+        }
+    }
+
+    /**
+     * Fills the chunk with the random letters from the alphabet.
+     * Every drawn long gives ten 6-bit indexes, the indexes outside the alphabet are rejected.
+     *
+     * @param chunk the chunk
+     * @return the filled bytes
+     */
+    private static byte[] fill(Chunk chunk) {
+
+        final byte[] bytes = new byte[chunk.length()];
+        int position = 0;
+        while (position < bytes.length) {
+            long bits = chunk.random().nextLong();
+            for (int draw = 0; draw < DRAWS_PER_LONG && position < bytes.length; draw++, bits >>>= BITS_PER_DRAW) {
+                final int index = (int) bits & DRAW_MASK;
+                if (index < ALPHABET.length) {
+                    bytes[position++] = ALPHABET[index];
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Creates the payloads file header.
+     *
+     * @return the header in the reading mode
+     */
+    private ByteBuffer header() {
+        return ByteBuffer.allocate(PAYLOADS_HEADER_LENGTH).putInt(PAYLOADS_MAGIC).putInt(PAYLOADS_VERSION)
+                .putInt(textsCount).putInt(textLength).flip();
+    }
+
+    /**
+     * Creates the stamp function: the server texts and the client texts are numbered from one.
+     *
+     * @param listSize the size of the list
+     * @return the stamp function
+     */
+    private static IntFunction<String> stampFunction(int listSize) {
+        return index -> String.format("#%03d", index <= listSize ? index : index - listSize);
+    }
+
+    /**
+     * Builds the alphabet from the letters within the range 48 (Unicode for 0) to 122 (Unicode for z).
+     *
+     * @return the alphabet
+     */
+    private static byte[] alphabet() {
+
+        final int[] letters = IntStream.range(48, 123).filter(ALPHABET_FILTER).toArray();
+        final byte[] alphabet = new byte[letters.length];
+        IntStream.range(0, letters.length).forEach(i -> alphabet[i] = (byte) letters[i]);
+        return alphabet;
+    }
+
+    /**
+     * Writes all the buffer.
+     *
+     * @param fileChannel the file channel
+     * @param buffer      the buffer in the reading mode
+     * @throws IOException if an I/O error occurs
+     */
+    private static void writeFully(FileChannel fileChannel, ByteBuffer buffer) throws IOException {
+
+        while (buffer.hasRemaining()) {
+            fileChannel.write(buffer);
+        }
+    }
+
+    /**
+     * The chunk of the text filled by one split generator.
+     *
+     * @param offset the chunk offset in the payloads file
+     * @param length the chunk length
+     * @param random the split generator
+     */
+    private record Chunk(int offset, int length, SplittableRandom random) {
+    }
 }
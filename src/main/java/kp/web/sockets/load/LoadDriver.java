@@ -0,0 +1,165 @@
+package kp.web.sockets.load;
+
+import kp.utils.LatencyHistogram;
+import kp.utils.Printer;
+import kp.utils.Utils;
+import kp.web.sockets.pool.ConnectionPool;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The load driver for the line-framed echo servers.
+ * <p>
+ * Every connection runs in its own virtual thread: it connects, sends one line and the empty line,
+ * and reads the echo until the server closes the connection. The number of the concurrent
+ * connections is bounded. The connection latency covers the connect, the exchange and the close.
+ * </p>
+ * <p>
+ * In the pooled mode the same number of the messages is exchanged on a few persistent connections
+ * from the {@link ConnectionPool}. The message latency covers the wait for the connection and the exchange.
+ * </p>
+ */
+public class LoadDriver {
+
+    private final InetSocketAddress serverAddress;
+    private final int connections;
+    private final int concurrency;
+
+    /**
+     * The constructor.
+     *
+     * @param serverAddress the server address
+     * @param connections   the total number of the connections, in the pooled mode the number of the messages
+     * @param concurrency   the maximum number of the concurrent connections or messages
+     */
+    public LoadDriver(InetSocketAddress serverAddress, int connections, int concurrency) {
+
+        this.serverAddress = serverAddress;
+        this.connections = connections;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Runs the load and reports the connections per second and the latency percentiles.
+     *
+     * @param implementation the server implementation name
+     */
+    public void run(String implementation) {
+
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final LongAdder failures = new LongAdder();
+        final Semaphore semaphore = new Semaphore(concurrency);
+        final Instant start = Instant.now();
+        try (ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < connections; i++) {
+                semaphore.acquire();
+                final String message = "message-%06d".formatted(i);
+                executorService.execute(() -> {
+                    try {
+                        final long begin = System.nanoTime();
+                        if (exchange(message)) {
+                            histogram.record(System.nanoTime() - begin);
+                        } else {
+                            failures.increment();
+                        }
+                    } catch (IOException _) {
+                        failures.increment();
+                    } finally {
+                        semaphore.release();
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            Printer.printInterruptedException(e);
+            Thread.currentThread().interrupt();// Preserve interrupt status
+            return;
+        }
+        final Duration elapsed = Duration.between(start, Instant.now());
+        final double connectionsPerSecond = histogram.getCount() * 1e9 / Math.max(1, elapsed.toNanos());
+        Printer.printf("run(): implementation[%s], connections[%s], concurrency[%s], failures[%d], connections/s[%.1f], %s",
+                implementation, Utils.formatNumber(connections), Utils.formatNumber(concurrency), failures.sum(),
+                connectionsPerSecond, Utils.formatElapsed("time elapsed", elapsed));
+        Printer.printf("run(): implementation[%s], latency %s", implementation, histogram.format());
+    }
+
+    /**
+     * Runs the load on the pooled persistent connections and reports the messages per second
+     * and the latency percentiles.
+     *
+     * @param implementation the server implementation name
+     * @param poolSize       the connection pool size
+     */
+    public void runWithConnectionPool(String implementation, int poolSize) {
+
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final LongAdder failures = new LongAdder();
+        final Semaphore semaphore = new Semaphore(concurrency);
+        final Instant start;
+        try (ConnectionPool connectionPool = new ConnectionPool(serverAddress, poolSize)) {
+            start = Instant.now();
+            try (ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < connections; i++) {
+                    semaphore.acquire();
+                    final String message = "message-%06d".formatted(i);
+                    executorService.execute(() -> {
+                        try {
+                            final long begin = System.nanoTime();
+                            if (message.equals(connectionPool.exchange(message))) {
+                                histogram.record(System.nanoTime() - begin);
+                            } else {
+                                failures.increment();
+                            }
+                        } catch (IOException _) {
+                            failures.increment();
+                        } catch (InterruptedException _) {
+                            failures.increment();
+                            Thread.currentThread().interrupt();// Preserve interrupt status
+                        } finally {
+                            semaphore.release();
+                        }
+                    });
+                }
+            } catch (InterruptedException e) {
+                Printer.printInterruptedException(e);
+                Thread.currentThread().interrupt();// Preserve interrupt status
+                return;
+            }
+            final Duration elapsed = Duration.between(start, Instant.now());
+            final double messagesPerSecond = histogram.getCount() * 1e9 / Math.max(1, elapsed.toNanos());
+            Printer.printf("runWithConnectionPool(): implementation[%s], messages[%s], concurrency[%s], " +
+                            "connections opened[%d], failures[%d], messages/s[%.1f], %s",
+                    implementation, Utils.formatNumber(connections), Utils.formatNumber(concurrency),
+                    connectionPool.getOpenedCount(), failures.sum(), messagesPerSecond,
+                    Utils.formatElapsed("time elapsed", elapsed));
+        }
+        Printer.printf("runWithConnectionPool(): implementation[%s], latency %s", implementation, histogram.format());
+    }
+
+    /**
+     * Exchanges the message with the server.
+     *
+     * @param message the message
+     * @return true if the echo is the same as the message
+     * @throws IOException if an I/O error occurs
+     */
+    private boolean exchange(String message) throws IOException {
+
+        try (Socket socket = new Socket(serverAddress.getAddress(), serverAddress.getPort());
+             Writer writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+             BufferedReader reader = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            writer.write(message + "\n\n");
+            writer.flush();
+            return message.equals(reader.readLine()) && reader.readLine() == null;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package kp.web.sockets.pool;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The client pool of the persistent connections to the line-framed echo server.
+ * <p>
+ * The connections are opened on demand up to the maximum size and are reused for many exchanges.
+ * The borrowing thread waits when all the connections are in use.
+ * The connection which failed is closed and is not returned to the pool.
+ * </p>
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    private final InetSocketAddress serverAddress;
+    private final Semaphore permits;
+    private final Queue<Connection> idleConnections = new ConcurrentLinkedQueue<>();
+    private final Set<Connection> allConnections = ConcurrentHashMap.newKeySet();
+    private final LongAdder openedCount = new LongAdder();
+    private volatile boolean closed;
+
+    /**
+     * The constructor.
+     *
+     * @param serverAddress the server address
+     * @param maxSize       the maximum number of the connections
+     */
+    public ConnectionPool(InetSocketAddress serverAddress, int maxSize) {
+
+        this.serverAddress = serverAddress;
+        this.permits = new Semaphore(maxSize);
+    }
+
+    /**
+     * Sends the line on the pooled connection and receives the response line.
+     *
+     * @param line the line without the line terminator, it must not be empty
+     * @return the response line
+     * @throws IOException          if an I/O error occurs
+     * @throws InterruptedException if interrupted while waiting for the connection
+     */
+    public String exchange(String line) throws IOException, InterruptedException {
+
+        final Connection connection = borrow();
+        final String response;
+        try {
+            response = connection.exchange(line);
+        } catch (IOException e) {
+            invalidate(connection);
+            throw e;
+        }
+        release(connection);
+        return response;
+    }
+
+    /**
+     * Gets the number of the opened connections.
+     *
+     * @return the number of the opened connections
+     */
+    public long getOpenedCount() {
+        return openedCount.sum();
+    }
+
+    /**
+     * Closes all the connections.
+     */
+    @Override
+    public void close() {
+
+        closed = true;
+        allConnections.forEach(Connection::close);
+        allConnections.clear();
+        idleConnections.clear();
+    }
+
+    /**
+     * Borrows the idle connection or opens the new one.
+     *
+     * @return the connection
+     * @throws IOException          if an I/O error occurs
+     * @throws InterruptedException if interrupted while waiting for the connection
+     */
+    private Connection borrow() throws IOException, InterruptedException {
+
+        if (closed) {
+            throw new IOException("connection pool closed");
+        }
+        permits.acquire();
+        final Connection idleConnection = idleConnections.poll();
+        if (Objects.nonNull(idleConnection)) {
+            return idleConnection;
+        }
+        try {
+            final Connection connection = new Connection(new Socket(serverAddress.getAddress(),
+                    serverAddress.getPort()));
+            allConnections.add(connection);
+            openedCount.increment();
+            return connection;
+        } catch (IOException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the connection to the pool.
+     *
+     * @param connection the connection
+     */
+    private void release(Connection connection) {
+
+        if (closed) {
+            connection.close();
+        } else {
+            idleConnections.add(connection);
+        }
+        permits.release();
+    }
+
+    /**
+     * Closes the failed connection.
+     *
+     * @param connection the connection
+     */
+    private void invalidate(Connection connection) {
+
+        connection.close();
+        allConnections.remove(connection);
+        permits.release();
+    }
+
+    /**
+     * The persistent connection.
+     */
+    private static final class Connection {
+
+        private final Socket socket;
+        private final Writer writer;
+        private final BufferedReader reader;
+
+        /**
+         * The constructor.
+         *
+         * @param socket the connected socket
+         * @throws IOException if an I/O error occurs
+         */
+        Connection(Socket socket) throws IOException {
+
+            this.socket = socket;
+            socket.setTcpNoDelay(true);
+            this.writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            this.reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Sends the line and receives the response line.
+         *
+         * @param line the line
+         * @return the response line
+         * @throws IOException if an I/O error occurs or the server closed the connection
+         */
+        String exchange(String line) throws IOException {
+
+            writer.write(line);
+            writer.write('\n');
+            writer.flush();
+            final String response = reader.readLine();
+            if (Objects.isNull(response)) {
+                throw new EOFException("connection closed by server");
+            }
+            return response;
+        }
+
+        /**
+         * Closes the socket.
+         */
+        void close() {
+
+            try {
+                socket.close();
+            } catch (IOException _) {
+                // the socket is closed anyway
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package kp.web.sockets.tls;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The thread-safe pool of the direct buffers with the same capacity.
+ * <p>
+ * The released buffers are cleared and reused, at most the given number of them is kept.
+ * The buffers are allocated only when the pool is empty.
+ * </p>
+ */
+public class BufferPool {
+
+    private final int bufferSize;
+    private final int maxPooled;
+    private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+    private final LongAdder allocations = new LongAdder();
+    private final LongAdder acquisitions = new LongAdder();
+
+    /**
+     * The constructor.
+     *
+     * @param bufferSize the buffer capacity
+     * @param maxPooled  the maximum number of the kept buffers
+     */
+    public BufferPool(int bufferSize, int maxPooled) {
+
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * Acquires the cleared buffer.
+     *
+     * @return the buffer in the writing mode
+     */
+    public ByteBuffer acquire() {
+
+        acquisitions.increment();
+        final ByteBuffer buffer = buffers.poll();
+        if (Objects.nonNull(buffer)) {
+            pooled.decrementAndGet();
+            return buffer;
+        }
+        allocations.increment();
+        return ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * Releases the buffer to the pool.
+     *
+     * @param buffer the buffer acquired from this pool
+     */
+    public void release(ByteBuffer buffer) {
+
+        if (buffer.capacity() != bufferSize) {
+            return;
+        }
+        if (pooled.incrementAndGet() > maxPooled) {
+            pooled.decrementAndGet();
+            return;
+        }
+        buffers.add(buffer.clear());
+    }
+
+    /**
+     * Gets the buffer capacity.
+     *
+     * @return the buffer capacity
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Formats the acquisitions and the allocations.
+     *
+     * @return the formatted statistics
+     */
+    public String format() {
+        return "buffer size[%d], acquisitions[%d], allocations[%d]".formatted(bufferSize, acquisitions.sum(),
+                allocations.sum());
+    }
+}
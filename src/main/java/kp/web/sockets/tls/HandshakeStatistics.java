@@ -0,0 +1,81 @@
+package kp.web.sockets.tls;
+
+import kp.utils.LatencyHistogram;
+import kp.utils.Printer;
+
+import javax.net.ssl.SSLSession;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The thread-safe statistics of the TLS handshakes.
+ * <p>
+ * The handshake is abbreviated (the session was resumed) when the session was created before the handshake started.
+ * The full and the abbreviated handshakes have separate latency histograms.
+ * The negotiated protocols and cipher suites are counted.
+ * </p>
+ */
+public class HandshakeStatistics {
+
+    private final LatencyHistogram fullHandshakes = new LatencyHistogram();
+    private final LatencyHistogram abbreviatedHandshakes = new LatencyHistogram();
+    private final Map<String, LongAdder> negotiatedCounts = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs empty statistics.
+     */
+    public HandshakeStatistics() {
+        // No specific implementation needed
+    }
+
+    /**
+     * Records the completed handshake.
+     *
+     * @param session         the session after the handshake
+     * @param startEpochMilli the handshake start in milliseconds since the epoch
+     * @param nanos           the handshake latency in nanoseconds
+     * @return true if the handshake was abbreviated
+     */
+    public boolean record(SSLSession session, long startEpochMilli, long nanos) {
+
+        final boolean abbreviated = session.getCreationTime() < startEpochMilli;
+        (abbreviated ? abbreviatedHandshakes : fullHandshakes).record(nanos);
+        negotiatedCounts.computeIfAbsent("%s %s".formatted(session.getProtocol(), session.getCipherSuite()),
+                _ -> new LongAdder()).increment();
+        return abbreviated;
+    }
+
+    /**
+     * Gets the number of the full handshakes.
+     *
+     * @return the number of the full handshakes
+     */
+    public long getFullCount() {
+        return fullHandshakes.getCount();
+    }
+
+    /**
+     * Gets the number of the abbreviated handshakes.
+     *
+     * @return the number of the abbreviated handshakes
+     */
+    public long getAbbreviatedCount() {
+        return abbreviatedHandshakes.getCount();
+    }
+
+    /**
+     * Prints the handshake counts, the latency histograms and the negotiated protocols with cipher suites.
+     *
+     * @param label the label
+     */
+    public void print(String label) {
+
+        Printer.printf("print(): %s, handshakes full[%d], abbreviated[%d]", label, getFullCount(), getAbbreviatedCount());
+        Printer.printf("print(): %s, full handshake latency %s", label, fullHandshakes.format());
+        Printer.printf("print(): %s, abbreviated handshake latency %s", label, abbreviatedHandshakes.format());
+        new TreeMap<>(negotiatedCounts).forEach((negotiated, count) -> Printer.printf(
+                "print(): %s, negotiated[%s], handshakes[%d]", label, negotiated, count.sum()));
+    }
+}
@@ -3,6 +3,7 @@ package kp.web.sockets.wrapper;
 import kp.utils.Printer;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.util.Objects;
 import java.util.concurrent.Phaser;
@@ -34,6 +35,15 @@ public abstract class SocketWrapper {
         // No specific implementation needed
     }
 
+    /**
+     * Gets the server address.
+     *
+     * @return the server address
+     */
+    public static InetSocketAddress getServerAddress() {
+        return new InetSocketAddress(HOST, PORT);
+    }
+
     /**
      * Runs the server.
      *
@@ -0,0 +1,303 @@
+package kp.web.sockets.wrapper.impl;
+
+import kp.utils.Printer;
+import kp.utils.Utils;
+import kp.web.sockets.generator.Payload;
+import kp.web.sockets.generator.RandomTextsGenerator;
+import kp.web.sockets.wrapper.SocketWrapper;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The implementation of the {@link SocketWrapper} with the binary, length-prefixed framing.
+ * <p>
+ * The frame is the payload length (4 bytes, big-endian) followed by the payload bytes.
+ * The client sends its frame, the server receives it and sends its own frame back.
+ * The frames are received into the reusable direct buffers, no {@link String} is built from the payload.
+ * </p>
+ * <p>
+ * The payload is sent in one of the {@link Mode}s:
+ * <ul>
+ * <li>from the payloads file with the {@link FileChannel#transferTo} (the 'sendfile' on Linux)
+ * <li>from the direct buffer encoded before the run
+ * <li>from the text encoded on every send (for comparison with the line-based wrappers)
+ * </ul>
+ */
+public class BinarySocketWrapper extends SocketWrapper {
+
+    /**
+     * The payload sending mode.
+     */
+    public enum Mode {
+        /**
+         * Sends from the payloads file with the {@link FileChannel#transferTo}.
+         */
+        TRANSFER_TO,
+        /**
+         * Sends from the pre-encoded direct buffer.
+         */
+        DIRECT_BUFFER,
+        /**
+         * Encodes the text on every send.
+         */
+        ENCODED_STRING
+    }
+
+    private static final int HEADER_LENGTH = Integer.BYTES;
+    private static final int TAIL_LENGTH = 15;
+    private static final double BYTES_PER_MEGABYTE = 1024.0 * 1024.0;
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final Mode mode;
+    private final RandomTextsGenerator randomTextsGenerator;
+    private final Map<Payload, ByteBuffer> encodedPayloads = new HashMap<>();
+    private final LongAdder sentBytes = new LongAdder();
+    private final LongAdder sendingNanos = new LongAdder();
+    private final LongAdder receivedBytes = new LongAdder();
+    private final LongAdder receivingNanos = new LongAdder();
+    private FileChannel payloadsChannel;
+    private ByteBuffer serverBuffer = ByteBuffer.allocateDirect(HEADER_LENGTH);
+    private ByteBuffer clientBuffer = ByteBuffer.allocateDirect(HEADER_LENGTH);
+
+    /**
+     * Constructs a BinarySocketWrapper.
+     * Initializes the server socket channel, prepares the payloads and logs the creation time.
+     *
+     * @param mode                 the payload sending mode
+     * @param randomTextsGenerator the {@link RandomTextsGenerator} with the payloads
+     */
+    public BinarySocketWrapper(Mode mode, RandomTextsGenerator randomTextsGenerator) {
+
+        this.mode = mode;
+        this.randomTextsGenerator = randomTextsGenerator;
+        final Instant start = Instant.now();
+        initialize();
+        final Instant finish = Instant.now();
+        Printer.printf("BinarySocketWrapper(): server socket channel created, host[%s], port[%d], mode[%s], %s",
+                HOST, PORT, mode, Utils.formatElapsed(start, finish));
+    }
+
+    /**
+     * Initializes the server socket channel and the payloads.
+     */
+    private void initialize() {
+
+        try {
+            final ServerSocketChannel serverSocketChannel = ServerSocketChannel.open();
+            serverSocketChannel.bind(getServerAddress());
+            serverSocket = serverSocketChannel.socket();
+            final Payload firstPayload = randomTextsGenerator.getPayloadForServer(1);
+            payloadsChannel = FileChannel.open(firstPayload.file());
+            if (mode == Mode.DIRECT_BUFFER) {
+                for (int number = 1; number <= randomTextsGenerator.getIterations(); number++) {
+                    encodePayload(randomTextsGenerator.getPayloadForServer(number));
+                    encodePayload(randomTextsGenerator.getPayloadForClient(number));
+                }
+            }
+        } catch (IOException e) {
+            Printer.printIOException(e);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads the payload from the payloads file into the direct buffer.
+     *
+     * @param payload the payload
+     * @throws IOException if an I/O error occurs
+     */
+    private void encodePayload(Payload payload) throws IOException {
+
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(payload.length());
+        while (buffer.hasRemaining()) {
+            if (payloadsChannel.read(buffer, payload.offset() + buffer.position()) < 0) {
+                throw new EOFException("payloads file too short");
+            }
+        }
+        encodedPayloads.put(payload, buffer.flip());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void runServer(Phaser phaser, String content, int number) {
+
+        Printer.printf("runServer(): number[%d], start", number);
+        final ArrayList<Instant> instantList = new ArrayList<>();
+        instantList.add(Instant.now());// ◄ place '0'
+        try (SocketChannel socketChannel = serverSocket.getChannel().accept()) {
+            instantList.add(Instant.now());// ◄ place '1'
+            serverBuffer = receiveFrame(socketChannel, serverBuffer);
+            Printer.printf("runServer(): number[%d], content...[%s], server received from client", number,
+                    tail(serverBuffer));
+            instantList.add(Instant.now());// ◄ place '2'
+            sendFrame(socketChannel, content, randomTextsGenerator.getPayloadForServer(number));
+        } catch (IOException e) {
+            Printer.printIOException(e);
+            System.exit(1);
+        }
+        instantList.add(Instant.now());// ◄ place '3'
+        Printer.printf("runServer(): number[%d], %s", number, Utils.calculateElapsedTimes(instantList));
+        phaser.arriveAndDeregister();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void runClient(Phaser phaser, String content, int number) {
+
+        Printer.printf("runClient(): number[%d], start", number);
+        final ArrayList<Instant> instantList = new ArrayList<>();
+        instantList.add(Instant.now());// ◄ place '0'
+        try (SocketChannel socketChannel = SocketChannel.open(getServerAddress())) {
+            instantList.add(Instant.now());// ◄ place '1'
+            sendFrame(socketChannel, content, randomTextsGenerator.getPayloadForClient(number));
+            instantList.add(Instant.now());// ◄ place '2'
+            clientBuffer = receiveFrame(socketChannel, clientBuffer);
+            Printer.printf("runClient(): number[%d], content...[%s], client received from server", number,
+                    tail(clientBuffer));
+        } catch (IOException e) {
+            Printer.printIOException(e);
+            System.exit(1);
+        }
+        instantList.add(Instant.now());// ◄ place '3'
+        Printer.printf("runClient(): number[%d], %s", number, Utils.calculateElapsedTimes(instantList));
+        phaser.arriveAndDeregister();
+    }
+
+    /**
+     * Reports the sending and the receiving rates, closes the payloads file and the server socket channel.
+     */
+    @Override
+    public void closeServerSocket() {
+
+        Printer.printf("closeServerSocket(): mode[%s], sent[%s bytes], sending rate[%.1f MB/s], " +
+                        "received[%s bytes], receiving rate[%.1f MB/s]", mode,
+                Utils.formatNumber(sentBytes.sum()), rate(sentBytes, sendingNanos),
+                Utils.formatNumber(receivedBytes.sum()), rate(receivedBytes, receivingNanos));
+        try {
+            payloadsChannel.close();
+        } catch (IOException e) {
+            Printer.printIOException(e);
+            System.exit(1);
+        }
+        super.closeServerSocket();
+    }
+
+    /**
+     * Sends the frame with the payload.
+     *
+     * @param socketChannel the socket channel
+     * @param content       the text of the payload
+     * @param payload       the payload
+     * @throws IOException if an I/O error occurs
+     */
+    private void sendFrame(SocketChannel socketChannel, String content, Payload payload) throws IOException {
+
+        final long begin = System.nanoTime();
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).putInt(payload.length()).flip();
+        switch (mode) {
+            case TRANSFER_TO -> {
+                writeFully(socketChannel, header);
+                long position = payload.offset();
+                final long end = payload.offset() + payload.length();
+                while (position < end) {
+                    position += payloadsChannel.transferTo(position, end - position, socketChannel);
+                }
+            }
+            case DIRECT_BUFFER -> writeFully(socketChannel, header, encodedPayloads.get(payload).duplicate());
+            case ENCODED_STRING -> writeFully(socketChannel, header,
+                    ByteBuffer.wrap(content.getBytes(StandardCharsets.US_ASCII)));
+        }
+        sendingNanos.add(System.nanoTime() - begin);
+        sentBytes.add(HEADER_LENGTH + payload.length());
+    }
+
+    /**
+     * Receives the frame into the buffer, the buffer is replaced with the bigger one when needed.
+     *
+     * @param socketChannel the socket channel
+     * @param buffer        the reusable buffer
+     * @return the buffer in the reading mode with the payload
+     * @throws IOException if an I/O error occurs
+     */
+    private ByteBuffer receiveFrame(SocketChannel socketChannel, ByteBuffer buffer) throws IOException {
+
+        final long begin = System.nanoTime();
+        readFully(socketChannel, buffer.clear().limit(HEADER_LENGTH));
+        final int length = buffer.flip().getInt();
+        final ByteBuffer payloadBuffer = buffer.capacity() < length ? ByteBuffer.allocateDirect(length) : buffer;
+        readFully(socketChannel, payloadBuffer.clear().limit(length));
+        receivingNanos.add(System.nanoTime() - begin);
+        receivedBytes.add(HEADER_LENGTH + length);
+        return payloadBuffer.flip();
+    }
+
+    /**
+     * Writes all the buffers.
+     *
+     * @param socketChannel the socket channel
+     * @param buffers       the buffers in the reading mode
+     * @throws IOException if an I/O error occurs
+     */
+    private static void writeFully(SocketChannel socketChannel, ByteBuffer... buffers) throws IOException {
+
+        final ByteBuffer last = buffers[buffers.length - 1];
+        while (last.hasRemaining()) {
+            socketChannel.write(buffers);
+        }
+    }
+
+    /**
+     * Reads until the buffer is full.
+     *
+     * @param socketChannel the socket channel
+     * @param buffer        the buffer in the writing mode
+     * @throws IOException if an I/O error occurs or the connection was closed
+     */
+    private static void readFully(SocketChannel socketChannel, ByteBuffer buffer) throws IOException {
+
+        while (buffer.hasRemaining()) {
+            if (socketChannel.read(buffer) < 0) {
+                throw new EOFException("connection closed in the middle of the frame");
+            }
+        }
+    }
+
+    /**
+     * Decodes the payload tail for the log.
+     *
+     * @param buffer the buffer in the reading mode with the payload
+     * @return the payload tail
+     */
+    private static String tail(ByteBuffer buffer) {
+
+        final int length = Math.min(TAIL_LENGTH, buffer.limit());
+        return StandardCharsets.US_ASCII.decode(buffer.slice(buffer.limit() - length, length)).toString();
+    }
+
+    /**
+     * Computes the rate in megabytes per second.
+     *
+     * @param bytes the bytes
+     * @param nanos the nanoseconds
+     * @return the rate
+     */
+    private static double rate(LongAdder bytes, LongAdder nanos) {
+        return bytes.sum() / BYTES_PER_MEGABYTE / Math.max(1, nanos.sum()) * NANOS_PER_SECOND;
+    }
+}
@@ -2,6 +2,7 @@ package kp.web.sockets.wrapper.impl;
 
 import kp.utils.Printer;
 import kp.utils.Utils;
+import kp.web.sockets.tls.HandshakeStatistics;
 import kp.web.sockets.wrapper.SocketWrapper;
 
 import javax.net.ssl.*;
@@ -9,6 +10,7 @@ import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
 import java.security.KeyStore;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.concurrent.Phaser;
@@ -17,6 +19,11 @@ import java.util.stream.IntStream;
 
 /**
  * The secure implementation of the {@link SocketWrapper}.
+ * <p>
+ * The client and the server session caches are configured with the size and the timeout.
+ * With the session resumption the following handshakes are abbreviated, without it every handshake is full.
+ * The client handshakes are recorded in the {@link HandshakeStatistics}.
+ * </p>
  */
 public class SecureSocketWrapper extends SocketWrapper {
     /**
@@ -29,6 +36,8 @@ public class SecureSocketWrapper extends SocketWrapper {
     private static final String KEY_STORE_FILE = "src/main/resources/security/key_store";
     private static final String TRUST_STORE_FILE = "src/main/resources/security/trust_store";
     private static final String PASSWORD = "passphrase";
+    private static final int DEFAULT_SESSION_CACHE_SIZE = 1_000;
+    private static final int DEFAULT_SESSION_TIMEOUT_SECONDS = 300;
     private static final Supplier<char[]> PASSWORD_ARR_SUP = () -> {
         char[] resultArray = new char[PASSWORD.length()];
         IntStream.range(0, PASSWORD.getBytes(StandardCharsets.UTF_8).length)
@@ -41,17 +50,48 @@ public class SecureSocketWrapper extends SocketWrapper {
      */
     private SSLSocketFactory sslClientSocketFactory = null;
 
+    private final boolean sessionResumption;
+    private final int sessionCacheSize;
+    private final int sessionTimeoutSeconds;
+    private final HandshakeStatistics handshakeStatistics = new HandshakeStatistics();
+
     /**
-     * Constructs a SecureSocketWrapper.
+     * Constructs a SecureSocketWrapper with the session resumption and the default session cache.
      * Initializes the secure socket wrapper and logs the creation time.
      */
     public SecureSocketWrapper() {
+        this(true);
+    }
+
+    /**
+     * Constructs a SecureSocketWrapper with the default session cache.
+     * Initializes the secure socket wrapper and logs the creation time.
+     *
+     * @param sessionResumption the flag whether the client resumes the sessions
+     */
+    public SecureSocketWrapper(boolean sessionResumption) {
+        this(sessionResumption, DEFAULT_SESSION_CACHE_SIZE, DEFAULT_SESSION_TIMEOUT_SECONDS);
+    }
+
+    /**
+     * Constructs a SecureSocketWrapper.
+     * Initializes the secure socket wrapper and logs the creation time.
+     *
+     * @param sessionResumption     the flag whether the client resumes the sessions
+     * @param sessionCacheSize      the session cache size, zero means no limit
+     * @param sessionTimeoutSeconds the session timeout in seconds, zero means no limit
+     */
+    public SecureSocketWrapper(boolean sessionResumption, int sessionCacheSize, int sessionTimeoutSeconds) {
 
+        this.sessionResumption = sessionResumption;
+        this.sessionCacheSize = sessionCacheSize;
+        this.sessionTimeoutSeconds = sessionTimeoutSeconds;
         final Instant start = Instant.now();
         initialize();
         final Instant finish = Instant.now();
-        Printer.printf("SecureSocketWrapper(): server socket created, host[%s], port[%d], %s", HOST, PORT,
-                Utils.formatElapsed(start, finish));
+        Printer.printf("SecureSocketWrapper(): server socket created, host[%s], port[%d], session resumption[%b], " +
+                        "session cache size[%d], session timeout[%ds], %s", HOST, PORT, sessionResumption,
+                sessionCacheSize, sessionTimeoutSeconds, Utils.formatElapsed(start, finish));
     }
 
     /**
@@ -64,24 +104,56 @@ public class SecureSocketWrapper extends SocketWrapper {
             if (CONFIGURE_SSL_PROPERTIES_PROGRAMMATICALLY) {
                 sslServerSocketFactory = createSSLServerSocketFactory();
             } else {
-                sslServerSocketFactory = (SSLServerSocketFactory) SSLServerSocketFactory.getDefault();
-                sslClientSocketFactory = (SSLSocketFactory) SSLSocketFactory.getDefault();
+                final SSLContext sslContext = SSLContext.getDefault();
+                configureSessionContexts(sslContext);
+                sslServerSocketFactory = sslContext.getServerSocketFactory();
+                sslClientSocketFactory = sslContext.getSocketFactory();
             }
             serverSocket = sslServerSocketFactory.createServerSocket(PORT);
         } catch (IOException e) {
             Printer.printIOException(e);
             System.exit(1);
+        } catch (GeneralSecurityException e) {
+            Printer.printException(e);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Configures the size and the timeout of the client and the server session caches.
+     *
+     * @param sslContext the {@link SSLContext}
+     */
+    private void configureSessionContexts(SSLContext sslContext) {
+
+        for (SSLSessionContext sessionContext :
+                new SSLSessionContext[]{sslContext.getClientSessionContext(), sslContext.getServerSessionContext()}) {
+            sessionContext.setSessionCacheSize(sessionCacheSize);
+            sessionContext.setSessionTimeout(sessionTimeoutSeconds);
         }
     }
 
     /**
      * Creates customized SSL server socket factory.
      *
-     * @return the {@link SSLContext}
+     * @return the {@link SSLServerSocketFactory}
      */
     private SSLServerSocketFactory createSSLServerSocketFactory() {
 
-        SSLServerSocketFactory sslServerSocketFactory = null;
+        final SSLContext sslContext = createSSLContext();
+        configureSessionContexts(sslContext);
+        sslClientSocketFactory = sslContext.getSocketFactory();
+        return sslContext.getServerSocketFactory();
+    }
+
+    /**
+     * Creates the {@link SSLContext} with the key store and the trust store.
+     *
+     * @return the {@link SSLContext}
+     */
+    static SSLContext createSSLContext() {
+
+        SSLContext sslContext = null;
         try {
             /*-
              * Loads the KeyStore.
@@ -100,12 +172,10 @@ public class SecureSocketWrapper extends SocketWrapper {
             trustStore.load(new FileInputStream(TRUST_STORE_FILE), PASSWORD_ARR_SUP.get());
             trustManagerFactory.init(trustStore);
             /*-
-             * Uses the SSLContext to create an SSLServerSocketFactory and SSLSocketFactory.
+             * Initializes the SSLContext which creates an SSLServerSocketFactory, SSLSocketFactory and SSLEngine.
              */
-            final SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext = SSLContext.getInstance("TLS");
             sslContext.init(keyManagerFactory.getKeyManagers(), trustManagerFactory.getTrustManagers(), null);
-            sslServerSocketFactory = sslContext.getServerSocketFactory();
-            sslClientSocketFactory = sslContext.getSocketFactory();
         } catch (IOException | GeneralSecurityException e) {
             if (e instanceof GeneralSecurityException) {
                 Printer.printException(e);
@@ -114,7 +184,7 @@ public class SecureSocketWrapper extends SocketWrapper {
             }
             System.exit(1);
         }
-        return sslServerSocketFactory;
+        return sslContext;
     }
 
     /**
@@ -167,6 +237,7 @@ public class SecureSocketWrapper extends SocketWrapper {
             instants.add(Instant.now());// ◄ place '1'
             sslSocket.startHandshake();
             instants.add(Instant.now());// ◄ place '2'
+            recordHandshake(number, sslSocket.getSession(), instants.get(1), instants.get(2));
             printWriter.printf("%s%n%n", content);
             printWriter.flush();
             if (printWriter.checkError()) {
@@ -179,6 +250,10 @@ public class SecureSocketWrapper extends SocketWrapper {
                 Printer.printf("runClient(): number[%d], content...[%s], client received from server", number,
                         line.substring(line.length() - 15));
             }
+            if (!sessionResumption) {
+                // the TLS 1.3 session ticket is received after the handshake, the session is invalidated at the end
+                sslSocket.getSession().invalidate();
+            }
         } catch (IOException ioException) {
             Printer.printIOException(ioException);
             System.exit(1);
@@ -188,6 +263,32 @@ public class SecureSocketWrapper extends SocketWrapper {
         phaser.arriveAndDeregister();
     }
 
+    /**
+     * Records the client handshake in the statistics.
+     *
+     * @param number  the number
+     * @param session the SSL session
+     * @param start   the handshake start
+     * @param finish  the handshake finish
+     */
+    private void recordHandshake(int number, SSLSession session, Instant start, Instant finish) {
+
+        final boolean abbreviated = handshakeStatistics.record(session, start.toEpochMilli(),
+                Duration.between(start, finish).toNanos());
+        Printer.printf("runClient(): number[%d], handshake[%s], protocol[%s], cipher suite[%s]", number,
+                abbreviated ? "abbreviated" : "full", session.getProtocol(), session.getCipherSuite());
+    }
+
+    /**
+     * Prints the handshake statistics and closes the server socket.
+     */
+    @Override
+    public void closeServerSocket() {
+
+        handshakeStatistics.print("session resumption[%b]".formatted(sessionResumption));
+        super.closeServerSocket();
+    }
+
     /**
      * Shows the SSL session attributes.<br>
      * It is active only for run with number 4.
@@ -0,0 +1,403 @@
+package kp.web.sockets.wrapper.impl;
+
+import kp.utils.Printer;
+import kp.utils.Utils;
+import kp.web.sockets.wrapper.SocketWrapper;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.Semaphore;
+import java.util.stream.IntStream;
+
+/**
+ * The non-blocking implementation of the {@link SocketWrapper} with the {@link ServerSocketChannel}
+ * and the {@link Selector}.
+ * <p>
+ * A few event loop threads serve all the connections. The first loop accepts the connections
+ * and hands them over to the loops in turn. Every connection has its own direct input and output buffers.
+ * </p>
+ * <p>
+ * The protocol is the line-framed echo: every received line is sent back,
+ * the empty line ends the exchange and the connection is closed after the pending output is written.
+ * While the output is pending the connection is not read (the backpressure).
+ * </p>
+ */
+public class SelectorSocketWrapper extends SocketWrapper {
+
+    private static final int EVENT_LOOPS = Math.min(4, Runtime.getRuntime().availableProcessors());
+    private static final int BACKLOG = 4_096;
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final int MAX_LINE_LENGTH = 1 << 28;
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    private ServerSocketChannel serverSocketChannel;
+    private final List<EventLoop> eventLoops = new ArrayList<>();
+    private final List<Thread> eventLoopThreads = new ArrayList<>();
+    private final Semaphore servedConnections = new Semaphore(0);
+    private int nextEventLoop;
+    private volatile boolean running = true;
+
+    /**
+     * Constructs a SelectorSocketWrapper.
+     * Initializes the selector socket wrapper, starts the event loops and logs the creation time.
+     */
+    public SelectorSocketWrapper() {
+
+        final Instant start = Instant.now();
+        initialize();
+        final Instant finish = Instant.now();
+        Printer.printf("SelectorSocketWrapper(): server socket channel created, host[%s], port[%d], event loops[%d], %s",
+                HOST, PORT, EVENT_LOOPS, Utils.formatElapsed(start, finish));
+    }
+
+    /**
+     * Initializes the selector socket wrapper.
+     */
+    private void initialize() {
+
+        try {
+            serverSocketChannel = ServerSocketChannel.open();
+            serverSocketChannel.configureBlocking(false);
+            serverSocketChannel.bind(getServerAddress(), BACKLOG);
+            serverSocket = serverSocketChannel.socket();
+            for (int i = 0; i < EVENT_LOOPS; i++) {
+                eventLoops.add(new EventLoop(Selector.open()));
+            }
+            serverSocketChannel.register(eventLoops.getFirst().selector, SelectionKey.OP_ACCEPT);
+            IntStream.range(0, EVENT_LOOPS).forEach(i -> eventLoopThreads.add(Thread.ofPlatform().daemon()
+                    .name("event-loop-%d".formatted(i)).start(eventLoops.get(i))));
+        } catch (IOException e) {
+            Printer.printIOException(e);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The connections are served by the event loops, this method waits until one connection was served.
+     * The server echoes the client content, the given content is not sent.
+     * </p>
+     */
+    @Override
+    public void runServer(Phaser phaser, String content, int number) {
+
+        Printer.printf("runServer(): number[%d], start", number);
+        final ArrayList<Instant> instantList = new ArrayList<>();
+        instantList.add(Instant.now());// ◄ place '0'
+        try {
+            servedConnections.acquire();
+        } catch (InterruptedException e) {
+            Printer.printInterruptedException(e);
+            Thread.currentThread().interrupt();// Preserve interrupt status
+        }
+        instantList.add(Instant.now());// ◄ place '1'
+        Printer.printf("runServer(): number[%d], connection served by event loop, %s", number,
+                Utils.calculateElapsedTimes(instantList));
+        phaser.arriveAndDeregister();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void runClient(Phaser phaser, String content, int number) {
+
+        Printer.printf("runClient(): number[%d], start", number);
+        final ArrayList<Instant> instantList = new ArrayList<>();
+        instantList.add(Instant.now());// ◄ place '0'
+        try (Socket socket = new Socket(HOST, PORT);
+             PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(socket.getOutputStream())));
+             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+            instantList.add(Instant.now());// ◄ place '1'
+            writer.printf("%s%n%n", content);
+            writer.flush();
+            String line;
+            while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                Printer.printf("runClient(): number[%d], content...[%s], client received echo from server", number,
+                        line.substring(line.length() - 15));
+            }
+        } catch (IOException e) {
+            Printer.printIOException(e);
+            System.exit(1);
+        }
+        instantList.add(Instant.now());// ◄ place '2'
+        Printer.printf("runClient(): number[%d], %s", number, Utils.calculateElapsedTimes(instantList));
+        phaser.arriveAndDeregister();
+    }
+
+    /**
+     * Stops the event loops and closes the server socket channel.
+     * The registered channel is released when its selector is closed, so the event loops are awaited.
+     */
+    @Override
+    public void closeServerSocket() {
+
+        running = false;
+        eventLoops.forEach(eventLoop -> eventLoop.selector.wakeup());
+        super.closeServerSocket();
+        try {
+            for (Thread thread : eventLoopThreads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            Printer.printInterruptedException(e);
+            Thread.currentThread().interrupt();// Preserve interrupt status
+        }
+    }
+
+    /**
+     * The event loop with its own selector.
+     */
+    private final class EventLoop implements Runnable {
+
+        private final Selector selector;
+        private final Queue<SocketChannel> assignedChannels = new ConcurrentLinkedQueue<>();
+
+        /**
+         * The constructor.
+         *
+         * @param selector the selector
+         */
+        EventLoop(Selector selector) {
+            this.selector = selector;
+        }
+
+        /**
+         * Assigns the accepted channel to this loop.
+         *
+         * @param socketChannel the socket channel
+         */
+        void assign(SocketChannel socketChannel) {
+
+            assignedChannels.add(socketChannel);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+
+            try (selector) {
+                while (running) {
+                    selector.select();
+                    registerAssignedChannels();
+                    final Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                    while (iterator.hasNext()) {
+                        final SelectionKey key = iterator.next();
+                        iterator.remove();
+                        handle(key);
+                    }
+                }
+                selector.keys().forEach(key -> closeQuietly(key.channel()));
+            } catch (IOException | ClosedSelectorException e) {
+                if (running) {
+                    Printer.printException(e);
+                }
+            }
+        }
+
+        /**
+         * Registers the channels assigned by the accepting loop.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        private void registerAssignedChannels() throws IOException {
+
+            SocketChannel socketChannel;
+            while (Objects.nonNull(socketChannel = assignedChannels.poll())) {
+                socketChannel.configureBlocking(false);
+                socketChannel.register(selector, SelectionKey.OP_READ, new Connection());
+            }
+        }
+
+        /**
+         * Handles the selected key.
+         *
+         * @param key the selection key
+         */
+        private void handle(SelectionKey key) {
+
+            try {
+                if (!key.isValid()) {
+                    return;
+                }
+                if (key.isAcceptable()) {
+                    accept();
+                    return;
+                }
+                if (key.isReadable()) {
+                    read(key);
+                }
+                if (key.isValid() && key.isWritable()) {
+                    write(key);
+                }
+            } catch (IOException e) {
+                // the connection reset by the client
+                closeConnection(key);
+            }
+        }
+
+        /**
+         * Accepts the pending connections and assigns them to the loops in turn.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        private void accept() throws IOException {
+
+            SocketChannel socketChannel;
+            while (Objects.nonNull(socketChannel = serverSocketChannel.accept())) {
+                eventLoops.get(nextEventLoop).assign(socketChannel);
+                nextEventLoop = (nextEventLoop + 1) % eventLoops.size();
+            }
+        }
+
+        /**
+         * Reads from the connection and frames the lines.
+         *
+         * @param key the selection key
+         * @throws IOException if an I/O error occurs
+         */
+        private void read(SelectionKey key) throws IOException {
+
+            final Connection connection = (Connection) key.attachment();
+            if (((SocketChannel) key.channel()).read(connection.input) < 0) {
+                closeConnection(key);
+                return;
+            }
+            connection.frameLines();
+            if (connection.output.position() > 0) {
+                key.interestOps(SelectionKey.OP_WRITE);
+            } else if (connection.closing) {
+                closeConnection(key);
+            } else if (!connection.input.hasRemaining()) {
+                if (connection.input.capacity() >= MAX_LINE_LENGTH) {
+                    Printer.printf("read(): line longer than [%s] bytes, connection closed",
+                            Utils.formatNumber(MAX_LINE_LENGTH));
+                    closeConnection(key);
+                    return;
+                }
+                connection.input = grow(connection.input);
+            }
+        }
+
+        /**
+         * Writes the pending output to the connection.
+         *
+         * @param key the selection key
+         * @throws IOException if an I/O error occurs
+         */
+        private void write(SelectionKey key) throws IOException {
+
+            final Connection connection = (Connection) key.attachment();
+            connection.output.flip();
+            ((SocketChannel) key.channel()).write(connection.output);
+            connection.output.compact();
+            if (connection.output.position() > 0) {
+                return;
+            }
+            if (connection.closing) {
+                closeConnection(key);
+            } else {
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+
+        /**
+         * Closes the connection.
+         *
+         * @param key the selection key
+         */
+        private void closeConnection(SelectionKey key) {
+
+            key.cancel();
+            closeQuietly(key.channel());
+            servedConnections.release();
+        }
+    }
+
+    /**
+     * The connection state with the direct buffers, both are in the writing mode.
+     */
+    private static final class Connection {
+
+        private ByteBuffer input = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private ByteBuffer output = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private boolean closing;
+
+        /**
+         * Moves the complete lines from the input to the output.
+         * The empty line marks the connection for closing, the following input is ignored.
+         */
+        void frameLines() {
+
+            input.flip();
+            int lineStart = input.position();
+            for (int i = lineStart; i < input.limit() && !closing; i++) {
+                if (input.get(i) != LF) {
+                    continue;
+                }
+                final int lineEnd = i > lineStart && input.get(i - 1) == CR ? i - 1 : i;
+                if (lineEnd == lineStart) {
+                    closing = true;
+                } else {
+                    append(input.slice(lineStart, i + 1 - lineStart));
+                }
+                lineStart = i + 1;
+            }
+            input.position(closing ? input.limit() : lineStart);
+            input.compact();
+        }
+
+        /**
+         * Appends the line to the output, the output grows when needed.
+         *
+         * @param line the line
+         */
+        private void append(ByteBuffer line) {
+
+            while (output.remaining() < line.remaining()) {
+                output = grow(output);
+            }
+            output.put(line);
+        }
+    }
+
+    /**
+     * Doubles the direct buffer in the writing mode.
+     *
+     * @param buffer the buffer
+     * @return the bigger buffer with the same content
+     */
+    private static ByteBuffer grow(ByteBuffer buffer) {
+        return ByteBuffer.allocateDirect(buffer.capacity() * 2).put(buffer.flip());
+    }
+
+    /**
+     * Closes the channel and ignores the exception.
+     *
+     * @param channel the channel
+     */
+    private static void closeQuietly(Closeable channel) {
+
+        try {
+            channel.close();
+        } catch (IOException _) {
+            // the channel is closed anyway
+        }
+    }
+}
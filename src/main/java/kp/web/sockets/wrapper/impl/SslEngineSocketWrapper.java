@@ -0,0 +1,424 @@
+package kp.web.sockets.wrapper.impl;
+
+import kp.utils.Printer;
+import kp.utils.Utils;
+import kp.web.sockets.tls.BufferPool;
+import kp.web.sockets.wrapper.SocketWrapper;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSocket;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.Semaphore;
+
+/**
+ * The non-blocking secure implementation of the {@link SocketWrapper} with the {@link SSLEngine}
+ * over the {@link SocketChannel}.
+ * <p>
+ * One event loop thread with the {@link Selector} serves all the TLS connections.
+ * The network and the application buffers are taken from the {@link BufferPool}s and returned on close.
+ * The engine drives the handshake: it asks for the wrap, the unwrap or the delegated task
+ * (the delegated tasks are run on the event loop).
+ * </p>
+ * <p>
+ * The protocol is the line-framed echo as in the {@link SelectorSocketWrapper}, but the received bytes are
+ * echoed as they are decrypted, so the line is not limited by the application buffer.
+ * The empty line ends the exchange: the pending echo is written, then the 'close_notify' alert is sent
+ * and the connection is closed. While the output is pending the connection is not read (the backpressure).
+ * </p>
+ * <p>
+ * The client is the blocking {@link SSLSocket} from the same {@link SSLContext}.
+ * </p>
+ */
+public class SslEngineSocketWrapper extends SocketWrapper {
+
+    private static final int BACKLOG = 4_096;
+    private static final int MAX_POOLED_BUFFERS = 256;
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    private final SSLContext sslContext = SecureSocketWrapper.createSSLContext();
+    private final Semaphore servedConnections = new Semaphore(0);
+    private ServerSocketChannel serverSocketChannel;
+    private Selector selector;
+    private Thread eventLoopThread;
+    private BufferPool networkBuffers;
+    private BufferPool applicationBuffers;
+    private volatile boolean running = true;
+
+    /**
+     * Constructs a SslEngineSocketWrapper.
+     * Initializes the server socket channel, starts the event loop and logs the creation time.
+     */
+    public SslEngineSocketWrapper() {
+
+        final Instant start = Instant.now();
+        initialize();
+        final Instant finish = Instant.now();
+        Printer.printf("SslEngineSocketWrapper(): server socket channel created, host[%s], port[%d], " +
+                        "packet buffer size[%d], application buffer size[%d], %s", HOST, PORT,
+                networkBuffers.getBufferSize(), applicationBuffers.getBufferSize(), Utils.formatElapsed(start, finish));
+    }
+
+    /**
+     * Initializes the server socket channel, the buffer pools and the event loop.
+     */
+    private void initialize() {
+
+        final SSLEngine templateEngine = sslContext.createSSLEngine();
+        networkBuffers = new BufferPool(templateEngine.getSession().getPacketBufferSize(), MAX_POOLED_BUFFERS);
+        applicationBuffers = new BufferPool(templateEngine.getSession().getApplicationBufferSize(),
+                MAX_POOLED_BUFFERS);
+        try {
+            serverSocketChannel = ServerSocketChannel.open();
+            serverSocketChannel.configureBlocking(false);
+            serverSocketChannel.bind(getServerAddress(), BACKLOG);
+            serverSocket = serverSocketChannel.socket();
+            selector = Selector.open();
+            serverSocketChannel.register(selector, SelectionKey.OP_ACCEPT);
+            eventLoopThread = Thread.ofPlatform().daemon().name("tls-event-loop").start(this::runEventLoop);
+        } catch (IOException e) {
+            Printer.printIOException(e);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The connections are served by the event loop, this method waits until one connection was served.
+     * The server echoes the client content, the given content is not sent.
+     * </p>
+     */
+    @Override
+    public void runServer(Phaser phaser, String content, int number) {
+
+        Printer.printf("runServer(): number[%d], start", number);
+        final ArrayList<Instant> instants = new ArrayList<>();
+        instants.add(Instant.now());// ◄ place '0'
+        try {
+            servedConnections.acquire();
+        } catch (InterruptedException e) {
+            Printer.printInterruptedException(e);
+            Thread.currentThread().interrupt();// Preserve interrupt status
+        }
+        instants.add(Instant.now());// ◄ place '1'
+        Printer.printf("runServer(): number[%d], connection served by TLS event loop, %s", number,
+                Utils.calculateElapsedTimes(instants));
+        phaser.arriveAndDeregister();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void runClient(Phaser phaser, String content, int number) {
+
+        Printer.printf("runClient(): number[%d], start", number);
+        final ArrayList<Instant> instants = new ArrayList<>();
+        instants.add(Instant.now());// ◄ place '0'
+        try (SSLSocket sslSocket = (SSLSocket) sslContext.getSocketFactory().createSocket(HOST, PORT);
+             PrintWriter printWriter =
+                     new PrintWriter(new BufferedWriter(new OutputStreamWriter(sslSocket.getOutputStream())));
+             BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(sslSocket.getInputStream()))) {
+            sslSocket.startHandshake();
+            instants.add(Instant.now());// ◄ place '1'
+            printWriter.printf("%s%n%n", content);
+            printWriter.flush();
+            instants.add(Instant.now());// ◄ place '2'
+            String line;
+            while ((line = bufferedReader.readLine()) != null && !line.isEmpty()) {
+                Printer.printf("runClient(): number[%d], content...[%s], client received echo from server", number,
+                        line.substring(line.length() - 15));
+            }
+        } catch (IOException ioException) {
+            Printer.printIOException(ioException);
+            System.exit(1);
+        }
+        instants.add(Instant.now());// ◄ place '3'
+        Printer.printf("runClient(): number[%d], %s", number, Utils.calculateElapsedTimes(instants));
+        phaser.arriveAndDeregister();
+    }
+
+    /**
+     * Stops the event loop, closes the server socket channel and reports the buffer pools.
+     */
+    @Override
+    public void closeServerSocket() {
+
+        running = false;
+        selector.wakeup();
+        super.closeServerSocket();
+        try {
+            eventLoopThread.join();
+        } catch (InterruptedException e) {
+            Printer.printInterruptedException(e);
+            Thread.currentThread().interrupt();// Preserve interrupt status
+        }
+        Printer.printf("closeServerSocket(): network buffers %s", networkBuffers.format());
+        Printer.printf("closeServerSocket(): application buffers %s", applicationBuffers.format());
+    }
+
+    /**
+     * Runs the event loop until the wrapper is closed.
+     */
+    private void runEventLoop() {
+
+        try (Selector eventLoopSelector = selector) {
+            while (running) {
+                eventLoopSelector.select(this::handle);
+            }
+            eventLoopSelector.keys().forEach(this::closeConnection);
+        } catch (IOException | ClosedSelectorException e) {
+            if (running) {
+                Printer.printException(e);
+            }
+        }
+    }
+
+    /**
+     * Handles the selected key.
+     *
+     * @param key the selection key
+     */
+    private void handle(SelectionKey key) {
+
+        try {
+            if (!key.isValid()) {
+                return;
+            }
+            if (key.isAcceptable()) {
+                accept();
+                return;
+            }
+            process(key, (Connection) key.attachment());
+        } catch (IOException e) {
+            // the connection reset by the client or the TLS failure
+            closeConnection(key);
+        }
+    }
+
+    /**
+     * Accepts the pending connections and begins the server handshakes.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void accept() throws IOException {
+
+        SocketChannel socketChannel;
+        while (Objects.nonNull(socketChannel = serverSocketChannel.accept())) {
+            socketChannel.configureBlocking(false);
+            final SSLEngine engine = sslContext.createSSLEngine();
+            engine.setUseClientMode(false);
+            engine.beginHandshake();
+            socketChannel.register(selector, SelectionKey.OP_READ, new Connection(engine));
+        }
+    }
+
+    /**
+     * Drives the engine until it waits for the network.
+     *
+     * @param key        the selection key
+     * @param connection the connection
+     * @throws IOException if an I/O error occurs
+     */
+    private void process(SelectionKey key, Connection connection) throws IOException {
+
+        final SocketChannel socketChannel = (SocketChannel) key.channel();
+        final SSLEngine engine = connection.engine;
+        while (true) {
+            if (!flush(socketChannel, connection)) {
+                key.interestOps(SelectionKey.OP_WRITE);
+                return;
+            }
+            if (engine.isOutboundDone()) {
+                // the 'close_notify' alert was sent
+                closeConnection(key);
+                return;
+            }
+            final SSLEngineResult.HandshakeStatus handshakeStatus = engine.getHandshakeStatus();
+            if (handshakeStatus == SSLEngineResult.HandshakeStatus.NEED_TASK) {
+                Runnable task;
+                while (Objects.nonNull(task = engine.getDelegatedTask())) {
+                    task.run();
+                }
+            } else if (handshakeStatus == SSLEngineResult.HandshakeStatus.NEED_WRAP) {
+                wrap(engine, EMPTY, connection.netOut);
+            } else if (handshakeStatus == SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING
+                       && connection.appIn.position() > 0) {
+                wrap(engine, connection.appIn.flip(), connection.netOut);
+                connection.appIn.compact();
+            } else if (handshakeStatus == SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING
+                       && (connection.closing || engine.isInboundDone())) {
+                engine.closeOutbound();
+            } else if (!unwrap(socketChannel, connection)) {
+                key.interestOps(SelectionKey.OP_READ);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Wraps the application data or the handshake data.
+     *
+     * @param engine the engine
+     * @param source the source in the reading mode
+     * @param netOut the network output buffer in the writing mode
+     * @throws SSLException if the network output buffer is too small
+     */
+    private static void wrap(SSLEngine engine, ByteBuffer source, ByteBuffer netOut) throws SSLException {
+
+        final SSLEngineResult result = engine.wrap(source, netOut);
+        if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW && netOut.position() == 0) {
+            throw new SSLException("network output buffer too small");
+        }
+        // on the buffer overflow with the pending output the next wrap follows the flush
+    }
+
+    /**
+     * Unwraps the network data, reads from the channel when the network data are incomplete.
+     *
+     * @param socketChannel the socket channel
+     * @param connection    the connection
+     * @return false if the connection has to wait for the network data
+     * @throws IOException if an I/O error occurs
+     */
+    private boolean unwrap(SocketChannel socketChannel, Connection connection) throws IOException {
+
+        final int echoStart = connection.appIn.position();
+        final SSLEngineResult result = connection.engine.unwrap(connection.netIn.flip(), connection.appIn);
+        connection.netIn.compact();
+        switch (result.getStatus()) {
+            case OK -> connection.scanEcho(echoStart);
+            case CLOSED -> {
+                // the 'close_notify' alert was received, the engine asks for the wrap of the reply
+            }
+            case BUFFER_UNDERFLOW -> {
+                final int packetBufferSize = connection.engine.getSession().getPacketBufferSize();
+                if (connection.netIn.capacity() < packetBufferSize) {
+                    connection.netIn = ByteBuffer.allocateDirect(packetBufferSize).put(connection.netIn.flip());
+                }
+                final int count = socketChannel.read(connection.netIn);
+                if (count < 0) {
+                    throw new EOFException("connection closed without 'close_notify'");
+                }
+                return count > 0;
+            }
+            case BUFFER_OVERFLOW -> throw new SSLException("application input buffer too small");
+        }
+        return true;
+    }
+
+    /**
+     * Writes the pending network output.
+     *
+     * @param socketChannel the socket channel
+     * @param connection    the connection
+     * @return true if all the network output was written
+     * @throws IOException if an I/O error occurs
+     */
+    private static boolean flush(SocketChannel socketChannel, Connection connection) throws IOException {
+
+        if (connection.netOut.position() == 0) {
+            return true;
+        }
+        socketChannel.write(connection.netOut.flip());
+        connection.netOut.compact();
+        return connection.netOut.position() == 0;
+    }
+
+    /**
+     * Closes the connection and returns its buffers to the pools.
+     *
+     * @param key the selection key
+     */
+    private void closeConnection(SelectionKey key) {
+
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException _) {
+            // the channel is closed anyway
+        }
+        if (key.attachment() instanceof Connection connection && connection.release()) {
+            servedConnections.release();
+        }
+    }
+
+    /**
+     * The TLS connection state with the pooled buffers, all are in the writing mode.
+     * The application input holds the decrypted bytes waiting for the echo.
+     */
+    private final class Connection {
+
+        private final SSLEngine engine;
+        private ByteBuffer netIn = networkBuffers.acquire();
+        private final ByteBuffer netOut = networkBuffers.acquire();
+        private final ByteBuffer appIn = applicationBuffers.acquire();
+        private int lineLength;
+        private boolean closing;
+        private boolean released;
+
+        /**
+         * The constructor.
+         *
+         * @param engine the engine
+         */
+        Connection(SSLEngine engine) {
+            this.engine = engine;
+        }
+
+        /**
+         * Scans the decrypted bytes for the empty line.
+         * The empty line marks the connection for closing, it and the following bytes are not echoed.
+         *
+         * @param echoStart the position of the first decrypted byte
+         */
+        void scanEcho(int echoStart) {
+
+            if (closing) {
+                appIn.position(echoStart);
+                return;
+            }
+            for (int i = echoStart; i < appIn.position(); i++) {
+                final byte current = appIn.get(i);
+                if (current == LF && lineLength == 0) {
+                    closing = true;
+                    appIn.position(i);
+                    return;
+                }
+                lineLength = current == LF ? 0 : current == CR ? lineLength : lineLength + 1;
+            }
+        }
+
+        /**
+         * Returns the buffers to the pools.
+         *
+         * @return false if the buffers were already returned
+         */
+        boolean release() {
+
+            if (released) {
+                return false;
+            }
+            released = true;
+            networkBuffers.release(netIn);
+            networkBuffers.release(netOut);
+            applicationBuffers.release(appIn);
+            return true;
+        }
+    }
+}
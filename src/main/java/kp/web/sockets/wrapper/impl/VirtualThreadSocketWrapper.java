@@ -0,0 +1,185 @@
+package kp.web.sockets.wrapper.impl;
+
+import kp.utils.Printer;
+import kp.utils.Utils;
+import kp.web.sockets.pool.ConnectionPool;
+import kp.web.sockets.wrapper.SocketWrapper;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.Semaphore;
+
+/**
+ * The implementation of the {@link SocketWrapper} with one virtual thread for every connection.
+ * <p>
+ * The connections are persistent: many newline-delimited messages are exchanged on one connection.
+ * The protocol is the same line-framed echo as in the {@link SelectorSocketWrapper}:
+ * every received line is sent back, the empty line or the end of stream closes the connection.
+ * </p>
+ * <p>
+ * The client side uses the {@link ConnectionPool}, so the iterations reuse the connections
+ * instead of connecting for every message.
+ * </p>
+ */
+public class VirtualThreadSocketWrapper extends SocketWrapper {
+
+    private static final int BACKLOG = 4_096;
+    private static final int CLIENT_POOL_SIZE = 2;
+
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private final Semaphore servedMessages = new Semaphore(0);
+    private final ConnectionPool connectionPool = new ConnectionPool(getServerAddress(), CLIENT_POOL_SIZE);
+
+    /**
+     * Constructs a VirtualThreadSocketWrapper.
+     * Initializes the server socket, starts the accepting virtual thread and logs the creation time.
+     */
+    public VirtualThreadSocketWrapper() {
+
+        final Instant start = Instant.now();
+        initialize();
+        final Instant finish = Instant.now();
+        Printer.printf("VirtualThreadSocketWrapper(): server socket created, host[%s], port[%d], %s", HOST, PORT,
+                Utils.formatElapsed(start, finish));
+    }
+
+    /**
+     * Initializes the server socket and starts the accepting virtual thread.
+     */
+    private void initialize() {
+
+        try {
+            serverSocket = new ServerSocket(PORT, BACKLOG);
+            final ServerSocket acceptingSocket = serverSocket;
+            Thread.ofVirtual().name("acceptor").start(() -> accept(acceptingSocket));
+        } catch (IOException e) {
+            Printer.printIOException(e);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Accepts the connections until the server socket is closed.
+     *
+     * @param acceptingSocket the server socket
+     */
+    private void accept(ServerSocket acceptingSocket) {
+
+        while (!acceptingSocket.isClosed()) {
+            try {
+                final Socket socket = acceptingSocket.accept();
+                connections.add(socket);
+                Thread.ofVirtual().start(() -> serve(socket));
+            } catch (IOException e) {
+                if (!acceptingSocket.isClosed()) {
+                    Printer.printIOException(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Serves the persistent connection.
+     *
+     * @param socket the socket
+     */
+    private void serve(Socket socket) {
+
+        try (socket;
+             Writer writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+             BufferedReader reader = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            socket.setTcpNoDelay(true);
+            String line;
+            while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                writer.write(line);
+                writer.write('\n');
+                // flushed before the next blocking read, the client may wait for it before sending more
+                writer.flush();
+                servedMessages.release();
+            }
+        } catch (IOException _) {
+            // the connection reset by the client or closed with the server socket
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The connections are served by the virtual threads, this method waits until one message was served.
+     * The server echoes the client content, the given content is not sent.
+     * </p>
+     */
+    @Override
+    public void runServer(Phaser phaser, String content, int number) {
+
+        Printer.printf("runServer(): number[%d], start", number);
+        final ArrayList<Instant> instantList = new ArrayList<>();
+        instantList.add(Instant.now());// ◄ place '0'
+        try {
+            servedMessages.acquire();
+        } catch (InterruptedException e) {
+            Printer.printInterruptedException(e);
+            Thread.currentThread().interrupt();// Preserve interrupt status
+        }
+        instantList.add(Instant.now());// ◄ place '1'
+        Printer.printf("runServer(): number[%d], message served by virtual thread, %s", number,
+                Utils.calculateElapsedTimes(instantList));
+        phaser.arriveAndDeregister();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The message is exchanged on the pooled persistent connection.
+     * </p>
+     */
+    @Override
+    public void runClient(Phaser phaser, String content, int number) {
+
+        Printer.printf("runClient(): number[%d], start", number);
+        final ArrayList<Instant> instantList = new ArrayList<>();
+        instantList.add(Instant.now());// ◄ place '0'
+        try {
+            final String line = connectionPool.exchange(content);
+            Printer.printf("runClient(): number[%d], content...[%s], client received echo from server", number,
+                    line.substring(line.length() - 15));
+        } catch (IOException e) {
+            Printer.printIOException(e);
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Printer.printInterruptedException(e);
+            Thread.currentThread().interrupt();// Preserve interrupt status
+        }
+        instantList.add(Instant.now());// ◄ place '1'
+        Printer.printf("runClient(): number[%d], connections opened[%d], %s", number,
+                connectionPool.getOpenedCount(), Utils.calculateElapsedTimes(instantList));
+        phaser.arriveAndDeregister();
+    }
+
+    /**
+     * Closes the client connection pool, the server socket and the served connections.
+     */
+    @Override
+    public void closeServerSocket() {
+
+        connectionPool.close();
+        super.closeServerSocket();
+        connections.forEach(socket -> {
+            try {
+                socket.close();
+            } catch (IOException _) {
+                // the socket is closed anyway
+            }
+        });
+    }
+}